@@ -0,0 +1,65 @@
+package com.aditya.youtube_clone.config;
+
+import com.aditya.youtube_clone.model.Comment;
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Reaction;
+import com.aditya.youtube_clone.model.Subscription;
+import com.aditya.youtube_clone.model.UniqueViewerSketch;
+import com.aditya.youtube_clone.model.UploadSession;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.model.WatchHistoryBucket;
+import com.aditya.youtube_clone.model.WatchProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the listed documents. Boot leaves auto-index-creation off, so without this
+ * the @CompoundIndex annotations are documentation only. Runs off the startup thread, an unreachable Mongo
+ * only costs a logged error instead of holding up the application.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Reaction.class, Comment.class, Video.class,
+            UniqueViewerSketch.class, WatchHistoryBucket.class, WatchProgress.class, Subscription.class,
+            FeedEntry.class, Job.class, UploadSession.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+
+    @Value("${mongo.indexes.create-on-startup:true}")
+    private boolean createOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesInBackground() {
+        if (createOnStartup) {
+            Thread.ofVirtual().name("mongo-index-initializer").start(this::createIndexes);
+        }
+    }
+
+    void createIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            try {
+                IndexOperations indexOperations = mongoTemplate.indexOps(document);
+                indexResolver.resolveIndexFor(document).forEach(indexOperations::ensureIndex);
+                log.info("✅Ensured indexes for {}", document.getSimpleName());
+            } catch (RuntimeException exception) {
+                log.error("❌Failed to create indexes for {}: {}", document.getSimpleName(), exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.aditya.youtube_clone.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+@Configuration
+public class MongoMetricsConfig {
+
+    // Declared here rather than scanned, web slice tests pick up interceptor components but have no MeterRegistry
+    @Bean
+    public MongoRoundTripCounter mongoRoundTripCounter(MeterRegistry meterRegistry) {
+        return new MongoRoundTripCounter(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoRoundTripListener(MongoRoundTripCounter mongoRoundTripCounter) {
+        return builder -> builder.addCommandListener(mongoRoundTripCounter);
+    }
+
+    // A MappedInterceptor bean is picked up by every handler mapping without touching WebMVCConfig
+    @Bean
+    public MappedInterceptor mongoRoundTripInterceptor(MongoRoundTripCounter mongoRoundTripCounter) {
+        return new MappedInterceptor(new String[]{"/api/**"}, mongoRoundTripCounter);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aditya.youtube_clone.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the Mongo commands each HTTP request sends and records them per endpoint as the
+ * {@code mongo.round.trips} summary, so an extra lookup sneaking into a hot path shows up in metrics.
+ */
+@RequiredArgsConstructor
+public class MongoRoundTripCounter implements CommandListener, AsyncHandlerInterceptor {
+
+    private static final String ROUND_TRIPS_ATTRIBUTE = MongoRoundTripCounter.class.getName() + ".roundTrips";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // The sync driver reports commands on the calling thread, which is the request thread for web traffic
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return; // scheduled flushes and other background work
+        }
+        AtomicInteger roundTrips = (AtomicInteger) requestAttributes.getAttribute(ROUND_TRIPS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (roundTrips == null) {
+            roundTrips = new AtomicInteger();
+            requestAttributes.setAttribute(ROUND_TRIPS_ATTRIBUTE, roundTrips, RequestAttributes.SCOPE_REQUEST);
+        }
+        roundTrips.incrementAndGet();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("mongo.round.trips")
+                .description("Mongo commands issued while handling one HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uriPattern == null ? "UNKNOWN" : uriPattern.toString())
+                .register(meterRegistry)
+                .record(getRoundTrips(request));
+    }
+
+    public static int getRoundTrips(HttpServletRequest request) {
+        AtomicInteger roundTrips = (AtomicInteger) request.getAttribute(ROUND_TRIPS_ATTRIBUTE);
+        return roundTrips == null ? 0 : roundTrips.get();
+    }
+}
@@ -0,0 +1,48 @@
+package com.aditya.youtube_clone.config;
+
+import io.awspring.cloud.autoconfigure.core.AwsClientBuilderConfigurer;
+import io.awspring.cloud.autoconfigure.s3.properties.S3Properties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+@Configuration
+public class S3Config {
+
+    @Value("${aws.s3.multipart.upload-threads:8}")
+    private int uploadThreads;
+    @Value("${aws.s3.async.max-concurrent-transfers:64}")
+    private int maxConcurrentTransfers;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    // Same credentials, region and endpoint as the auto-configured S3Client
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(AwsClientBuilderConfigurer awsClientBuilderConfigurer, S3Properties s3Properties) {
+        return awsClientBuilderConfigurer.configure(S3AsyncClient.builder(), s3Properties, null)
+                .serviceConfiguration(s3Properties.toS3Configuration())
+                .build();
+    }
+
+    // Feeds blocking request-body InputStreams into the async client.
+    // On virtual threads the transfer permits are the only bound, so there is no pool to size.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3UploadExecutor() {
+        if (virtualThreadsEnabled) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-upload-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(uploadThreads, new CustomizableThreadFactory("s3-upload-"));
+    }
+
+    // Caps S3 transfers in flight across all requests; callers are turned away with 503 once it is exhausted
+    @Bean
+    public Semaphore s3TransferPermits() {
+        return new Semaphore(maxConcurrentTransfers);
+    }
+}
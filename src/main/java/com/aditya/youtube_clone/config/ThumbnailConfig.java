@@ -0,0 +1,22 @@
+package com.aditya.youtube_clone.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ThumbnailConfig {
+
+    @Value("${video.thumbnails.worker-threads:4}")
+    private int workerThreads;
+
+    // Decoding and resizing are CPU bound, so these stay platform threads even when virtual threads are enabled
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService thumbnailExecutor() {
+        return Executors.newFixedThreadPool(workerThreads, new CustomizableThreadFactory("thumbnail-"));
+    }
+}
@@ -0,0 +1,33 @@
+package com.aditya.youtube_clone.config;
+
+import com.aditya.youtube_clone.dto.UserProfileDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class UserCacheConfig {
+
+    @Value("${user.cache.maximum-size:10000}")
+    private long maximumSize;
+    @Value("${user.cache.ttl:10m}")
+    private Duration ttl;
+
+    // JWT sub -> user id and profile, so authenticated calls skip the findBySub round trip.
+    // Hit/miss/eviction counts are published as cache.gets, cache.evictions etc. tagged cache=userProfiles.
+    @Bean
+    public Cache<String, UserProfileDTO> userProfileCache(MeterRegistry meterRegistry) {
+        Cache<String, UserProfileDTO> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "userProfiles");
+    }
+}
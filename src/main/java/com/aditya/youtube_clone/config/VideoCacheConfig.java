@@ -0,0 +1,58 @@
+package com.aditya.youtube_clone.config;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.service.InProcessSharedVideoCache;
+import com.aditya.youtube_clone.service.SharedVideoCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class VideoCacheConfig {
+
+    @Value("${video.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+    @Value("${video.cache.local.ttl:30s}")
+    private Duration localTtl;
+    @Value("${video.cache.shared.maximum-size:100000}")
+    private long sharedMaximumSize;
+    @Value("${video.cache.shared.ttl:10m}")
+    private Duration sharedTtl;
+
+    // Short TTL: it bounds how long another instance can serve metadata this one has already evicted
+    @Bean
+    public AsyncCache<String, VideoDTO> videoDetailsLocalCache(MeterRegistry meterRegistry) {
+        AsyncCache<String, VideoDTO> cache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "videoDetails");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "video.cache.shared.enabled", havingValue = "true")
+    public SharedVideoCache sharedVideoCache(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        Cache<String, byte[]> store = Caffeine.newBuilder()
+                .maximumSize(sharedMaximumSize)
+                .expireAfterWrite(sharedTtl)
+                .recordStats()
+                .build();
+        // Outlives any load in flight, an expired generation only makes a racing put look stale
+        Cache<String, Long> generations = Caffeine.newBuilder()
+                .maximumSize(sharedMaximumSize)
+                .expireAfterWrite(sharedTtl)
+                .build();
+        return new InProcessSharedVideoCache(CaffeineCacheMetrics.monitor(meterRegistry, store, "videoDetailsShared"),
+                generations, objectMapper);
+    }
+}
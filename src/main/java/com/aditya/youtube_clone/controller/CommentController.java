@@ -0,0 +1,49 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.dto.CommentDTO;
+import com.aditya.youtube_clone.dto.CommentPageDTO;
+import com.aditya.youtube_clone.service.CommentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/videos/{videoId}/comments")
+@RequiredArgsConstructor
+public class CommentController {
+
+    private final CommentService commentService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<CommentDTO> addComment(@PathVariable String videoId, @RequestBody CommentDTO commentDTO) {
+        log.info("🚀Adding comment to video with ID: {} from controller", videoId);
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON)
+                    .body(commentService.addComment(videoId, commentDTO.getText()));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error adding comment: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CommentPageDTO> getComments(@PathVariable String videoId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        log.info("🚀Fetching comments for video with ID: {} from controller", videoId);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(commentService.getComments(videoId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching comments: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
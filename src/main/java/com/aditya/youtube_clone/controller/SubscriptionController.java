@@ -0,0 +1,55 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.service.SubscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/subscriptions")
+@RequiredArgsConstructor
+public class SubscriptionController {
+
+    private final SubscriptionService subscriptionService;
+
+    @PostMapping("/{creatorId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public ResponseEntity<Void> subscribe(@PathVariable String creatorId) {
+        log.info("🚀Subscribing to user {} from controller", creatorId);
+        try {
+            subscriptionService.subscribe(creatorId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error subscribing: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{creatorId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public ResponseEntity<Void> unsubscribe(@PathVariable String creatorId) {
+        log.info("🚀Unsubscribing from user {} from controller", creatorId);
+        subscriptionService.unsubscribe(creatorId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<String>> getSubscriptions(@RequestParam(required = false) String after,
+                                                         @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(subscriptionService.getSubscriptions(after, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching subscriptions: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
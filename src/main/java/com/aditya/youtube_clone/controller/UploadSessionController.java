@@ -0,0 +1,124 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.dto.CreateUploadSessionDTO;
+import com.aditya.youtube_clone.dto.DirectUploadDTO;
+import com.aditya.youtube_clone.dto.UploadSessionDTO;
+import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/videos/uploads")
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<UploadSessionDTO> createUploadSession(@RequestBody CreateUploadSessionDTO createUploadSessionDTO) {
+        log.info("🚀Creating upload session from controller");
+        UploadSessionDTO uploadSessionDTO = uploadSessionService.createSession(createUploadSessionDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body(uploadSessionDTO);
+    }
+
+    @PostMapping("/direct")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<DirectUploadDTO> createDirectUpload(@RequestBody CreateUploadSessionDTO createUploadSessionDTO) {
+        log.info("🚀Creating direct upload from controller");
+        DirectUploadDTO directUploadDTO = uploadSessionService.createDirectSession(createUploadSessionDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body(directUploadDTO);
+    }
+
+    @GetMapping("/{sessionId}/chunks/url")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<String> getChunkUploadUrl(@PathVariable String sessionId, @RequestParam("offset") long offset) {
+        log.info("🚀Signing chunk URL at offset {} for upload session {} from controller", offset, sessionId);
+        try {
+            JSONObject responseObj = new JSONObject();
+            responseObj.put("uploadUrl", uploadSessionService.presignChunk(sessionId, offset));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseObj.toString());
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error signing chunk URL: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (JSONException e) {
+            log.error("❌Error creating JSON response for chunk URL: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating response JSON: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<UploadSessionDTO> getUploadSession(@PathVariable String sessionId) {
+        log.info("🚀Fetching upload session with ID: {} from controller", sessionId);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(uploadSessionService.getSessionDetails(sessionId));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching upload session: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    @PutMapping("/{sessionId}/chunks")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<UploadSessionDTO> uploadChunk(@PathVariable String sessionId,
+                                                        @RequestParam("offset") long offset,
+                                                        HttpServletRequest request) {
+        log.info("🚀Uploading chunk at offset {} for upload session {} from controller", offset, sessionId);
+        try {
+            UploadSessionDTO uploadSessionDTO = uploadSessionService.uploadChunk(sessionId, offset,
+                    request.getContentLengthLong(), request.getInputStream());
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(uploadSessionDTO);
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error uploading chunk: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IOException e) {
+            log.error("❌Error reading chunk upload stream: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error reading request body: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<VideoUploadResponseDTO> completeUploadSession(@PathVariable String sessionId) {
+        log.info("🚀Completing upload session with ID: {} from controller", sessionId);
+        try {
+            VideoUploadResponseDTO uploadResponse = uploadSessionService.completeSession(sessionId);
+            return ResponseEntity.created(new URI(uploadResponse.getVideoUrl())).body(uploadResponse);
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error completing upload session: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (URISyntaxException e) {
+            log.error("❌Error creating URI for video upload: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating URI: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<Void> abortUploadSession(@PathVariable String sessionId) {
+        log.info("🚀Aborting upload session with ID: {} from controller", sessionId);
+        try {
+            uploadSessionService.abortSession(sessionId);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error aborting upload session: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package com.aditya.youtube_clone.controller;
 
+import com.aditya.youtube_clone.dto.ProcessingStatusDTO;
+import com.aditya.youtube_clone.dto.UniqueViewersDTO;
 import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.dto.VideoPageDTO;
 import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.VideoStatus;
 import com.aditya.youtube_clone.service.VideoService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -25,17 +39,45 @@ public class VideoController {
 
     private final VideoService videoService;
 
+    @Value("${video.http.cache.max-age:30s}")
+    private Duration maxAge;
+    @Value("${video.http.cache.shared-max-age:60s}")
+    private Duration sharedMaxAge;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED) // Appropriate response status for POST requests
     // (because generally it is used to create a new instance of entity)
-    public ResponseEntity<VideoUploadResponseDTO> uploadVideo(@RequestParam("file") MultipartFile file) {
+    public CompletableFuture<ResponseEntity<VideoUploadResponseDTO>> uploadVideo(@RequestParam("file") MultipartFile file) {
         log.info("🚀Uploading video file from controller");
-        VideoUploadResponseDTO uploadResponse = videoService.uploadVideo(file);
-        String videoUrl = uploadResponse.getVideoUrl();
+        // The servlet thread is released while the S3 transfer is in flight
+        return videoService.uploadVideo(file).thenApply(uploadResponse -> {
+            String videoUrl = uploadResponse.getVideoUrl();
+            try {
+                return ResponseEntity.created(new URI(videoUrl)).body(
+                        uploadResponse
+                );
+            } catch (URISyntaxException e) {
+                log.error("❌Error creating URI for video upload: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating URI: " + e.getMessage());
+            }
+        });
+    }
+
+    @PostMapping("/stream")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<VideoUploadResponseDTO> uploadVideoStream(HttpServletRequest request,
+                                                                    @RequestHeader("X-File-Name") String fileName) {
+        log.info("🚀Streaming video file from controller");
+        VideoUploadResponseDTO uploadResponse;
+        try {
+            uploadResponse = videoService.uploadVideoStream(request.getInputStream(),
+                    request.getContentType(), fileName);
+        } catch (IOException e) {
+            log.error("❌Error reading video upload stream: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error reading request body: " + e.getMessage());
+        }
         try {
-            return ResponseEntity.created(new URI(videoUrl)).body(
-                    uploadResponse
-            );
+            return ResponseEntity.created(new URI(uploadResponse.getVideoUrl())).body(uploadResponse);
         } catch (URISyntaxException e) {
             log.error("❌Error creating URI for video upload: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating URI: " + e.getMessage());
@@ -44,23 +86,24 @@ public class VideoController {
 
     @PostMapping("/thumbnail")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<String> uploadThumbnail(@RequestParam("file") MultipartFile file,
-                                                      @RequestParam("videoId") String videoId) {
+    public CompletableFuture<ResponseEntity<String>> uploadThumbnail(@RequestParam("file") MultipartFile file,
+                                                                     @RequestParam("videoId") String videoId) {
         log.info("🚀Uploading thumbnail file from controller");
-        String thumbnailUrl = videoService.uploadThumbnail(file, videoId);
-        try {
-            JSONObject responseObj = new JSONObject();
-            responseObj.put("thumbnailUrl", thumbnailUrl);
-            return ResponseEntity.created(new URI(thumbnailUrl)).
-                    contentType(MediaType.APPLICATION_JSON).
-                    body(responseObj.toString());
-        } catch (JSONException e) {
-            log.error("❌Error creating JSON response for thumbnail upload: {}", e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating response JSON: " + e.getMessage());
-        } catch (URISyntaxException e) {
-            log.error("❌Error creating URI for thumbnail upload: {}", e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating URI: " + e.getMessage());
-        }
+        return videoService.uploadThumbnail(file, videoId).thenApply(thumbnailUrl -> {
+            try {
+                JSONObject responseObj = new JSONObject();
+                responseObj.put("thumbnailUrl", thumbnailUrl);
+                return ResponseEntity.created(new URI(thumbnailUrl)).
+                        contentType(MediaType.APPLICATION_JSON).
+                        body(responseObj.toString());
+            } catch (JSONException e) {
+                log.error("❌Error creating JSON response for thumbnail upload: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating response JSON: " + e.getMessage());
+            } catch (URISyntaxException e) {
+                log.error("❌Error creating URI for thumbnail upload: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating URI: " + e.getMessage());
+            }
+        });
     }
 
     @PutMapping
@@ -100,6 +143,8 @@ public class VideoController {
         try {
             videoService.deleteVideoById(videoId);
             return ResponseEntity.ok().build();
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (IllegalArgumentException e) {
             log.error("❌Error deleting video: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
@@ -109,13 +154,106 @@ public class VideoController {
         }
     }
 
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<VideoPageDTO> listVideos(@RequestParam(required = false) String userId,
+                                                   @RequestParam(required = false) String tag,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        log.info("🚀Listing videos from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.listVideos(userId, tag, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error listing videos: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<VideoDTO>> searchVideos(@RequestParam("q") String text,
+                                                       @RequestParam(required = false) VideoStatus status,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        log.info("🚀Searching videos from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.searchVideos(text, status, page, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error searching videos: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/autocomplete")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<String>> autocompleteTitles(@RequestParam String prefix,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.autocompleteTitles(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error autocompleting video titles: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<VideoDTO>> getTrendingVideos(@RequestParam(defaultValue = "20") int limit) {
+        log.info("🚀Fetching trending videos from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.getTrendingVideos(limit));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching trending videos: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/feed")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<VideoPageDTO> getHomeFeed(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        log.info("🚀Fetching home feed from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.getHomeFeed(cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching home feed: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/liked")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<VideoDTO>> getLikedVideos(@RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        log.info("🚀Fetching liked videos page {} from controller", page);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.getLikedVideos(page, size));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching liked videos: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            log.error("❌Unexpected error fetching liked videos: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{videoId}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<VideoDTO> getVideoById(@PathVariable String videoId) {
         log.info("🚀Fetching video with ID: {} from controller", videoId);
         try {
             VideoDTO videoDTO = videoService.getVideoDetails(videoId);
-            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(videoDTO);
+            // With an ETag on the entity Spring answers a matching If-None-Match with a bodyless 304
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .eTag(videoDTO.getId() + "-" + videoDTO.getVersion())
+                    .cacheControl(cacheControlFor(videoDTO.getVideoStatus()))
+                    .body(videoDTO);
         } catch (IllegalArgumentException e) {
             log.error("❌Error fetching video: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
@@ -125,6 +263,47 @@ public class VideoController {
         }
     }
 
+    @PostMapping("/{videoId}/views")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ResponseEntity<Void> recordView(@PathVariable String videoId, Authentication authentication) {
+        try {
+            videoService.recordView(videoId, authentication.getName());
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error recording view: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{videoId}/unique-viewers")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<UniqueViewersDTO> getUniqueViewers(
+            @PathVariable String videoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("🚀Fetching unique viewers of video {} from controller", videoId);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.getUniqueViewers(videoId, from, to));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching unique viewers: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{videoId}/processing")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<ProcessingStatusDTO> getProcessingStatus(@PathVariable String videoId) {
+        log.info("🚀Fetching processing status of video {} from controller", videoId);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(videoService.getProcessingStatus(videoId));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching processing status: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
     @PostMapping("/{videoId}/like")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<VideoDTO> likeVideo(@PathVariable String videoId) {
@@ -140,4 +319,29 @@ public class VideoController {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + e.getMessage());
         }
     }
+
+    @PostMapping("/{videoId}/dislike")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<VideoDTO> dislikeVideo(@PathVariable String videoId) {
+        log.info("🚀Disliking video with ID: {} from controller", videoId);
+        try {
+            VideoDTO videoDTO = videoService.dislikeVideo(videoId);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(videoDTO);
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error disliking video: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (Exception e) {
+            log.error("❌Unexpected error disliking video: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    private CacheControl cacheControlFor(VideoStatus videoStatus) {
+        if (videoStatus == VideoStatus.PUBLIC) {
+            // CDNs may serve it for the shared max age, so a visibility change can take that long to show
+            return CacheControl.maxAge(maxAge).sMaxAge(sharedMaxAge).cachePublic();
+        }
+        // Unlisted videos never land in a shared cache, private ones are not stored at all
+        return videoStatus == VideoStatus.UNLISTED ? CacheControl.noCache().cachePrivate() : CacheControl.noStore();
+    }
 }
@@ -0,0 +1,70 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.dto.WatchEventDTO;
+import com.aditya.youtube_clone.service.WatchHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/history")
+@RequiredArgsConstructor
+public class WatchHistoryController {
+
+    private final WatchHistoryService watchHistoryService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public ResponseEntity<Void> recordWatchEvent(@RequestBody WatchEventDTO watchEventDTO) {
+        try {
+            watchHistoryService.recordWatchEvent(watchEventDTO.getVideoId(), watchEventDTO.getPositionSeconds(),
+                    watchEventDTO.getDurationSeconds());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error recording watch event: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<WatchEventDTO>> getRecentHistory(@RequestParam(defaultValue = "20") int limit) {
+        log.info("🚀Fetching watch history from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(watchHistoryService.getRecentHistory(limit));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching watch history: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/continue-watching")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<WatchEventDTO>> getContinueWatching(@RequestParam(defaultValue = "10") int limit) {
+        log.info("🚀Fetching continue watching from controller");
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(watchHistoryService.getContinueWatching(limit));
+        } catch (IllegalArgumentException e) {
+            log.error("❌Error fetching continue watching: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{videoId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<WatchEventDTO> getResumePosition(@PathVariable String videoId) {
+        return watchHistoryService.getResumePosition(videoId)
+                .map(position -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(position))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No watch history for video ID: " + videoId));
+    }
+}
@@ -0,0 +1,20 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentDTO {
+    private String id;
+    private String videoId;
+    private String text;
+    private String authorId;
+    private int likeCount;
+    private int disLikeCount;
+    private Instant createdAt;
+}
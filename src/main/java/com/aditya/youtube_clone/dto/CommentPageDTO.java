@@ -0,0 +1,15 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentPageDTO {
+    private List<CommentDTO> comments;
+    private String nextCursor; // null on the last page
+}
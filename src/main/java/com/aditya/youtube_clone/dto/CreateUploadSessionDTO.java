@@ -0,0 +1,14 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateUploadSessionDTO {
+    private String fileName;
+    private String contentType;
+    private long totalSize;
+}
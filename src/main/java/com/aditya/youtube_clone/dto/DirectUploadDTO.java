@@ -0,0 +1,19 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DirectUploadDTO {
+    private String sessionId;
+    private long totalSize;
+    private long chunkSize;
+    private List<String> uploadUrls; // one pre-signed PUT URL per chunk, in offset order
+    private Instant expiresAt;
+}
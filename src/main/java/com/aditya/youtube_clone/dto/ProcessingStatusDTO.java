@@ -0,0 +1,16 @@
+package com.aditya.youtube_clone.dto;
+
+import com.aditya.youtube_clone.model.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessingStatusDTO {
+    private String videoId;
+    private JobStatus status;
+    private int progress; // percent
+    private int attempts;
+}
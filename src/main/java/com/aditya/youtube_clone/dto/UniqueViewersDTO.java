@@ -0,0 +1,17 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UniqueViewersDTO {
+    private String videoId;
+    private long uniqueViewers; // across the whole range, a viewer seen on several days counts once
+    private Map<LocalDate, Long> dailyUniqueViewers;
+}
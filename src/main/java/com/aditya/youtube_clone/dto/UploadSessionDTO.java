@@ -0,0 +1,19 @@
+package com.aditya.youtube_clone.dto;
+
+import com.aditya.youtube_clone.model.UploadSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadSessionDTO {
+    private String sessionId;
+    private long totalSize;
+    private long chunkSize;
+    private UploadSessionStatus status;
+    private List<Long> receivedOffsets;
+}
@@ -0,0 +1,17 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserProfileDTO {
+    private String id;
+    private String sub;
+    private String firstName;
+    private String lastName;
+    private String fullName;
+    private String emailAddress;
+}
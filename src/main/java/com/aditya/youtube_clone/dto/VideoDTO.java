@@ -1,13 +1,13 @@
 package com.aditya.youtube_clone.dto;
 
-import com.aditya.youtube_clone.model.Comment;
+import com.aditya.youtube_clone.model.ProcessingStatus;
 import com.aditya.youtube_clone.model.VideoStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Data
@@ -21,6 +21,10 @@ public class VideoDTO {
     private String videoUrl;
     private VideoStatus videoStatus;
     private String thumbnailUrl;
+    private Map<String, String> thumbnailVariants;
     private int likes;
     private int dislikes;
+    private long version;
+    private String hlsUrl;
+    private ProcessingStatus processingStatus;
 }
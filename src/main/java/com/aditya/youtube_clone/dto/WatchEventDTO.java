@@ -0,0 +1,17 @@
+package com.aditya.youtube_clone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WatchEventDTO {
+    private String videoId;
+    private long positionSeconds;
+    private Long durationSeconds;
+    private Instant watchedAt; // set by the server, ignored on requests
+}
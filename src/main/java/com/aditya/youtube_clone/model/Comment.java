@@ -4,9 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Document(value = "Comment")
+// Newest-first pages per video, _id breaks ties between comments posted in the same millisecond
+@CompoundIndex(name = "video_created", def = "{'videoId': 1, 'createdAt': -1, '_id': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,9 +19,11 @@ public class Comment {
 
     @Id
     private String id;
+    private String videoId;
     private String text;
     private String authorId;
     private Integer likeCount;
     private Integer disLikeCount;
+    private Instant createdAt;
 
 }
@@ -0,0 +1,28 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(value = "FeedEntry")
+// A feed page is one range scan, newest video first; unique so a retried fan-out cannot repeat a video
+@CompoundIndex(name = "user_video_unique", def = "{'userId': 1, 'videoId': -1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedEntry {
+
+    @Id
+    private String id;
+    private String userId;
+    private String videoId;
+    private String creatorId;
+    @Indexed(name = "created_ttl", expireAfter = "30d")
+    private Instant createdAt;
+}
@@ -0,0 +1,47 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One unit of background work. Workers claim a queued job of their type, or one whose lease has run out, with
+ * a findAndModify that hands them a fresh lease token; every later write is fenced on that token. Jobs that
+ * run out of attempts stay behind as DEAD for inspection.
+ */
+@Document(value = "Job")
+// Claims scan due queued jobs and running jobs with an expired lease, one type at a time
+@CompoundIndex(name = "type_status_run_at", def = "{'type': 1, 'status': 1, 'runAt': 1}")
+@CompoundIndex(name = "type_status_lease_expires", def = "{'type': 1, 'status': 1, 'leaseExpiresAt': 1}")
+// The key makes enqueueing idempotent, the same work is never queued twice
+@CompoundIndex(name = "type_key_unique", def = "{'type': 1, 'key': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Job {
+
+    @Id
+    private String id;
+    private String type;
+    private String key;
+    private Map<String, String> payload;
+    private JobStatus status;
+    private int attempts;
+    private Instant runAt;
+    private String leaseToken;
+    private Instant leaseExpiresAt;
+    private int progress; // percent, written with the lease heartbeat
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+    // Set on succeeded jobs nobody reads back
+    @Indexed(name = "expire_at_ttl", expireAfterSeconds = 0)
+    private Instant expireAt;
+}
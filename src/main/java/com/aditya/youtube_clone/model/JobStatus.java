@@ -0,0 +1,5 @@
+package com.aditya.youtube_clone.model;
+
+public enum JobStatus {
+    QUEUED, RUNNING, SUCCEEDED, DEAD
+}
@@ -0,0 +1,30 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(value = "Reaction")
+// One reaction per user and video, looked up by the unique index instead of scanning an embedded set
+@CompoundIndex(name = "user_video_unique", def = "{'userId': 1, 'videoId': 1}", unique = true)
+// Serves the newest-first "my liked videos" pages
+@CompoundIndex(name = "user_type_created", def = "{'userId': 1, 'type': 1, 'createdAt': -1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reaction {
+
+    @Id
+    private String id;
+    private String userId;
+    private String videoId;
+    private VideoReaction type;
+    private Instant createdAt;
+    // Set once, on the user's first like of the video, and kept when the like is toggled off
+    private Instant firstLikedAt;
+}
@@ -0,0 +1,29 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(value = "Subscription")
+@CompoundIndex(name = "subscriber_creator_unique", def = "{'subscriberId': 1, 'creatorId': 1}", unique = true)
+// Fan-out walks a creator's subscribers in subscriberId order
+@CompoundIndex(name = "creator_subscriber", def = "{'creatorId': 1, 'subscriberId': 1}")
+// Feed reads find the followed pull-mode creators from the index alone
+@CompoundIndex(name = "subscriber_pull_creator", def = "{'subscriberId': 1, 'pull': 1, 'creatorId': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Subscription {
+
+    @Id
+    private String id;
+    private String subscriberId;
+    private String creatorId;
+    private boolean pull; // the creator's uploads are read at feed time instead of pushed into the feed
+    private Instant createdAt;
+}
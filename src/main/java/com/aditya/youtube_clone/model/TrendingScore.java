@@ -0,0 +1,13 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingScore {
+    private String videoId;
+    private double score; // forward-decayed, relative to the snapshot's landmark
+}
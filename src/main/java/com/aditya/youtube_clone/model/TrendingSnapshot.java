@@ -0,0 +1,24 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Document(value = "TrendingSnapshot")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingSnapshot {
+
+    @Id
+    private String id;
+    private long landmarkMillis;
+    private List<TrendingScore> scores = new ArrayList<>();
+    private Instant savedAt;
+}
@@ -0,0 +1,31 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One node's HyperLogLog sketch of the viewers of a video on one UTC day. Every node writes its own document,
+ * so nodes never overwrite each other and a read merges all sketches for the video and day range.
+ */
+@Document(value = "UniqueViewerSketch")
+@CompoundIndex(name = "video_day", def = "{'videoId': 1, 'day': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueViewerSketch {
+
+    @Id
+    private String id; // videoId:day:nodeId
+    private String videoId;
+    private String day; // ISO date, sorts and ranges like the date itself
+    private byte[] registers;
+    @Indexed(name = "updated_ttl", expireAfter = "400d")
+    private Instant updatedAt;
+}
@@ -0,0 +1,6 @@
+package com.aditya.youtube_clone.model;
+
+public enum UploadMode {
+    PROXIED, // chunks flow through the API
+    DIRECT // client uploads parts straight to S3 with pre-signed URLs
+}
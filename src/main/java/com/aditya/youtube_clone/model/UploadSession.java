@@ -0,0 +1,40 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+@Document(value = "UploadSession")
+@CompoundIndex(name = "status_expire", def = "{'status': 1, 'expireAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    private String id;
+    private String userId; // the uploader, the only one who may add chunks to, complete or abort the session
+    private String fileKey;
+    private String uploadId; // S3 multipart upload ID
+    private String fileName;
+    private String contentType;
+    private UploadMode uploadMode = UploadMode.PROXIED;
+    private long totalSize;
+    private long chunkSize;
+    private Map<String, String> parts = new HashMap<>(); // part number -> ETag, written with $set per chunk
+    private UploadSessionStatus status = UploadSessionStatus.IN_PROGRESS;
+    private String videoId;
+    private Instant createdAt;
+    private Instant expireAt; // still in progress past this, the session is aborted along with its multipart upload
+
+    public int getTotalParts() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+}
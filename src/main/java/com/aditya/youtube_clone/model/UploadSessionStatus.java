@@ -0,0 +1,5 @@
+package com.aditya.youtube_clone.model;
+
+public enum UploadSessionStatus {
+    IN_PROGRESS, FINALIZING, COMPLETED, ABORTED
+}
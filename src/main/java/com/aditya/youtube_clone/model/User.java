@@ -6,10 +6,6 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
 @Document(value = "User")
 @Data
 @NoArgsConstructor
@@ -23,21 +19,5 @@ public class User {
     private String lastName;
     private String fullName;
     private String emailAddress;
-    private Set<String> subscribedToUsers;
-    private Set<String> subscribers;
-    private List<String> videoHistory;
-    private Set<String> likedVideos = ConcurrentHashMap.newKeySet(); // thread-safe implementation
-    private Set<String> disLikedVideos = ConcurrentHashMap.newKeySet(); // thread-safe implementation
-
-    public void addToLikedVideos(String videoId) {
-        likedVideos.add(videoId);
-    }
-
-    public void removeFromLikedVideos(String videoId) {
-        likedVideos.remove(videoId);
-    }
-
-    public void removeFromDisLikedVideos(String videoId) {
-        disLikedVideos.remove(videoId);
-    }
+    private long subscriberCount; // only changed with $inc by SubscriptionService
 }
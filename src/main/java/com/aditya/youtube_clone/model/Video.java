@@ -4,15 +4,22 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Document(value = "Video")
+// Keyset-paginated listings, newest first by ObjectId: the public feed, a channel's videos and a tag's videos
+@CompoundIndex(name = "status_id", def = "{'videoStatus': 1, '_id': -1}")
+@CompoundIndex(name = "user_status_id", def = "{'userId': 1, 'videoStatus': 1, '_id': -1}")
+@CompoundIndex(name = "tags_status_id", def = "{'tags': 1, 'videoStatus': 1, '_id': -1}")
+// Autocomplete: an anchored prefix on the search terms is a range scan within the status
+@CompoundIndex(name = "status_search_terms", def = "{'videoStatus': 1, 'searchTerms': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,27 +27,27 @@ public class Video {
 
     @Id
     private String id;
+    // Weighted text index for search: a title match outranks a tag match, which outranks the description
+    @TextIndexed(weight = 3)
     private String title;
+    @TextIndexed
     private String description;
     private String userId;
     private AtomicInteger likes = new AtomicInteger(0);
     private AtomicInteger disLikes = new AtomicInteger(0);
+    @TextIndexed(weight = 2)
     private Set<String> tags = new HashSet<>();
+    // Lowercased words of the title and tags, kept in step by editVideo
+    private Set<String> searchTerms = new HashSet<>();
     private String videoUrl;
+    // Null for videos uploaded before transcoding, those only have the original file
+    private ProcessingStatus processingStatus;
+    private String hlsUrl; // master playlist, set once transcoding succeeds
     private VideoStatus videoStatus = VideoStatus.PUBLIC; // or whatever default status you want
     private Integer viewCount = 0;
     private String thumbnailUrl;
-    private List<Comment> comments = new ArrayList<>();
-
-    public void incrementLikes() {
-        likes.getAndIncrement();
-    }
-
-    public void decrementLikes() {
-        likes.getAndDecrement();
-    }
-
-    public void decrementDisLikes() {
-        disLikes.getAndDecrement();
-    }
+    // Resized JPEGs keyed by width in pixels; thumbnailUrl is the widest of them
+    private Map<String, String> thumbnailVariants;
+    // Bumped on every change to the video's details, the detail endpoint derives its ETag from it
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.aditya.youtube_clone.model;
+
+public enum VideoReaction {
+    LIKE, DISLIKE, NONE
+}
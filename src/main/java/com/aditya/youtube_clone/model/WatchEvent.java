@@ -0,0 +1,16 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WatchEvent {
+    private String videoId;
+    private long positionSeconds;
+    private Instant watchedAt;
+}
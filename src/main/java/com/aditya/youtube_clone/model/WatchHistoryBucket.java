@@ -0,0 +1,32 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One user's watch events for one UTC day, oldest first, one per video started that day. Events are only ever
+ * pushed, the push keeps the newest ones when a day goes over the cap, and whole days expire through the TTL index.
+ */
+@Document(value = "WatchHistoryBucket")
+@CompoundIndex(name = "user_bucket_unique", def = "{'userId': 1, 'bucketStart': -1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WatchHistoryBucket {
+
+    @Id
+    private String id;
+    private String userId;
+    @Indexed(name = "bucket_ttl", expireAfter = "90d")
+    private Instant bucketStart;
+    private List<WatchEvent> events = new ArrayList<>();
+}
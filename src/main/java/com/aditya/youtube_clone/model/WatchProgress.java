@@ -0,0 +1,34 @@
+package com.aditya.youtube_clone.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The latest resume position of a user in a video, overwritten on every watch event.
+ */
+@Document(value = "WatchProgress")
+@CompoundIndex(name = "user_video_unique", def = "{'userId': 1, 'videoId': 1}", unique = true)
+// Continue watching reads the unfinished videos newest first
+@CompoundIndex(name = "user_completed_updated", def = "{'userId': 1, 'completed': 1, 'updatedAt': -1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WatchProgress {
+
+    @Id
+    private String id;
+    private String userId;
+    private String videoId;
+    private long positionSeconds;
+    private Long durationSeconds; // null when the player did not report it
+    private boolean completed;
+    @Indexed(name = "updated_ttl", expireAfter = "90d")
+    private Instant updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.model.Reaction;
+import com.aditya.youtube_clone.model.VideoReaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ReactionRepository extends MongoRepository<Reaction, String> {
+    Slice<Reaction> findByUserIdAndTypeOrderByCreatedAtDesc(String userId, VideoReaction type, Pageable pageable);
+}
@@ -0,0 +1,7 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+}
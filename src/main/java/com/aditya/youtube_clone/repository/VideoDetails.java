@@ -0,0 +1,34 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.model.ProcessingStatus;
+import com.aditya.youtube_clone.model.VideoStatus;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Closed projection for the video detail page, only these fields are requested from Mongo.
+ */
+public interface VideoDetails {
+    String getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    Set<String> getTags();
+
+    VideoStatus getVideoStatus();
+
+    String getVideoUrl();
+
+    String getThumbnailUrl();
+
+    Map<String, String> getThumbnailVariants();
+
+    long getVersion();
+
+    String getHlsUrl();
+
+    ProcessingStatus getProcessingStatus();
+}
@@ -0,0 +1,12 @@
+package com.aditya.youtube_clone.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detail fields plus the stored counters, the shape returned after a like or dislike.
+ */
+public interface VideoReactionView extends VideoDetails {
+    AtomicInteger getLikes();
+
+    AtomicInteger getDisLikes();
+}
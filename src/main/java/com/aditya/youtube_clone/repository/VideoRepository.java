@@ -3,5 +3,15 @@ package com.aditya.youtube_clone.repository;
 import com.aditya.youtube_clone.model.Video;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface VideoRepository extends MongoRepository<Video, String> {
+    // Interface projections: Spring Data restricts the query to the getters of the returned type
+    Optional<VideoDetails> findDetailsById(String id);
+
+    Optional<VideoReactionView> findReactionViewById(String id);
+
+    List<VideoSummary> findSummariesByIdIn(Collection<String> ids);
 }
@@ -0,0 +1,22 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.model.VideoStatus;
+
+import java.util.Map;
+
+/**
+ * Card shape for video lists, leaves out the description and tags.
+ */
+public interface VideoSummary {
+    String getId();
+
+    String getTitle();
+
+    VideoStatus getVideoStatus();
+
+    String getVideoUrl();
+
+    String getThumbnailUrl();
+
+    Map<String, String> getThumbnailVariants();
+}
@@ -0,0 +1,71 @@
+package com.aditya.youtube_clone.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free Bloom filter over strings, sized from the expected number of keys and the acceptable
+ * false positive rate. A false positive makes a new key look seen; keys that were added are never missed.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        words = new AtomicLongArray((int) Math.max(1, Math.ceil(optimalBits / Long.SIZE)));
+        bitCount = (long) words.length() * Long.SIZE;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds the key and tells whether it was new; false means it was (probably) added before.
+     */
+    boolean put(String key) {
+        long hash = hash64(key);
+        boolean added = false;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, bitMask) -> word | bitMask);
+            added |= (previous & mask) == 0;
+        }
+        return added;
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash64(key);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    // Kirsch-Mitzenmacher: the i-th hash is h1 + i * h2, both halves of one 64-bit hash
+    private long bitIndex(long hash, int i) {
+        return Math.floorMod((int) hash + (long) i * (int) (hash >>> 32), bitCount);
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the MurmurHash3 fmix64 avalanche
+    static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
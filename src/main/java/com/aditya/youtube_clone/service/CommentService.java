@@ -0,0 +1,112 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.CommentDTO;
+import com.aditya.youtube_clone.dto.CommentPageDTO;
+import com.aditya.youtube_clone.model.Comment;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.repository.CommentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_COMMENT_LENGTH = 10_000;
+
+    private final CommentRepository commentRepository;
+    private final MongoTemplate mongoTemplate;
+    private final UserService userService;
+
+    public CommentDTO addComment(String videoId, String text) {
+        if (!StringUtils.hasText(text) || text.length() > MAX_COMMENT_LENGTH) {
+            throw new IllegalArgumentException("Comment text must be between 1 and " + MAX_COMMENT_LENGTH + " characters");
+        }
+        if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(videoId)), Video.class)) {
+            throw new IllegalArgumentException("Cannot find video by ID: " + videoId);
+        }
+        Comment comment = new Comment();
+        comment.setVideoId(videoId);
+        comment.setText(text);
+        comment.setAuthorId(userService.getCurrentUserId());
+        comment.setLikeCount(0);
+        comment.setDisLikeCount(0);
+        // Mongo keeps millisecond dates, truncating here keeps the cursor equal to what is stored
+        comment.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        Comment savedComment = commentRepository.save(comment);
+        log.info("✅Comment added to video ID: {}", videoId);
+        return mapToCommentDTO(savedComment);
+    }
+
+    /**
+     * Newest-first page of a video's comments. The cursor is the (createdAt, id) of the last comment
+     * on the previous page, so every page is an index seek on (videoId, createdAt, _id) however deep it is.
+     */
+    public CommentPageDTO getComments(String videoId, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Criteria criteria = Criteria.where("videoId").is(videoId);
+        if (StringUtils.hasText(cursor)) {
+            CommentCursor after = decodeCursor(cursor);
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id()));
+        }
+        // One extra comment tells whether there is a next page without counting
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(size + 1);
+        List<Comment> comments = mongoTemplate.find(query, Comment.class);
+        boolean hasMore = comments.size() > size;
+        List<CommentDTO> page = comments.stream().limit(size).map(this::mapToCommentDTO).toList();
+        String nextCursor = hasMore ? encodeCursor(comments.get(size - 1)) : null;
+        return new CommentPageDTO(page, nextCursor);
+    }
+
+    public void deleteCommentsForVideo(String videoId) {
+        long deleted = mongoTemplate.remove(Query.query(Criteria.where("videoId").is(videoId)), Comment.class)
+                .getDeletedCount();
+        log.info("✅Deleted {} comments for video ID: {}", deleted, videoId);
+    }
+
+    private String encodeCursor(Comment comment) {
+        String cursor = comment.getCreatedAt().toEpochMilli() + ":" + comment.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CommentCursor decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new CommentCursor(Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator))),
+                    decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException("Invalid comment cursor: " + cursor);
+        }
+    }
+
+    private CommentDTO mapToCommentDTO(Comment comment) {
+        return new CommentDTO(comment.getId(), comment.getVideoId(), comment.getText(), comment.getAuthorId(),
+                comment.getLikeCount() == null ? 0 : comment.getLikeCount(),
+                comment.getDisLikeCount() == null ? 0 : comment.getDisLikeCount(),
+                comment.getCreatedAt());
+    }
+
+    private record CommentCursor(Instant createdAt, String id) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Holds the authenticated user's document for the lifetime of one HTTP request, so every service call
+ * in that request shares a single lookup instead of re-reading the user by sub.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+
+    private User user;
+
+    public User getOrLoad(Supplier<User> loader) {
+        if (user == null) {
+            user = loader.get();
+        }
+        return user;
+    }
+
+    public Optional<User> getIfLoaded() {
+        return Optional.ofNullable(user);
+    }
+}
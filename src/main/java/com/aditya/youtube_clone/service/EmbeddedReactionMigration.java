@@ -0,0 +1,89 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Reaction;
+import com.aditya.youtube_clone.model.User;
+import com.aditya.youtube_clone.model.VideoReaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One-off move of the old embedded User.likedVideos / disLikedVideos sets into the Reaction collection.
+ * Enabled with user.reactions.migrate-embedded=true and safe to rerun: a user's sets are only unset
+ * after their reactions are written, and reactions made since the deploy are never overwritten.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddedReactionMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${user.reactions.migrate-embedded:false}")
+    private boolean migrateEmbedded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!migrateEmbedded) {
+            return;
+        }
+        log.info("🚀Migrating embedded liked/disliked videos into the Reaction collection");
+        Query embeddedReactions = Query.query(new Criteria().orOperator(
+                Criteria.where("likedVideos").exists(true),
+                Criteria.where("disLikedVideos").exists(true)));
+        embeddedReactions.fields().include("likedVideos").include("disLikedVideos");
+        String userCollection = mongoTemplate.getCollectionName(User.class);
+        int migratedUsers = 0;
+        try (Stream<Document> users = mongoTemplate.stream(embeddedReactions, Document.class, userCollection)) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                migrateUser(user, userCollection);
+                migratedUsers++;
+            }
+        }
+        log.info("✅Migrated embedded reactions for {} users", migratedUsers);
+    }
+
+    private void migrateUser(Document user, String userCollection) {
+        String userId = user.get("_id").toString();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reaction.class);
+        Instant migratedAt = Instant.now();
+        int reactions = addReactions(bulkOperations, userId, user.getList("likedVideos", String.class),
+                VideoReaction.LIKE, migratedAt)
+                + addReactions(bulkOperations, userId, user.getList("disLikedVideos", String.class),
+                VideoReaction.DISLIKE, migratedAt);
+        if (reactions > 0) {
+            bulkOperations.execute();
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(user.get("_id"))),
+                new Update().unset("likedVideos").unset("disLikedVideos"), userCollection);
+    }
+
+    private int addReactions(BulkOperations bulkOperations, String userId, List<String> videoIds,
+                             VideoReaction type, Instant migratedAt) {
+        if (videoIds == null) {
+            return 0;
+        }
+        for (String videoId : videoIds) {
+            Update update = new Update().setOnInsert("type", type).setOnInsert("createdAt", migratedAt);
+            if (type == VideoReaction.LIKE) {
+                // The like was counted when it was made, so re-liking after a toggle-off must not count it again
+                update.setOnInsert("firstLikedAt", migratedAt);
+            }
+            bulkOperations.upsert(Query.query(Criteria.where("userId").is(userId).and("videoId").is(videoId)), update);
+        }
+        return videoIds.size();
+    }
+}
@@ -2,8 +2,10 @@ package com.aditya.youtube_clone.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface FileService {
-    public String uploadFile(MultipartFile file);
+    public CompletableFuture<String> uploadFile(MultipartFile file);
 
-    public void deleteFile(String fileUrl);
+    public CompletableFuture<Void> deleteFile(String fileUrl);
 }
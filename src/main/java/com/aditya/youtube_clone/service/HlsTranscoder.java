@@ -0,0 +1,280 @@
+package com.aditya.youtube_clone.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs a single ffmpeg pass that decodes the source once and encodes every rendition as an HLS stream with
+ * aligned keyframes, then uploads the segments, the variant playlists and last of all the master playlist
+ * under hls/{videoId}/{attempt}/ in the bucket. Every job attempt writes to its own prefix, so no key is ever
+ * overwritten and all of them can be served as immutable.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HlsTranscoder {
+
+    static final String MASTER_PLAYLIST = "master.m3u8";
+    // Tallest first; renditions taller than the source are skipped
+    static final List<Rendition> RENDITIONS = List.of(
+            new Rendition("1080p", 1080, 5000, 192),
+            new Rendition("720p", 720, 2800, 128),
+            new Rendition("480p", 480, 1400, 128),
+            new Rendition("360p", 360, 800, 96));
+    // Encoding is most of the work, the upload takes the last tenth of the progress bar
+    private static final int ENCODED_PERCENT = 90;
+
+    private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
+
+    @Value("${video.transcoding.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+    @Value("${video.transcoding.ffprobe-path:ffprobe}")
+    private String ffprobePath;
+    @Value("${video.transcoding.work-directory:${java.io.tmpdir}/transcoding}")
+    private Path workDirectory;
+    @Value("${video.transcoding.segment-seconds:6}")
+    private int segmentSeconds;
+    @Value("${video.transcoding.timeout:2h}")
+    private Duration timeout;
+    @Value("${video.transcoding.upload-concurrency:8}")
+    private int uploadConcurrency;
+
+    /**
+     * Returns the master playlist URL. Interrupting the calling thread kills ffmpeg and stops the upload.
+     */
+    public String transcode(String videoId, int attempt, String sourceUrl, IntConsumer progress)
+            throws IOException, InterruptedException {
+        Path jobDirectory = Files.createTempDirectory(Files.createDirectories(workDirectory), videoId + "-");
+        try {
+            Path source = jobDirectory.resolve("source");
+            s3Service.downloadFile(sourceUrl, source);
+            SourceInfo sourceInfo = probe(source);
+            Path output = Files.createDirectory(jobDirectory.resolve("hls"));
+            List<String> command = buildCommand(source, output, renditionsFor(sourceInfo.height()), sourceInfo.hasAudio());
+            runFfmpeg(command, jobDirectory.resolve("ffmpeg.log"), sourceInfo.durationSeconds(), progress);
+            progress.accept(ENCODED_PERCENT);
+            return upload(videoId, attempt, output);
+        } finally {
+            FileSystemUtils.deleteRecursively(jobDirectory);
+        }
+    }
+
+    private SourceInfo probe(Path source) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(ffprobePath, "-v", "error",
+                "-show_entries", "format=duration:stream=codec_type,height", "-of", "json", source.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            byte[] output = process.getInputStream().readAllBytes();
+            if (process.waitFor() != 0) {
+                throw new IOException("ffprobe exited with " + process.exitValue());
+            }
+            return parseProbe(objectMapper.readTree(output));
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    static SourceInfo parseProbe(JsonNode probe) throws IOException {
+        JsonNode video = null;
+        boolean hasAudio = false;
+        for (JsonNode stream : probe.path("streams")) {
+            String codecType = stream.path("codec_type").asText();
+            if ("video".equals(codecType) && video == null) {
+                video = stream;
+            } else if ("audio".equals(codecType)) {
+                hasAudio = true;
+            }
+        }
+        if (video == null) {
+            throw new IOException("The upload has no video stream");
+        }
+        return new SourceInfo(probe.path("format").path("duration").asDouble(), video.path("height").asInt(), hasAudio);
+    }
+
+    static List<Rendition> renditionsFor(int sourceHeight) {
+        List<Rendition> renditions = RENDITIONS.stream().filter(rendition -> rendition.height() <= sourceHeight).toList();
+        if (!renditions.isEmpty()) {
+            return renditions;
+        }
+        // Never upscale: a source below the smallest rendition is kept at its own, even, height
+        Rendition smallest = RENDITIONS.getLast();
+        int height = Math.max(2, sourceHeight & ~1);
+        return List.of(new Rendition(height + "p", height, smallest.videoKbps(), smallest.audioKbps()));
+    }
+
+    List<String> buildCommand(Path source, Path output, List<Rendition> renditions, boolean hasAudio) {
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-hide_banner", "-nostdin", "-y",
+                "-i", source.toString()));
+        StringBuilder filter = new StringBuilder("[0:v]split=" + renditions.size());
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append("[s").append(i).append("]");
+        }
+        List<String> streamMap = new ArrayList<>();
+        for (int i = 0; i < renditions.size(); i++) {
+            Rendition rendition = renditions.get(i);
+            filter.append(";[s").append(i).append("]scale=-2:").append(rendition.height()).append("[v").append(i).append("]");
+            command.addAll(List.of("-map", "[v" + i + "]",
+                    "-c:v:" + i, "libx264",
+                    "-b:v:" + i, rendition.videoKbps() + "k",
+                    "-maxrate:v:" + i, rendition.videoKbps() * 107 / 100 + "k",
+                    "-bufsize:v:" + i, rendition.videoKbps() * 3 / 2 + "k"));
+            if (hasAudio) {
+                command.addAll(List.of("-map", "0:a:0", "-c:a:" + i, "aac", "-b:a:" + i, rendition.audioKbps() + "k"));
+                streamMap.add("v:" + i + ",a:" + i + ",name:" + rendition.name());
+            } else {
+                streamMap.add("v:" + i + ",name:" + rendition.name());
+            }
+        }
+        command.addAll(List.of("-filter_complex", filter.toString(),
+                "-preset", "veryfast", "-pix_fmt", "yuv420p",
+                // Keyframes on every segment boundary, so players can switch renditions between any two segments
+                "-force_key_frames", "expr:gte(t,n_forced*" + segmentSeconds + ")",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_flags", "independent_segments",
+                "-hls_segment_filename", output.resolve("%v").resolve("segment_%05d.ts").toString(),
+                "-master_pl_name", MASTER_PLAYLIST,
+                "-var_stream_map", String.join(" ", streamMap),
+                "-progress", "pipe:1", "-nostats",
+                output.resolve("%v").resolve("playlist.m3u8").toString()));
+        return command;
+    }
+
+    private void runFfmpeg(List<String> command, Path logFile, double durationSeconds, IntConsumer progress)
+            throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectError(logFile.toFile()).start();
+        Thread progressReader = Thread.ofVirtual().name("ffmpeg-progress")
+                .start(() -> readProgress(process.getInputStream(), durationSeconds, progress));
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("ffmpeg did not finish within " + timeout);
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("ffmpeg exited with " + process.exitValue() + ": " + tail(logFile));
+            }
+        } finally {
+            // No-op once ffmpeg has exited; on a timeout or an interrupt it stops the encode
+            process.destroyForcibly();
+            progressReader.join(Duration.ofSeconds(5));
+        }
+    }
+
+    private void readProgress(InputStream progressStream, double durationSeconds, IntConsumer progress) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(progressStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int percent = progressPercent(line, durationSeconds);
+                if (percent >= 0) {
+                    progress.accept(percent);
+                }
+            }
+        } catch (IOException ioException) {
+            // The stream closes when ffmpeg is killed
+            log.debug("Stopped reading ffmpeg progress: {}", ioException.getMessage());
+        }
+    }
+
+    static int progressPercent(String line, double durationSeconds) {
+        // out_time_ms is in microseconds as well, older ffmpeg builds only print that one
+        if (durationSeconds <= 0 || !(line.startsWith("out_time_us=") || line.startsWith("out_time_ms="))) {
+            return -1;
+        }
+        try {
+            double encodedSeconds = Long.parseLong(line.substring(line.indexOf('=') + 1).trim()) / 1_000_000.0;
+            return (int) Math.min(ENCODED_PERCENT - 1, Math.max(0, encodedSeconds / durationSeconds * ENCODED_PERCENT));
+        } catch (NumberFormatException numberFormatException) {
+            return -1; // N/A before the first frame
+        }
+    }
+
+    private String upload(String videoId, int attempt, Path output) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(output)) {
+            // Segments, then variant playlists, then the master: a player never sees a playlist ahead of its media
+            files = walk.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingInt(HlsTranscoder::uploadOrder))
+                    .toList();
+        }
+        String prefix = outputPrefix(videoId, attempt);
+        List<CompletableFuture<String>> window = new ArrayList<>();
+        int previousOrder = 0;
+        for (Path file : files) {
+            if (window.size() == uploadConcurrency || uploadOrder(file) != previousOrder) {
+                awaitUploads(window);
+            }
+            previousOrder = uploadOrder(file);
+            String fileKey = prefix + output.relativize(file).toString().replace('\\', '/');
+            window.add(s3Service.uploadFile(file, fileKey, contentType(file)));
+        }
+        awaitUploads(window);
+        log.info("✅Uploaded {} HLS files for video ID: {}", files.size(), videoId);
+        return s3Service.getFileUrl(prefix + MASTER_PLAYLIST);
+    }
+
+    private static void awaitUploads(List<CompletableFuture<String>> uploads) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Upload stopped");
+        }
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        uploads.clear();
+    }
+
+    private static int uploadOrder(Path file) {
+        String fileName = file.getFileName().toString();
+        if (fileName.equals(MASTER_PLAYLIST)) {
+            return 2;
+        }
+        return fileName.endsWith(".m3u8") ? 1 : 0;
+    }
+
+    private static String contentType(Path file) {
+        return file.getFileName().toString().endsWith(".m3u8") ? "application/vnd.apple.mpegurl" : "video/mp2t";
+    }
+
+    static String outputPrefix(String videoId) {
+        return "hls/" + videoId + "/";
+    }
+
+    static String outputPrefix(String videoId, int attempt) {
+        return outputPrefix(videoId) + attempt + "/";
+    }
+
+    private static String tail(Path logFile) {
+        try {
+            String log = Files.readString(logFile);
+            return log.substring(Math.max(0, log.length() - 500)).trim();
+        } catch (IOException ioException) {
+            return "no ffmpeg log";
+        }
+    }
+
+    record Rendition(String name, int height, int videoKbps, int audioKbps) {
+    }
+
+    record SourceInfo(double durationSeconds, int height, boolean hasAudio) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.model.VideoStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Home feed timelines precomputed on write: a new upload is copied into a FeedEntry per subscriber, so a
+ * feed page is a single range scan on (userId, videoId). Pull-mode creators are skipped on write and their
+ * latest public videos are merged in at read time from the Video (userId, videoStatus, _id) index.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HomeFeedService implements JobHandler {
+
+    static final String JOB_TYPE = "feed-fan-out";
+    private static final int FAN_OUT_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final SubscriptionService subscriptionService;
+    private final JobQueue jobQueue;
+
+    @Value("${feed.fan-out.max-concurrent-jobs:4}")
+    private int maxConcurrentJobs;
+    @Value("${feed.fan-out.max-attempts:5}")
+    private int maxAttempts;
+
+    public void enqueueFanOut(String videoId, String creatorId) {
+        jobQueue.enqueue(JOB_TYPE, videoId, Map.of("creatorId", creatorId));
+    }
+
+    @Override
+    public String type() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int concurrency() {
+        return maxConcurrentJobs;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public void handle(Job job, IntConsumer progress) {
+        fanOut(job.getKey(), job.getPayload().get("creatorId"));
+    }
+
+    void fanOut(String videoId, String creatorId) {
+        if (subscriptionService.isPullCreator(creatorId)) {
+            log.info("👍Video {} is read by pull, creator {} has too many subscribers to fan out",
+                    videoId, creatorId);
+            return;
+        }
+        // A retry starts over from the first subscriber, the entries it already wrote are skipped as duplicates
+        Instant now = Instant.now();
+        long delivered = 0;
+        String afterSubscriberId = null;
+        List<String> subscriberIds;
+        do {
+            subscriberIds = subscriptionService.getSubscriberIds(creatorId, afterSubscriberId, FAN_OUT_BATCH);
+            if (subscriberIds.isEmpty()) {
+                break;
+            }
+            List<FeedEntry> entries = subscriberIds.stream()
+                    .map(subscriberId -> new FeedEntry(null, subscriberId, videoId, creatorId, now))
+                    .toList();
+            insertIgnoringDuplicates(entries);
+            delivered += entries.size();
+            afterSubscriberId = subscriberIds.get(subscriberIds.size() - 1);
+        } while (subscriberIds.size() == FAN_OUT_BATCH);
+        log.info("✅Fanned video {} out to {} feeds", videoId, delivered);
+    }
+
+    /**
+     * Up to limit feed video ids below the cursor, newest first. Hex ObjectIds sort like the ids themselves,
+     * so pushed and pulled videos merge on the id alone.
+     */
+    public List<String> getFeedVideoIds(String userId, String cursor, int limit) {
+        Criteria pushedCriteria = Criteria.where("userId").is(userId);
+        if (cursor != null) {
+            pushedCriteria = pushedCriteria.and("videoId").lt(cursor);
+        }
+        Query pushed = Query.query(pushedCriteria).with(Sort.by(Sort.Direction.DESC, "videoId")).limit(limit);
+        pushed.fields().include("videoId").exclude("id");
+        List<String> videoIds = new ArrayList<>(mongoTemplate.find(pushed, FeedEntry.class).stream()
+                .map(FeedEntry::getVideoId)
+                .toList());
+
+        List<String> pullCreatorIds = subscriptionService.getPullCreatorIds(userId);
+        if (pullCreatorIds.isEmpty()) {
+            return videoIds;
+        }
+        Criteria pulledCriteria = Criteria.where("userId").in(pullCreatorIds).and("videoStatus").is(VideoStatus.PUBLIC);
+        if (cursor != null) {
+            pulledCriteria = pulledCriteria.and("id").lt(new ObjectId(cursor));
+        }
+        Query pulled = Query.query(pulledCriteria).with(Sort.by(Sort.Direction.DESC, "id")).limit(limit);
+        pulled.fields().include("id");
+        mongoTemplate.find(pulled, Video.class).forEach(video -> videoIds.add(video.getId()));
+        // A creator that dropped back below the threshold can be both pushed and pulled
+        return videoIds.stream().distinct().sorted(Comparator.reverseOrder()).limit(limit).toList();
+    }
+
+    private void insertIgnoringDuplicates(List<FeedEntry> entries) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FeedEntry.class).insert(entries).execute();
+        } catch (BulkOperationException bulkOperationException) {
+            // Entries left over from an earlier attempt; anything but a duplicate key is a real failure
+            if (bulkOperationException.getErrors().stream().anyMatch(error -> error.getCode() != 11000)) {
+                throw bulkOperationException;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.aditya.youtube_clone.service;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch with 2^precision one-byte registers, fed with 64-bit hashes. Sketches of the same
+ * precision merge by taking the register-wise maximum, which is what makes per-node and per-day sketches
+ * combinable into one estimate. The standard error is 1.04 / sqrt(2^precision).
+ * <p>
+ * Most videos get a handful of viewers a day, so a sketch starts sparse, keeping only its non-empty registers,
+ * and switches to the dense register array once that stops being smaller. Both forms serialize as they are held.
+ */
+class HyperLogLog {
+
+    // Set on the precision byte of a serialized sparse sketch
+    private static final int SPARSE_FLAG = 0x80;
+    // A sparse entry takes four bytes against one per dense register
+    private static final int SPARSE_ENTRY_BYTES = 4;
+
+    private final int precision;
+    private final int registerCount;
+    // Non-empty registers as index << 8 | rank, sorted by index; null once dense
+    private int[] sparse = new int[SPARSE_ENTRY_BYTES];
+    private int sparseSize;
+    private byte[] registers;
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    /**
+     * Reads a sketch written by {@link #toBytes()}: the precision byte, flagged when sparse, followed by either
+     * every register or a three-byte index and a rank per non-empty register.
+     */
+    static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog(bytes[0] & ~SPARSE_FLAG & 0xff);
+        if ((bytes[0] & SPARSE_FLAG) != 0) {
+            if ((bytes.length - 1) % SPARSE_ENTRY_BYTES != 0) {
+                throw new IllegalArgumentException("Corrupt sparse HyperLogLog sketch of " + bytes.length + " bytes");
+            }
+            for (int i = 1; i < bytes.length; i += SPARSE_ENTRY_BYTES) {
+                int register = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+                if (register >= sketch.registerCount) {
+                    throw new IllegalArgumentException("Corrupt sparse HyperLogLog register " + register);
+                }
+                sketch.raise(register, bytes[i + 3]);
+            }
+            return sketch;
+        }
+        if (bytes.length != sketch.registerCount + 1) {
+            throw new IllegalArgumentException("Corrupt HyperLogLog sketch of " + bytes.length + " bytes");
+        }
+        sketch.registers = Arrays.copyOfRange(bytes, 1, bytes.length);
+        sketch.sparse = null;
+        return sketch;
+    }
+
+    /**
+     * Adds a hashed element and tells whether any register changed.
+     */
+    synchronized boolean add(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // The sentinel bit caps the rank when the remaining bits are all zero
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        return raise(register, rank);
+    }
+
+    synchronized void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision
+                    + " and " + precision);
+        }
+        for (int entry : other.copyEntries()) {
+            raise(entry >>> 8, (byte) entry);
+        }
+    }
+
+    synchronized long estimate() {
+        double inverseSum = 0;
+        int emptyRegisters = 0;
+        if (registers != null) {
+            for (byte rank : registers) {
+                inverseSum += 1.0 / (1L << rank);
+                if (rank == 0) {
+                    emptyRegisters++;
+                }
+            }
+        } else {
+            emptyRegisters = registerCount - sparseSize;
+            inverseSum = emptyRegisters;
+            for (int i = 0; i < sparseSize; i++) {
+                inverseSum += 1.0 / (1L << (sparse[i] & 0xff));
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / inverseSum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * registerCount && emptyRegisters > 0) {
+            estimate = registerCount * Math.log((double) registerCount / emptyRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    synchronized byte[] toBytes() {
+        if (registers != null) {
+            byte[] bytes = new byte[registerCount + 1];
+            bytes[0] = (byte) precision;
+            System.arraycopy(registers, 0, bytes, 1, registerCount);
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + sparseSize * SPARSE_ENTRY_BYTES];
+        bytes[0] = (byte) (precision | SPARSE_FLAG);
+        for (int i = 0; i < sparseSize; i++) {
+            int register = sparse[i] >>> 8;
+            int offset = 1 + i * SPARSE_ENTRY_BYTES;
+            bytes[offset] = (byte) (register >>> 16);
+            bytes[offset + 1] = (byte) (register >>> 8);
+            bytes[offset + 2] = (byte) register;
+            bytes[offset + 3] = (byte) sparse[i];
+        }
+        return bytes;
+    }
+
+    boolean isSparse() {
+        return registers == null;
+    }
+
+    // Raises a register to rank and tells whether it changed
+    private boolean raise(int register, byte rank) {
+        if (registers != null) {
+            if (rank <= registers[register]) {
+                return false;
+            }
+            registers[register] = rank;
+            return true;
+        }
+        // Entries have a rank of at least one, so the search lands on the register's entry or where it goes
+        int position = -Arrays.binarySearch(sparse, 0, sparseSize, register << 8) - 1;
+        if (position < sparseSize && sparse[position] >>> 8 == register) {
+            if (rank <= (byte) sparse[position]) {
+                return false;
+            }
+            sparse[position] = register << 8 | rank;
+            return true;
+        }
+        if (sparseSize == registerCount / SPARSE_ENTRY_BYTES) {
+            toDense();
+            registers[register] = rank;
+            return true;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, registerCount / SPARSE_ENTRY_BYTES));
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = register << 8 | rank;
+        sparseSize++;
+        return true;
+    }
+
+    private void toDense() {
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) sparse[i];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    // The non-empty registers as index << 8 | rank
+    private synchronized int[] copyEntries() {
+        if (registers == null) {
+            return Arrays.copyOf(sparse, sparseSize);
+        }
+        int[] entries = new int[registerCount];
+        int size = 0;
+        for (int i = 0; i < registerCount; i++) {
+            if (registers[i] != 0) {
+                entries[size++] = i << 8 | registers[i];
+            }
+        }
+        return Arrays.copyOf(entries, size);
+    }
+}
@@ -0,0 +1,64 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Local stand-in for the shared tier: keeps the same serialized-bytes contract as a networked store,
+ * so the two-tier path can run and be tested without one.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class InProcessSharedVideoCache implements SharedVideoCache {
+
+    private final Cache<String, byte[]> store;
+    private final Cache<String, Long> generations;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Optional<VideoDTO> get(String videoId) {
+        byte[] serialized = store.getIfPresent(videoId);
+        if (serialized == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(serialized, VideoDTO.class));
+        } catch (IOException ioException) {
+            log.warn("⚠️Dropping unreadable shared cache entry for video ID: {}", videoId);
+            store.invalidate(videoId);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public long generation(String videoId) {
+        Long generation = generations.getIfPresent(videoId);
+        return generation == null ? 0 : generation;
+    }
+
+    @Override
+    public void put(String videoId, VideoDTO videoDTO, long generation) {
+        byte[] serialized;
+        try {
+            serialized = objectMapper.writeValueAsBytes(videoDTO);
+        } catch (JsonProcessingException jsonProcessingException) {
+            log.warn("⚠️Failed to write shared cache entry for video ID: {}", videoId);
+            return;
+        }
+        // Checked under the entry's lock, an evict either bumped the generation first or removes this put after
+        store.asMap().compute(videoId, (id, existing) -> generation(id) == generation ? serialized : existing);
+    }
+
+    @Override
+    public void evict(String videoId) {
+        generations.asMap().merge(videoId, 1L, Long::sum);
+        store.invalidate(videoId);
+    }
+}
@@ -0,0 +1,40 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the jobs of one type for the {@link JobWorker}. A job can run more than once, after a retry or when a
+ * node dies mid-job and its lease runs out, so handle has to be safe to repeat.
+ */
+public interface JobHandler {
+
+    String type();
+
+    /**
+     * Jobs of this type one node runs at a time; 0 keeps the node from claiming them at all.
+     */
+    int concurrency();
+
+    int maxAttempts();
+
+    /**
+     * Throwing schedules a retry, or dead-letters the job on its last attempt. Interrupts mean the lease was
+     * lost or the node is shutting down and should stop the work.
+     */
+    void handle(Job job, IntConsumer progress) throws Exception;
+
+    /**
+     * Called once the job has used up its attempts.
+     */
+    default void onDeadLetter(Job job) {
+    }
+
+    /**
+     * Succeeded jobs expire unless someone reads them back later.
+     */
+    default boolean keepSucceeded() {
+        return false;
+    }
+}
@@ -0,0 +1,132 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.JobStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Mongo-backed job queue shared by every node. Claims are a single findAndModify, so two nodes never get the
+ * same job, and each claim hands out a lease token that fences every later write: a worker whose lease ran
+ * out and was claimed again elsewhere can no longer touch the job.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobQueue {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${jobs.lease:2m}")
+    private Duration lease;
+
+    /**
+     * Returns false when a job of this type with the same key already exists.
+     */
+    public boolean enqueue(String type, String key, Map<String, String> payload) {
+        Instant now = Instant.now();
+        Job job = new Job();
+        job.setType(type);
+        job.setKey(key);
+        job.setPayload(payload);
+        job.setStatus(JobStatus.QUEUED);
+        job.setRunAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        try {
+            mongoTemplate.insert(job);
+        } catch (DuplicateKeyException duplicateKeyException) {
+            log.info("👍{} job {} is already queued", type, key);
+            return false;
+        }
+        log.info("🚀Queued {} job {}", type, key);
+        return true;
+    }
+
+    public Job find(String type, String key) {
+        return mongoTemplate.findOne(byKey(type, key), Job.class);
+    }
+
+    public void remove(String type, String key) {
+        // A worker still running it finds its fenced writes matching nothing
+        mongoTemplate.remove(byKey(type, key), Job.class);
+    }
+
+    Job claim(String type, Instant now) {
+        Query due = Query.query(Criteria.where("type").is(type).orOperator(
+                        Criteria.where("status").is(JobStatus.QUEUED).and("runAt").lte(now),
+                        Criteria.where("status").is(JobStatus.RUNNING).and("leaseExpiresAt").lt(now)))
+                .with(Sort.by("runAt"));
+        Update update = new Update()
+                .set("status", JobStatus.RUNNING)
+                .set("leaseToken", UUID.randomUUID().toString())
+                .set("leaseExpiresAt", now.plus(lease))
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(due, update, FindAndModifyOptions.options().returnNew(true), Job.class);
+    }
+
+    boolean renewLease(Job job, int progress) {
+        Instant now = Instant.now();
+        return mongoTemplate.updateFirst(leased(job), new Update()
+                .set("leaseExpiresAt", now.plus(lease))
+                .set("progress", progress)
+                .set("updatedAt", now), Job.class).getMatchedCount() > 0;
+    }
+
+    boolean complete(Job job, Instant expireAt) {
+        Update update = finished(JobStatus.SUCCEEDED).set("progress", 100).unset("lastError");
+        if (expireAt != null) {
+            update.set("expireAt", expireAt);
+        }
+        return mongoTemplate.updateFirst(leased(job), update, Job.class).getMatchedCount() > 0;
+    }
+
+    boolean retry(Job job, Instant runAt, String error) {
+        return mongoTemplate.updateFirst(leased(job), finished(JobStatus.QUEUED)
+                .set("runAt", runAt)
+                .set("lastError", error), Job.class).getMatchedCount() > 0;
+    }
+
+    boolean deadLetter(Job job, String error) {
+        return mongoTemplate.updateFirst(leased(job), finished(JobStatus.DEAD)
+                .set("lastError", error), Job.class).getMatchedCount() > 0;
+    }
+
+    void release(Job job) {
+        // Stopped by a shutdown, not by the job: it goes straight back to the queue without using up an attempt
+        mongoTemplate.updateFirst(leased(job), finished(JobStatus.QUEUED)
+                .set("runAt", Instant.now())
+                .inc("attempts", -1), Job.class);
+    }
+
+    private static Query byKey(String type, String key) {
+        return Query.query(Criteria.where("type").is(type).and("key").is(key));
+    }
+
+    private static Query leased(Job job) {
+        return Query.query(Criteria.where("_id").is(job.getId()).and("leaseToken").is(job.getLeaseToken()));
+    }
+
+    private static Update finished(JobStatus status) {
+        return new Update()
+                .set("status", status)
+                .set("updatedAt", Instant.now())
+                .unset("leaseToken")
+                .unset("leaseExpiresAt");
+    }
+}
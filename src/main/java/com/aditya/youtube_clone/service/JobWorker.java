@@ -0,0 +1,205 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the {@link JobQueue} for every registered {@link JobHandler} and runs up to the handler's concurrency
+ * of its jobs on this node, each on its own virtual thread next to a heartbeat that extends the lease and
+ * records progress. Failed jobs are retried with capped, jittered exponential backoff until the handler's
+ * max attempts, after which they are dead-lettered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobWorker {
+
+    private final JobQueue jobQueue;
+    private final List<JobHandler> jobHandlers;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jobs.worker-enabled:true}")
+    private boolean workerEnabled;
+    @Value("${jobs.heartbeat-interval:20s}")
+    private Duration heartbeatInterval;
+    @Value("${jobs.retry-backoff:30s}")
+    private Duration retryBackoff;
+    @Value("${jobs.max-retry-backoff:1h}")
+    private Duration maxRetryBackoff;
+    @Value("${jobs.succeeded-retention:7d}")
+    private Duration succeededRetention;
+
+    private final Map<String, AtomicInteger> runningByType = new ConcurrentHashMap<>();
+    private final Map<String, Thread> runningJobs = new ConcurrentHashMap<>();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${jobs.poll-interval-ms:2000}")
+    public void poll() {
+        if (!workerEnabled || stopping.get()) {
+            return;
+        }
+        for (JobHandler handler : jobHandlers) {
+            try {
+                claimJobs(handler);
+            } catch (RuntimeException exception) {
+                log.error("❌Failed to claim {} jobs: {}", handler.type(), exception.getMessage());
+            }
+        }
+    }
+
+    private void claimJobs(JobHandler handler) {
+        AtomicInteger running = runningByType.computeIfAbsent(handler.type(), type -> new AtomicInteger());
+        while (running.get() < handler.concurrency()) {
+            Job job = jobQueue.claim(handler.type(), Instant.now());
+            if (job == null) {
+                return;
+            }
+            running.incrementAndGet();
+            Thread worker = Thread.ofVirtual().name("job-" + handler.type() + "-" + job.getKey()).unstarted(() -> {
+                try {
+                    run(handler, job);
+                } finally {
+                    runningJobs.remove(job.getId());
+                    running.decrementAndGet();
+                }
+            });
+            runningJobs.put(job.getId(), worker);
+            worker.start();
+        }
+    }
+
+    void run(JobHandler handler, Job job) {
+        AtomicInteger progress = new AtomicInteger(job.getProgress());
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        Thread worker = Thread.currentThread();
+        Thread heartbeat = Thread.ofVirtual().name("job-heartbeat-" + job.getKey()).start(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(heartbeatInterval);
+                } catch (InterruptedException interruptedException) {
+                    return;
+                }
+                if (!renewLease(job, progress.get())) {
+                    leaseLost.set(true);
+                    worker.interrupt();
+                    return;
+                }
+            }
+        });
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        try {
+            log.info("🚀Running {} job {} (attempt {})", job.getType(), job.getKey(), job.getAttempts());
+            handler.handle(job, progress::set);
+            stopHeartbeat(heartbeat);
+            outcome = complete(handler, job);
+        } catch (InterruptedException interruptedException) {
+            stopHeartbeat(heartbeat);
+            if (leaseLost.get()) {
+                log.warn("⚠️Lost the lease on {} job {}, another worker owns it", job.getType(), job.getKey());
+                outcome = "lease-lost";
+            } else {
+                release(job);
+                outcome = "released";
+            }
+        } catch (Exception exception) {
+            stopHeartbeat(heartbeat);
+            outcome = fail(handler, job, exception);
+        }
+        sample.stop(Timer.builder("jobs.runs")
+                .description("Duration of background job runs")
+                .tag("type", job.getType())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private boolean renewLease(Job job, int progress) {
+        try {
+            return jobQueue.renewLease(job, progress);
+        } catch (RuntimeException exception) {
+            // Keep going, the lease is only lost once it expires and someone else claims the job
+            log.warn("⚠️Failed to renew the lease on {} job {}: {}", job.getType(), job.getKey(), exception.getMessage());
+            return true;
+        }
+    }
+
+    private String complete(JobHandler handler, Job job) {
+        Instant expireAt = handler.keepSucceeded() ? null : Instant.now().plus(succeededRetention);
+        if (!jobQueue.complete(job, expireAt)) {
+            log.warn("⚠️{} job {} was taken over or removed while it ran", job.getType(), job.getKey());
+            return "lease-lost";
+        }
+        log.info("✅Finished {} job {}", job.getType(), job.getKey());
+        return "succeeded";
+    }
+
+    private String fail(JobHandler handler, Job job, Exception exception) {
+        String error = exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        if (job.getAttempts() >= handler.maxAttempts()) {
+            log.error("❌{} job {} failed after {} attempts, dead-lettering it: {}", job.getType(), job.getKey(),
+                    job.getAttempts(), error);
+            if (jobQueue.deadLetter(job, error)) {
+                handler.onDeadLetter(job);
+            }
+            return "dead";
+        }
+        Duration backoff = backoff(job.getAttempts());
+        log.warn("⚠️{} job {} failed on attempt {}, retrying in {}: {}", job.getType(), job.getKey(),
+                job.getAttempts(), backoff, error);
+        jobQueue.retry(job, Instant.now().plus(backoff), error);
+        return "failed";
+    }
+
+    Duration backoff(int attempts) {
+        Duration exponential = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        Duration capped = exponential.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : exponential;
+        // Half fixed, half random, so jobs that failed together do not all come back at once
+        long halfMillis = capped.toMillis() / 2;
+        return Duration.ofMillis(halfMillis + ThreadLocalRandom.current().nextLong(halfMillis + 1));
+    }
+
+    private void release(Job job) {
+        log.info("♻️Returning {} job {} to the queue", job.getType(), job.getKey());
+        try {
+            jobQueue.release(job);
+        } catch (RuntimeException exception) {
+            log.warn("⚠️Failed to release {} job {}: {}", job.getType(), job.getKey(), exception.getMessage());
+        }
+    }
+
+    private static void stopHeartbeat(Thread heartbeat) {
+        heartbeat.interrupt();
+        try {
+            heartbeat.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        // A heartbeat that lost the lease may have interrupted this thread after the work was done
+        Thread.interrupted();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping.set(true);
+        runningJobs.values().forEach(Thread::interrupt);
+        for (Thread worker : runningJobs.values()) {
+            worker.join(Duration.ofSeconds(10));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Absorbs like/dislike counter deltas in memory and writes them to Mongo as one bulk $inc per video
+ * on every flush, so a viral video costs one counter write per interval instead of one per like.
+ * With the write-ahead log enabled each delta is appended to a local segment file first; segments
+ * are fsynced every sync interval and only deleted once their deltas are in Mongo. Replay is at-least-once:
+ * a crash after a flush reached Mongo but before its segments were deleted, or after a partial bulk write
+ * failure, applies the already written deltas again on restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikeCounterBuffer {
+
+    private static final String WAL_SEGMENT_PREFIX = "reactions-";
+    private static final String WAL_SEGMENT_SUFFIX = ".wal";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${video.reactions.wal.enabled:false}")
+    private boolean walEnabled;
+    @Value("${video.reactions.wal.directory:./data/reactions-wal}")
+    private Path walDirectory;
+
+    private final ConcurrentHashMap<String, ReactionCounters> counters = new ConcurrentHashMap<>();
+    // Holders dropped from the map on the previous flush, drained once more in case an increment raced the removal
+    private final List<ReactionCounters> retiredCounters = new ArrayList<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock walLock = new ReentrantLock();
+    private FileChannel walChannel;
+    private BufferedWriter walWriter;
+    private long walSequence;
+
+    @PostConstruct
+    void openWriteAheadLog() throws IOException {
+        if (!walEnabled) {
+            return;
+        }
+        Files.createDirectories(walDirectory);
+        // Deltas from segments that never made it to Mongo go back into the buffer for the next flush
+        List<Path> segments = listSegments();
+        for (Path segment : segments) {
+            replaySegment(segment);
+            walSequence = Math.max(walSequence, segmentSequence(segment));
+        }
+        if (!segments.isEmpty()) {
+            log.info("♻️Recovered {} like counter WAL segment(s) from {}", segments.size(), walDirectory);
+        }
+        openSegment(walSequence + 1);
+    }
+
+    public void record(String videoId, long likesDelta, long disLikesDelta) {
+        if (!walEnabled) {
+            addToCounters(videoId, likesDelta, disLikesDelta);
+            return;
+        }
+        // The log append and the counter update happen together so a rotation never splits them
+        walLock.lock();
+        try {
+            walWriter.write(videoId + " " + likesDelta + " " + disLikesDelta + "\n");
+            addToCounters(videoId, likesDelta, disLikesDelta);
+        } catch (IOException ioException) {
+            log.error("❌Failed to append to like counter WAL: {}", ioException.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An error occurred while recording the reaction.");
+        } finally {
+            walLock.unlock();
+        }
+    }
+
+    public long getPendingLikes(String videoId) {
+        ReactionCounters reactionCounters = counters.get(videoId);
+        return reactionCounters == null ? 0 : reactionCounters.likes.sum();
+    }
+
+    public long getPendingDisLikes(String videoId) {
+        ReactionCounters reactionCounters = counters.get(videoId);
+        return reactionCounters == null ? 0 : reactionCounters.disLikes.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${video.reactions.wal.sync-interval-ms:50}")
+    public void syncWriteAheadLog() {
+        if (!walEnabled) {
+            return;
+        }
+        walLock.lock();
+        try {
+            walWriter.flush();
+            walChannel.force(false);
+        } catch (IOException ioException) {
+            log.error("❌Failed to sync like counter WAL: {}", ioException.getMessage());
+        } finally {
+            walLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${video.reactions.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, long[]> deltas;
+            long sealedSequence = walSequence;
+            if (walEnabled) {
+                walLock.lock();
+                try {
+                    sealedSequence = walSequence;
+                    openSegment(walSequence + 1);
+                    deltas = drainCounters();
+                } catch (IOException ioException) {
+                    log.error("❌Failed to rotate like counter WAL: {}", ioException.getMessage());
+                    return;
+                } finally {
+                    walLock.unlock();
+                }
+            } else {
+                deltas = drainCounters();
+            }
+            if (!deltas.isEmpty()) {
+                int videos = deltas.size();
+                try {
+                    writeDeltas(deltas);
+                } catch (RuntimeException exception) {
+                    log.error("❌Failed to flush like counters for {} videos, retrying {} next interval: {}",
+                            videos, deltas.size(), exception.getMessage());
+                    // Their WAL records stay in the sealed segments, which are only deleted after a successful flush
+                    deltas.forEach((videoId, delta) -> addToCounters(videoId, delta[0], delta[1]));
+                    return;
+                }
+                log.info("✅Flushed like counters for {} videos", deltas.size());
+            }
+            if (walEnabled) {
+                deleteSegmentsUpTo(sealedSequence);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        flush();
+        if (walEnabled) {
+            walLock.lock();
+            try {
+                walWriter.close();
+            } finally {
+                walLock.unlock();
+            }
+        }
+    }
+
+    private void addToCounters(String videoId, long likesDelta, long disLikesDelta) {
+        ReactionCounters reactionCounters = counters.computeIfAbsent(videoId, ReactionCounters::new);
+        if (likesDelta != 0) {
+            reactionCounters.likes.add(likesDelta);
+        }
+        if (disLikesDelta != 0) {
+            reactionCounters.disLikes.add(disLikesDelta);
+        }
+    }
+
+    private Map<String, long[]> drainCounters() {
+        Map<String, long[]> deltas = new HashMap<>();
+        retiredCounters.forEach(reactionCounters -> collect(deltas, reactionCounters));
+        retiredCounters.clear();
+        counters.forEach((videoId, reactionCounters) -> {
+            if (!collect(deltas, reactionCounters) && counters.remove(videoId, reactionCounters)) {
+                // Idle since the last flush, drop it so the map only holds videos that are being liked
+                retiredCounters.add(reactionCounters);
+            }
+        });
+        return deltas;
+    }
+
+    private boolean collect(Map<String, long[]> deltas, ReactionCounters reactionCounters) {
+        long likes = reactionCounters.likes.sumThenReset();
+        long disLikes = reactionCounters.disLikes.sumThenReset();
+        if (likes == 0 && disLikes == 0) {
+            return false;
+        }
+        long[] delta = deltas.computeIfAbsent(reactionCounters.videoId, videoId -> new long[2]);
+        delta[0] += likes;
+        delta[1] += disLikes;
+        return true;
+    }
+
+    /**
+     * On a partial failure only the deltas that were not applied are left in the map.
+     */
+    private void writeDeltas(Map<String, long[]> deltas) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class);
+        List<String> videoIds = new ArrayList<>(deltas.keySet());
+        videoIds.forEach(videoId -> {
+            long[] delta = deltas.get(videoId);
+            Update update = new Update();
+            if (delta[0] != 0) {
+                update.inc("likes", delta[0]);
+            }
+            if (delta[1] != 0) {
+                update.inc("disLikes", delta[1]);
+            }
+            bulkOperations.updateOne(Query.query(Criteria.where("id").is(videoId)), update);
+        });
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            // Unordered, so every update but the failed ones was applied and must not be added back
+            Set<String> failedVideoIds = exception.getErrors().stream()
+                    .map(error -> videoIds.get(error.getIndex()))
+                    .collect(Collectors.toSet());
+            deltas.keySet().retainAll(failedVideoIds);
+            throw exception;
+        }
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        if (walWriter != null) {
+            walWriter.flush();
+            walChannel.force(false);
+            walWriter.close();
+        }
+        walChannel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        walWriter = new BufferedWriter(Channels.newWriter(walChannel, StandardCharsets.UTF_8));
+        walSequence = sequence;
+    }
+
+    private void replaySegment(Path segment) throws IOException {
+        try (Stream<String> lines = Files.lines(segment, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                String[] fields = line.split(" ");
+                // A crash mid-append can leave a torn last line behind
+                if (fields.length != 3) {
+                    return;
+                }
+                try {
+                    addToCounters(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+                } catch (NumberFormatException numberFormatException) {
+                    log.warn("⚠️Skipping malformed like counter WAL record in {}", segment.getFileName());
+                }
+            });
+        }
+    }
+
+    private void deleteSegmentsUpTo(long sequence) {
+        try {
+            for (Path segment : listSegments()) {
+                if (segmentSequence(segment) <= sequence) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException | UncheckedIOException exception) {
+            log.error("❌Failed to delete flushed like counter WAL segments: {}", exception.getMessage());
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(WAL_SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(WAL_SEGMENT_SUFFIX))
+                    .sorted((first, second) -> Long.compare(segmentSequence(first), segmentSequence(second)))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return walDirectory.resolve(WAL_SEGMENT_PREFIX + sequence + WAL_SEGMENT_SUFFIX);
+    }
+
+    private long segmentSequence(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(WAL_SEGMENT_PREFIX.length(),
+                fileName.length() - WAL_SEGMENT_SUFFIX.length()));
+    }
+
+    private static class ReactionCounters {
+        private final String videoId;
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder disLikes = new LongAdder();
+
+        private ReactionCounters(String videoId) {
+            this.videoId = videoId;
+        }
+    }
+}
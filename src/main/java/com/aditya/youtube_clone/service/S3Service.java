@@ -1,22 +1,54 @@
 package com.aditya.youtube_clone.service;
 
-import io.awspring.cloud.s3.ObjectMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.aditya.youtube_clone.exception.TransferPipelineSaturatedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.GetUrlRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
-import software.amazon.awssdk.services.s3.model.PutObjectAclRequest;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import static com.aditya.youtube_clone.constants.Constants.*;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+import static com.aditya.youtube_clone.constants.Constants.AWS_S3_BUCKET_NAME;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
 
 @Slf4j
@@ -25,23 +57,44 @@ import java.util.UUID;
 public class S3Service implements FileService {
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final ExecutorService s3UploadExecutor;
+    private final S3Presigner s3Presigner;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore s3TransferPermits;
+
+    @Value("${aws.s3.bucket-name:" + AWS_S3_BUCKET_NAME + "}")
+    private String bucketName;
+    // Disable when the bucket enforces object ownership and grants public read through a bucket policy
+    @Value("${aws.s3.public-read-acl:true}")
+    private boolean publicReadAcl;
+    @Value("${aws.s3.multipart.part-size:8MB}")
+    private DataSize multipartPartSize;
+    @Value("${aws.s3.multipart.max-in-flight-parts:4}")
+    private int maxInFlightParts;
+    @Value("${spring.servlet.multipart.max-file-size:500MB}")
+    private DataSize maxUploadSize;
+    @Value("${aws.s3.presign.expiry:15m}")
+    private Duration presignExpiry;
+    @Value("${aws.s3.async.retry-after-seconds:5}")
+    private long retryAfterSeconds;
 
     @Override
-    public String uploadFile(MultipartFile file) {
+    public CompletableFuture<String> uploadFile(MultipartFile file) {
         log.info("🚀Uploading file to S3 bucket");
-        String fileExtension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-        String fileUuid = UUID.randomUUID().toString() + "." + fileExtension;
-        ObjectMetadata fileMetadata = new ObjectMetadata.Builder().
-                contentType(file.getContentType()).
-                contentLength(file.getSize()).build();
+        String fileKey = generateFileKey(StringUtils.getFilenameExtension(file.getOriginalFilename()));
+        // Content type and ACL ride along on the PUT itself, so an upload is a single S3 request
+        PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(file.getContentType())
+                .contentLength(file.getSize());
+        if (publicReadAcl) {
+            putObjectRequest.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+        InputStream inputStream;
         try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(AWS_S3_BUCKET_NAME)
-                    .key(fileUuid).metadata(fileMetadata.getMetadata())
-                    .build();
-            s3Client.putObject(putObjectRequest,
-                    RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
-            log.info("✅Successfully uploaded file to S3 bucket");
+            inputStream = file.getInputStream();
         } catch (IOException ioException) {
             log.info("❌Failed to upload file to S3 bucket due to I/O Exception");
             log.error(ioException.getMessage());
@@ -54,27 +107,337 @@ public class S3Service implements FileService {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "An unknown error occurred while uploading the file.");
         }
-        PutObjectAclRequest objectAclRequest = PutObjectAclRequest.builder()
-                .bucket(AWS_S3_BUCKET_NAME)
-                .key(fileUuid).acl(ObjectCannedACL.PUBLIC_READ)
-                .build();
-        s3Client.putObjectAcl(objectAclRequest);
-        return s3Client.utilities().getUrl(GetUrlRequest.builder()
-                .bucket(AWS_S3_BUCKET_NAME).key(fileUuid)
-                .build()).toString();
+        CompletableFuture<PutObjectResponse> putObjectResponse;
+        try {
+            putObjectResponse = submitTransfer("putObject", () -> s3AsyncClient.putObject(putObjectRequest.build(),
+                    AsyncRequestBody.fromInputStream(inputStream, file.getSize(), s3UploadExecutor)));
+        } catch (TransferPipelineSaturatedException saturatedException) {
+            closeQuietly(inputStream);
+            throw saturatedException;
+        }
+        return putObjectResponse.handle((response, exception) -> {
+            closeQuietly(inputStream);
+            if (exception != null) {
+                log.error("❌Failed to upload file to S3 bucket due to unknown exception");
+                log.error(exception.getMessage());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "An unknown error occurred while uploading the file.");
+            }
+            log.info("✅Successfully uploaded file to S3 bucket");
+            return getFileUrl(fileKey);
+        });
+    }
+
+    public CompletableFuture<String> uploadBytes(byte[] content, String contentType, String fileExtension) {
+        return putObject(generateFileKey(fileExtension), contentType, content.length, AsyncRequestBody.fromBytes(content));
+    }
+
+    public CompletableFuture<String> uploadFile(Path file, String fileKey, String contentType) {
+        long contentLength;
+        try {
+            contentLength = Files.size(file);
+        } catch (IOException ioException) {
+            return CompletableFuture.failedFuture(ioException);
+        }
+        return putObject(fileKey, contentType, contentLength, AsyncRequestBody.fromFile(file));
+    }
+
+    private CompletableFuture<String> putObject(String fileKey, String contentType, long contentLength,
+                                                AsyncRequestBody requestBody) {
+        // Keys are random, or per transcode attempt for HLS output, and never rewritten, so browsers and CDNs may
+        // keep the object for good
+        PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .cacheControl("public, max-age=31536000, immutable");
+        if (publicReadAcl) {
+            putObjectRequest.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+        return submitTransfer("putObject", () -> s3AsyncClient.putObject(putObjectRequest.build(), requestBody))
+                .handle((response, exception) -> {
+                    if (exception != null) {
+                        log.error("❌Failed to upload file to S3 bucket: {}", exception.getMessage());
+                        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "An unknown error occurred while uploading the file.");
+                    }
+                    return getFileUrl(fileKey);
+                });
+    }
+
+    public void downloadFile(String fileUrl, Path target) {
+        log.info("🚀Downloading file from S3 bucket");
+        String fileKey = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+        timed("getObject", () -> s3Client.getObject(builder -> builder.bucket(bucketName).key(fileKey).build(), target));
+        log.info("✅Successfully downloaded file from S3 bucket");
+    }
+
+    public void deleteFolder(String prefix) {
+        log.info("🚀Deleting files under {} from S3 bucket", prefix);
+        // A listing page holds at most 1000 keys, the most a single DeleteObjects request accepts
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(builder -> builder.bucket(bucketName)
+                .prefix(prefix).build())) {
+            if (page.contents().isEmpty()) {
+                continue;
+            }
+            List<ObjectIdentifier> keys = page.contents().stream()
+                    .map(s3Object -> ObjectIdentifier.builder().key(s3Object.key()).build())
+                    .toList();
+            timed("deleteObjects", () -> s3Client.deleteObjects(builder -> builder.bucket(bucketName)
+                    .delete(delete -> delete.objects(keys).quiet(true)).build()));
+        }
+        log.info("✅Successfully deleted files under {} from S3 bucket", prefix);
     }
 
     @Override
-    public void deleteFile(String fileUrl) {
+    public CompletableFuture<Void> deleteFile(String fileUrl) {
         log.info("🚀Deleting file from S3 bucket");
         String fileKey = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+        return submitTransfer("deleteObject",
+                () -> s3AsyncClient.deleteObject(builder -> builder.bucket(bucketName).key(fileKey).build()))
+                .handle((response, exception) -> {
+                    if (exception != null) {
+                        log.error("❌Failed to delete file from S3 bucket: {}", exception.getMessage());
+                        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "An error occurred while deleting the file.");
+                    }
+                    log.info("✅Successfully deleted file from S3 bucket");
+                    return null;
+                });
+    }
+
+    public String uploadStream(InputStream inputStream, String contentType, String fileExtension) {
+        log.info("🚀Streaming file to S3 bucket using multipart upload");
+        acquireTransferPermit();
+        try {
+            return streamMultipartUpload(inputStream, contentType, fileExtension);
+        } finally {
+            s3TransferPermits.release();
+        }
+    }
+
+    private String streamMultipartUpload(InputStream inputStream, String contentType, String fileExtension) {
+        String fileKey = generateFileKey(fileExtension);
+        String uploadId = createMultipartUpload(fileKey, contentType);
+        int partSize = Math.toIntExact(multipartPartSize.toBytes());
+        // Each permit stands for one part buffer, so at most maxInFlightParts buffers are held in memory
+        Semaphore partBuffers = new Semaphore(maxInFlightParts);
+        List<CompletableFuture<CompletedPart>> pendingParts = new ArrayList<>();
+        long totalBytes = 0;
         try {
-            s3Client.deleteObject(builder -> builder.bucket(AWS_S3_BUCKET_NAME).key(fileKey).build());
-            log.info("✅Successfully deleted file from S3 bucket");
+            int partNumber = 1;
+            while (pendingParts.stream().noneMatch(CompletableFuture::isCompletedExceptionally)) {
+                partBuffers.acquire();
+                byte[] partBytes = inputStream.readNBytes(partSize);
+                totalBytes += partBytes.length;
+                if (totalBytes > maxUploadSize.toBytes()) {
+                    partBuffers.release();
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Uploaded file exceeds the maximum size of " + maxUploadSize);
+                }
+                if (partBytes.length == 0) {
+                    partBuffers.release();
+                    break;
+                }
+                int currentPartNumber = partNumber++;
+                pendingParts.add(uploadPartAsync(fileKey, uploadId, currentPartNumber, partBytes)
+                        .whenComplete((part, exception) -> partBuffers.release()));
+                if (partBytes.length < partSize) {
+                    break;
+                }
+            }
+            if (totalBytes == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded file is empty");
+            }
+            List<CompletedPart> completedParts = pendingParts.stream().map(CompletableFuture::join).toList();
+            completeMultipartUpload(fileKey, uploadId, completedParts);
+        } catch (ResponseStatusException responseStatusException) {
+            abortMultipartUpload(fileKey, uploadId, pendingParts);
+            throw responseStatusException;
+        } catch (IOException ioException) {
+            log.error("❌Failed to stream file to S3 bucket due to I/O Exception: {}", ioException.getMessage());
+            abortMultipartUpload(fileKey, uploadId, pendingParts);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An I/O Exception occurred while uploading the file.");
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(fileKey, uploadId, pendingParts);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The upload was interrupted.");
         } catch (Exception exception) {
-            log.error("❌Failed to delete file from S3 bucket: {}", exception.getMessage());
+            Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+            log.error("❌Failed to stream file to S3 bucket: {}", cause.getMessage());
+            abortMultipartUpload(fileKey, uploadId, pendingParts);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "An error occurred while deleting the file.");
+                    "An unknown error occurred while uploading the file.");
+        }
+        log.info("✅Successfully streamed {} bytes to S3 bucket in {} parts", totalBytes, pendingParts.size());
+        return getFileUrl(fileKey);
+    }
+
+    public String createMultipartUpload(String fileKey, String contentType) {
+        CreateMultipartUploadRequest.Builder createMultipartUploadRequest = CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType);
+        if (publicReadAcl) {
+            createMultipartUploadRequest.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+        return timed("createMultipartUpload",
+                () -> s3Client.createMultipartUpload(createMultipartUploadRequest.build())).uploadId();
+    }
+
+    public CompletedPart uploadPart(String fileKey, String uploadId, int partNumber, RequestBody requestBody) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+        // A proxied chunk streams through this node like any other upload, so it takes a transfer permit too
+        acquireTransferPermit();
+        try {
+            String eTag = timed("uploadPart", () -> s3Client.uploadPart(uploadPartRequest, requestBody)).eTag();
+            return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+        } finally {
+            s3TransferPermits.release();
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPartAsync(String fileKey, String uploadId, int partNumber,
+                                                             byte[] partBytes) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+        return timedAsync("uploadPart",
+                () -> s3AsyncClient.uploadPart(uploadPartRequest, AsyncRequestBody.fromBytes(partBytes)))
+                .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    }
+
+    public void completeMultipartUpload(String fileKey, String uploadId, List<CompletedPart> completedParts) {
+        List<CompletedPart> orderedParts = completedParts.stream()
+                .sorted(Comparator.comparing(CompletedPart::partNumber))
+                .toList();
+        CompleteMultipartUploadRequest completeMultipartUploadRequest = CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(orderedParts).build())
+                .build();
+        timed("completeMultipartUpload", () -> s3Client.completeMultipartUpload(completeMultipartUploadRequest));
+    }
+
+    public void abortMultipartUpload(String fileKey, String uploadId) {
+        try {
+            AbortMultipartUploadRequest abortMultipartUploadRequest = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileKey)
+                    .uploadId(uploadId)
+                    .build();
+            timed("abortMultipartUpload", () -> s3Client.abortMultipartUpload(abortMultipartUploadRequest));
+            log.info("🗑️Aborted multipart upload {} for key {}", uploadId, fileKey);
+        } catch (Exception exception) {
+            log.error("❌Failed to abort multipart upload {}: {}", uploadId, exception.getMessage());
+        }
+    }
+
+    private void abortMultipartUpload(String fileKey, String uploadId, List<CompletableFuture<CompletedPart>> pendingParts) {
+        // Let in-flight parts settle first, otherwise they can be stored after the abort and keep accruing charges
+        CompletableFuture.allOf(pendingParts.toArray(CompletableFuture[]::new))
+                .exceptionally(exception -> null)
+                .join();
+        abortMultipartUpload(fileKey, uploadId);
+    }
+
+    public List<CompletedPart> listUploadedParts(String fileKey, String uploadId) {
+        ListPartsRequest listPartsRequest = ListPartsRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .uploadId(uploadId)
+                .build();
+        return timed("listParts", () -> s3Client.listPartsPaginator(listPartsRequest)
+                .parts().stream()
+                .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                .toList());
+    }
+
+    public String presignUploadPart(String fileKey, String uploadId, int partNumber) {
+        return s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(presignExpiry)
+                .uploadPartRequest(UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(fileKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .build())
+                .build()).url().toString();
+    }
+
+    public Instant getPresignExpiry() {
+        return Instant.now().plus(presignExpiry);
+    }
+
+    public HeadObjectResponse headObject(String fileKey) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .build();
+        return timed("headObject", () -> s3Client.headObject(headObjectRequest));
+    }
+
+    public String getFileUrl(String fileKey) {
+        // Computed locally from the client configuration, no request is sent to S3
+        return s3Client.utilities().getUrl(GetUrlRequest.builder()
+                .bucket(bucketName).key(fileKey)
+                .build()).toString();
+    }
+
+    private <T> T timed(String operation, Supplier<T> s3Request) {
+        return s3RequestTimer(operation).record(s3Request);
+    }
+
+    private <T> CompletableFuture<T> timedAsync(String operation, Supplier<CompletableFuture<T>> s3Request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<T> response;
+        try {
+            response = s3Request.get();
+        } catch (RuntimeException exception) {
+            response = CompletableFuture.failedFuture(exception);
         }
+        return response.whenComplete((result, exception) -> sample.stop(s3RequestTimer(operation)));
+    }
+
+    private <T> CompletableFuture<T> submitTransfer(String operation, Supplier<CompletableFuture<T>> s3Request) {
+        acquireTransferPermit();
+        return timedAsync(operation, s3Request).whenComplete((result, exception) -> s3TransferPermits.release());
+    }
+
+    private void acquireTransferPermit() {
+        if (!s3TransferPermits.tryAcquire()) {
+            log.warn("⚠️S3 transfer pipeline is saturated, rejecting request");
+            throw new TransferPipelineSaturatedException(retryAfterSeconds);
+        }
+    }
+
+    private Timer s3RequestTimer(String operation) {
+        return Timer.builder("s3.requests")
+                .description("Latency of individual S3 requests")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ioException) {
+            log.warn("⚠️Failed to close upload stream: {}", ioException.getMessage());
+        }
+    }
+
+    public String generateFileKey(String fileExtension) {
+        return UUID.randomUUID().toString() + "." + fileExtension;
     }
 }
@@ -0,0 +1,72 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One-off fill of Video.searchTerms for videos edited before autocomplete existed. Enabled with
+ * video.search.backfill-terms=true and safe to rerun, it only touches videos that have no terms yet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchTermsBackfill {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${video.search.backfill-terms:false}")
+    private boolean backfillTerms;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillTerms) {
+            return;
+        }
+        log.info("🚀Backfilling video search terms");
+        Query videosWithoutTerms = Query.query(Criteria.where("searchTerms").exists(false));
+        videosWithoutTerms.fields().include("title").include("tags");
+        String videoCollection = mongoTemplate.getCollectionName(Video.class);
+        BulkOperations bulkOperations = null;
+        int pending = 0;
+        int backfilled = 0;
+        try (Stream<Document> videos = mongoTemplate.stream(videosWithoutTerms, Document.class, videoCollection)) {
+            for (Document video : (Iterable<Document>) videos::iterator) {
+                if (bulkOperations == null) {
+                    bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class);
+                }
+                List<String> tags = video.getList("tags", String.class);
+                bulkOperations.updateOne(Query.query(Criteria.where("_id").is(video.get("_id"))),
+                        new Update().set("searchTerms", VideoService.searchTermsFor(video.getString("title"),
+                                tags == null ? null : new HashSet<>(tags))));
+                if (++pending == BATCH_SIZE) {
+                    bulkOperations.execute();
+                    backfilled += pending;
+                    bulkOperations = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulkOperations.execute();
+            backfilled += pending;
+        }
+        log.info("✅Backfilled search terms for {} videos", backfilled);
+    }
+}
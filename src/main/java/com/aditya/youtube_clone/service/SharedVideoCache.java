@@ -0,0 +1,27 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+
+import java.util.Optional;
+
+/**
+ * Second cache tier shared by every instance (Redis or similar in production). Implementations store
+ * serialized copies, so nothing handed out can be mutated behind the cache's back.
+ */
+public interface SharedVideoCache {
+
+    Optional<VideoDTO> get(String videoId);
+
+    /**
+     * Changes every time the entry is evicted. A load reads it before going to Mongo and hands it to put.
+     */
+    long generation(String videoId);
+
+    /**
+     * Stores the entry unless it was evicted after the generation was read, so a load that raced a writer
+     * cannot put back what it read before the write.
+     */
+    void put(String videoId, VideoDTO videoDTO, long generation);
+
+    void evict(String videoId);
+}
@@ -0,0 +1,66 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Deletes objects the app no longer references as background jobs, so a slow or unavailable S3 never holds up
+ * the request that made them unreachable and a failed delete is retried instead of leaking the object.
+ */
+@Service
+@RequiredArgsConstructor
+public class StorageCleanupService implements JobHandler {
+
+    static final String JOB_TYPE = "storage-cleanup";
+
+    private final JobQueue jobQueue;
+    private final S3Service s3Service;
+
+    @Value("${storage.cleanup.max-concurrent-jobs:8}")
+    private int maxConcurrentJobs;
+    @Value("${storage.cleanup.max-attempts:10}")
+    private int maxAttempts;
+
+    public void deleteLater(Collection<String> fileUrls) {
+        for (String fileUrl : fileUrls) {
+            jobQueue.enqueue(JOB_TYPE, UUID.randomUUID().toString(), Map.of("fileUrl", fileUrl));
+        }
+    }
+
+    public void deleteFolderLater(String prefix) {
+        jobQueue.enqueue(JOB_TYPE, UUID.randomUUID().toString(), Map.of("prefix", prefix));
+    }
+
+    @Override
+    public String type() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int concurrency() {
+        return maxConcurrentJobs;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public void handle(Job job, IntConsumer progress) throws Exception {
+        // Deleting a key that is already gone succeeds, so a repeated job is harmless
+        String prefix = job.getPayload().get("prefix");
+        if (prefix != null) {
+            s3Service.deleteFolder(prefix);
+        } else {
+            s3Service.deleteFile(job.getPayload().get("fileUrl")).get();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Subscription;
+import com.aditya.youtube_clone.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Subscriptions as one edge document per (subscriber, creator) instead of sets embedded in both users.
+ * Creators with at least feed.fan-out.max-subscribers subscribers switch to pull mode: their edges are
+ * flagged and their uploads are read at feed time rather than written into millions of feeds. Flagging the
+ * edges that predate the switch runs as a "pull-switch" job keyed by creator, since fan-out already skips the
+ * creator and an edge left unflagged would get neither.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubscriptionService implements JobHandler {
+
+    static final String JOB_TYPE = "pull-switch";
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserService userService;
+    private final JobQueue jobQueue;
+
+    @Value("${feed.fan-out.max-subscribers:10000}")
+    private long maxFanOutSubscribers;
+    @Value("${feed.pull-switch.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+    @Value("${feed.pull-switch.max-attempts:10}")
+    private int maxAttempts;
+
+    public void subscribe(String creatorId) {
+        String subscriberId = userService.getCurrentUserId();
+        if (subscriberId.equals(creatorId)) {
+            throw new IllegalArgumentException("Cannot subscribe to yourself");
+        }
+        if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(creatorId)), User.class)) {
+            throw new IllegalArgumentException("Cannot find user by ID: " + creatorId);
+        }
+        try {
+            mongoTemplate.insert(new Subscription(null, subscriberId, creatorId, false, Instant.now()));
+        } catch (DuplicateKeyException duplicateKeyException) {
+            // Already subscribed
+            return;
+        }
+        // Counted after the edge exists, so the switch to pull mode below sees every earlier edge
+        long subscribers = updateSubscriberCount(creatorId, 1);
+        if (subscribers >= maxFanOutSubscribers) {
+            mongoTemplate.updateFirst(edgeQuery(subscriberId, creatorId), new Update().set("pull", true),
+                    Subscription.class);
+        }
+        if (subscribers == maxFanOutSubscribers) {
+            jobQueue.enqueue(JOB_TYPE, creatorId, Map.of());
+        }
+        log.info("✅User {} subscribed to {}", subscriberId, creatorId);
+    }
+
+    public void unsubscribe(String creatorId) {
+        String subscriberId = userService.getCurrentUserId();
+        if (mongoTemplate.findAndRemove(edgeQuery(subscriberId, creatorId), Subscription.class) == null) {
+            return;
+        }
+        updateSubscriberCount(creatorId, -1);
+        // Pull-mode creators stay in pull mode, dropping back below the threshold does not unflag the edges
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(subscriberId).and("creatorId").is(creatorId)),
+                FeedEntry.class);
+        log.info("✅User {} unsubscribed from {}", subscriberId, creatorId);
+    }
+
+    public List<String> getSubscriptions(String afterCreatorId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Criteria criteria = Criteria.where("subscriberId").is(userService.getCurrentUserId());
+        if (afterCreatorId != null) {
+            criteria = criteria.and("creatorId").gt(afterCreatorId);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "creatorId")).limit(size);
+        query.fields().include("creatorId");
+        return mongoTemplate.find(query, Subscription.class).stream().map(Subscription::getCreatorId).toList();
+    }
+
+    public boolean isPullCreator(String creatorId) {
+        Query query = Query.query(Criteria.where("id").is(creatorId));
+        query.fields().include("subscriberCount");
+        User creator = mongoTemplate.findOne(query, User.class);
+        return creator != null && creator.getSubscriberCount() >= maxFanOutSubscribers;
+    }
+
+    /**
+     * A page of a creator's subscribers in id order, starting after the given subscriber.
+     */
+    public List<String> getSubscriberIds(String creatorId, String afterSubscriberId, int size) {
+        Criteria criteria = Criteria.where("creatorId").is(creatorId);
+        if (afterSubscriberId != null) {
+            criteria = criteria.and("subscriberId").gt(afterSubscriberId);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "subscriberId")).limit(size);
+        query.fields().include("subscriberId").exclude("id");
+        return mongoTemplate.find(query, Subscription.class).stream().map(Subscription::getSubscriberId).toList();
+    }
+
+    public List<String> getPullCreatorIds(String subscriberId) {
+        Query query = Query.query(Criteria.where("subscriberId").is(subscriberId).and("pull").is(true));
+        query.fields().include("creatorId").exclude("id");
+        return mongoTemplate.find(query, Subscription.class).stream().map(Subscription::getCreatorId).toList();
+    }
+
+    private long updateSubscriberCount(String creatorId, int delta) {
+        Query query = Query.query(Criteria.where("id").is(creatorId));
+        query.fields().include("subscriberCount");
+        User creator = mongoTemplate.findAndModify(query, new Update().inc("subscriberCount", delta),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        return creator == null ? 0 : creator.getSubscriberCount();
+    }
+
+    @Override
+    public String type() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int concurrency() {
+        return maxConcurrentJobs;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public void handle(Job job, IntConsumer progress) {
+        switchToPull(job.getKey());
+    }
+
+    void switchToPull(String creatorId) {
+        // Only ever flips pull from false to true, so a retried or repeated run just flags what is left
+        long flagged = mongoTemplate.updateMulti(Query.query(Criteria.where("creatorId").is(creatorId)
+                        .and("pull").is(false)), new Update().set("pull", true), Subscription.class)
+                .getModifiedCount();
+        log.info("✅Creator {} switched to pull mode, flagged {} subscriptions", creatorId, flagged);
+    }
+
+    private Query edgeQuery(String subscriberId, String creatorId) {
+        return Query.query(Criteria.where("subscriberId").is(subscriberId).and("creatorId").is(creatorId));
+    }
+}
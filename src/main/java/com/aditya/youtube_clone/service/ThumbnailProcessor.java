@@ -0,0 +1,207 @@
+package com.aditya.youtube_clone.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Turns an uploaded thumbnail into JPEG variants of fixed widths: the image is decoded once, every width is
+ * resized and encoded in parallel on the thumbnail pool, and the variants are uploaded concurrently.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailProcessor {
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final String FILE_EXTENSION = "jpg";
+
+    private final S3Service s3Service;
+    private final ExecutorService thumbnailExecutor;
+
+    @Value("${video.thumbnails.widths:120,320,720}")
+    private List<Integer> widths;
+    @Value("${video.thumbnails.jpeg-quality:0.8}")
+    private float jpegQuality;
+    @Value("${video.thumbnails.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    /**
+     * Reads just the image header, so an upload that could never be processed is turned away up front.
+     */
+    public void validate(MultipartFile file) {
+        try (InputStream input = file.getInputStream()) {
+            read(input, (reader, sourceWidth) -> null);
+        } catch (IOException ioException) {
+            log.error("❌Failed to read thumbnail: {}", ioException.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The thumbnail image could not be read");
+        }
+    }
+
+    /**
+     * Completes with the variant URLs keyed by their width in pixels, narrowest first.
+     */
+    public CompletableFuture<Map<String, String>> process(Path source) {
+        return CompletableFuture.supplyAsync(() -> decode(source), thumbnailExecutor).thenCompose(this::resizeAndUpload);
+    }
+
+    private CompletableFuture<Map<String, String>> resizeAndUpload(BufferedImage source) {
+        Map<Integer, CompletableFuture<String>> uploads = new TreeMap<>();
+        for (int width : widthsFor(source.getWidth())) {
+            uploads.put(width, CompletableFuture
+                    .supplyAsync(() -> encodeJpeg(resize(source, width), jpegQuality), thumbnailExecutor)
+                    .thenCompose(jpeg -> s3Service.uploadBytes(jpeg, CONTENT_TYPE, FILE_EXTENSION)));
+        }
+        return CompletableFuture.allOf(uploads.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, exception) -> {
+                    if (exception != null) {
+                        log.error("❌Failed to process thumbnail: {}", exception.getMessage());
+                        deleteUploaded(uploads.values());
+                        throw exception instanceof CompletionException completionException
+                                ? completionException : new CompletionException(exception);
+                    }
+                    Map<String, String> variants = new LinkedHashMap<>();
+                    uploads.forEach((width, upload) -> variants.put(String.valueOf(width), upload.join()));
+                    log.info("✅Uploaded {} thumbnail variants", variants.size());
+                    return variants;
+                });
+    }
+
+    List<Integer> widthsFor(int sourceWidth) {
+        // Never upscale: a small source is stored once at its own width
+        List<Integer> fitting = widths.stream().filter(width -> width <= sourceWidth).sorted().toList();
+        return fitting.isEmpty() ? List.of(sourceWidth) : fitting;
+    }
+
+    private BufferedImage decode(Path source) {
+        try (InputStream input = Files.newInputStream(source)) {
+            return read(input, (reader, sourceWidth) -> {
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                // Huge sources are subsampled while decoding, keeping at least twice the widest variant
+                int subsampling = Math.max(1, sourceWidth / (2 * widthsFor(sourceWidth).getLast()));
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, readParam);
+            });
+        } catch (IOException ioException) {
+            log.error("❌Failed to decode thumbnail: {}", ioException.getMessage());
+            throw new CompletionException(ioException);
+        }
+    }
+
+    private <T> T read(InputStream source, ImageReaderAction<T> action) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported thumbnail image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                // The header is read before any pixels, so an oversized image is turned away without decoding it
+                if ((long) sourceWidth * reader.getHeight(0) > maxSourcePixels) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Thumbnail exceeds the maximum of " + maxSourcePixels + " pixels");
+                }
+                return action.apply(reader, sourceWidth);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static BufferedImage resize(BufferedImage source, int targetWidth) {
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        // Halving steps keep bilinear sampling from skipping source pixels on large reductions
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG has no alpha, transparent areas are flattened onto white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam writeParam = writer.getDefaultWriteParam();
+        writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        writeParam.setCompressionQuality(quality);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(jpeg)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } catch (IOException ioException) {
+            throw new CompletionException(ioException);
+        } finally {
+            writer.dispose();
+        }
+        return jpeg.toByteArray();
+    }
+
+    private void deleteUploaded(Iterable<CompletableFuture<String>> uploads) {
+        for (CompletableFuture<String> upload : uploads) {
+            if (!upload.isDone() || upload.isCompletedExceptionally()) {
+                continue;
+            }
+            try {
+                s3Service.deleteFile(upload.join()).exceptionally(exception -> {
+                    log.warn("⚠️Failed to delete orphaned thumbnail variant: {}", exception.getMessage());
+                    return null;
+                });
+            } catch (ResponseStatusException exception) {
+                log.warn("⚠️Failed to delete orphaned thumbnail variant: {}", exception.getMessage());
+            }
+        }
+    }
+
+    private interface ImageReaderAction<T> {
+        T apply(ImageReader reader, int sourceWidth) throws IOException;
+    }
+}
@@ -0,0 +1,111 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Resizes uploaded thumbnails as "thumbnail-variants" jobs keyed by the uploaded image URL. The video shows
+ * the image as uploaded until its job swaps in the variants; a job whose image has been replaced in the
+ * meantime throws its work away.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService implements JobHandler {
+
+    static final String JOB_TYPE = "thumbnail-variants";
+
+    private final JobQueue jobQueue;
+    private final ThumbnailProcessor thumbnailProcessor;
+    private final S3Service s3Service;
+    private final MongoTemplate mongoTemplate;
+    private final VideoDetailsCache videoDetailsCache;
+    private final StorageCleanupService storageCleanupService;
+
+    // Each job holds a decoded image in memory, so this caps the heap the resizing can take
+    @Value("${video.thumbnails.max-concurrent-jobs:8}")
+    private int maxConcurrentJobs;
+    @Value("${video.thumbnails.max-attempts:5}")
+    private int maxAttempts;
+
+    public void validate(MultipartFile file) {
+        thumbnailProcessor.validate(file);
+    }
+
+    public void enqueueVariants(String videoId, String thumbnailUrl) {
+        jobQueue.enqueue(JOB_TYPE, thumbnailUrl, Map.of("videoId", videoId));
+    }
+
+    @Override
+    public String type() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int concurrency() {
+        return maxConcurrentJobs;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public void handle(Job job, IntConsumer progress) throws Exception {
+        String videoId = job.getPayload().get("videoId");
+        String sourceUrl = job.getKey();
+        if (!mongoTemplate.exists(currentThumbnail(videoId, sourceUrl), Video.class)) {
+            log.info("👍Thumbnail {} of video ID: {} was replaced before it was resized", sourceUrl, videoId);
+            return;
+        }
+        Path source = Files.createTempFile("thumbnail-", null);
+        try {
+            s3Service.downloadFile(sourceUrl, source);
+            publish(videoId, sourceUrl, thumbnailProcessor.process(source).get());
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private void publish(String videoId, String sourceUrl, Map<String, String> variants) {
+        // Clients that only know thumbnailUrl get the widest variant
+        String thumbnailUrl = variants.entrySet().stream()
+                .max(Comparator.comparingInt(variant -> Integer.parseInt(variant.getKey())))
+                .map(Map.Entry::getValue)
+                .orElseThrow();
+        UpdateResult result = mongoTemplate.updateFirst(currentThumbnail(videoId, sourceUrl), new Update()
+                .set("thumbnailUrl", thumbnailUrl)
+                .set("thumbnailVariants", variants)
+                .inc("version", 1), Video.class);
+        videoDetailsCache.evict(videoId);
+        if (result.getMatchedCount() == 0) {
+            // Replaced or deleted while it was being resized
+            storageCleanupService.deleteLater(variants.values());
+            return;
+        }
+        storageCleanupService.deleteLater(List.of(sourceUrl));
+        log.info("✅Published {} thumbnail variants for video ID: {}", variants.size(), videoId);
+    }
+
+    private static Query currentThumbnail(String videoId, String thumbnailUrl) {
+        return Query.query(Criteria.where("_id").is(videoId).and("thumbnailUrl").is(thumbnailUrl));
+    }
+}
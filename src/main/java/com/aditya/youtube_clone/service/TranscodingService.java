@@ -0,0 +1,117 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.ProcessingStatusDTO;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.ProcessingStatus;
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * HLS transcoding as "transcode" jobs keyed by video id. The job stays in the queue once it has succeeded,
+ * it is what the processing status endpoint reports.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscodingService implements JobHandler {
+
+    static final String JOB_TYPE = "transcode";
+
+    private final JobQueue jobQueue;
+    private final MongoTemplate mongoTemplate;
+    private final HlsTranscoder hlsTranscoder;
+    private final VideoDetailsCache videoDetailsCache;
+    private final StorageCleanupService storageCleanupService;
+
+    @Value("${video.transcoding.worker-enabled:true}")
+    private boolean workerEnabled;
+    @Value("${video.transcoding.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+    @Value("${video.transcoding.max-attempts:5}")
+    private int maxAttempts;
+
+    public void enqueue(String videoId, String sourceUrl) {
+        jobQueue.enqueue(JOB_TYPE, videoId, Map.of("sourceUrl", sourceUrl));
+    }
+
+    public ProcessingStatusDTO getStatus(String videoId) {
+        Job job = jobQueue.find(JOB_TYPE, videoId);
+        if (job == null) {
+            throw new IllegalArgumentException("No transcoding job for video ID: " + videoId);
+        }
+        return new ProcessingStatusDTO(videoId, job.getStatus(), job.getProgress(), job.getAttempts());
+    }
+
+    public void deleteForVideo(String videoId) {
+        // A job still running finds the video gone when it completes and removes its own output
+        jobQueue.remove(JOB_TYPE, videoId);
+        storageCleanupService.deleteFolderLater(HlsTranscoder.outputPrefix(videoId));
+    }
+
+    @Override
+    public String type() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int concurrency() {
+        // Nodes without ffmpeg leave transcoding to the others
+        return workerEnabled ? maxConcurrentJobs : 0;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public boolean keepSucceeded() {
+        return true;
+    }
+
+    @Override
+    public void handle(Job job, IntConsumer progress) throws Exception {
+        String videoId = job.getKey();
+        updateVideo(videoId, new Update().set("processingStatus", ProcessingStatus.PROCESSING));
+        String hlsUrl = hlsTranscoder.transcode(videoId, job.getAttempts(), job.getPayload().get("sourceUrl"),
+                progress);
+        boolean videoExists = updateVideo(videoId, new Update()
+                .set("processingStatus", ProcessingStatus.READY)
+                .set("hlsUrl", hlsUrl));
+        if (!videoExists) {
+            // Deleted while it was being transcoded, nothing would ever clean up the renditions
+            storageCleanupService.deleteFolderLater(HlsTranscoder.outputPrefix(videoId));
+            return;
+        }
+        // Whatever earlier attempts uploaded before they failed is no longer referenced by any playlist
+        for (int attempt = 1; attempt < job.getAttempts(); attempt++) {
+            storageCleanupService.deleteFolderLater(HlsTranscoder.outputPrefix(videoId, attempt));
+        }
+        log.info("✅Transcoded video ID: {}", videoId);
+    }
+
+    @Override
+    public void onDeadLetter(Job job) {
+        updateVideo(job.getKey(), new Update().set("processingStatus", ProcessingStatus.FAILED));
+        // No attempt succeeded, so none of their partial uploads is referenced by a playlist
+        storageCleanupService.deleteFolderLater(HlsTranscoder.outputPrefix(job.getKey()));
+    }
+
+    private boolean updateVideo(String videoId, Update update) {
+        UpdateResult result = mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(videoId)),
+                update.inc("version", 1), Video.class);
+        videoDetailsCache.evict(videoId);
+        return result.getMatchedCount() > 0;
+    }
+}
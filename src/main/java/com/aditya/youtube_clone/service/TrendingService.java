@@ -0,0 +1,212 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.TrendingScore;
+import com.aditya.youtube_clone.model.TrendingSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Time-decayed popularity of videos, fed by like and view events. Scores use forward decay: an event at time t
+ * adds weight * 2^((t - landmark) / halfLife), so every score is scaled by the same factor and the ranking only
+ * changes when events arrive, never just because time passes. The landmark is moved forward now and then to
+ * keep the numbers finite. The top K is rebuilt on every refresh and served from an immutable list, and the
+ * strongest scores are snapshotted to Mongo so a restart does not begin with an empty ranking. Every node saves
+ * its own snapshot under its node id, and a restart takes the highest score of each video across all of them,
+ * which stays stable however often nodes restore each other's scores.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingService {
+
+    private static final String SNAPSHOT_ID_PREFIX = "trending:";
+    // 2^(30 days / 6h) is about 1e36, far from the double limit but worth resetting
+    private static final Duration REBASE_AFTER = Duration.ofDays(30);
+    private static final Comparator<Map.Entry<String, Double>> BY_SCORE = Map.Entry.comparingByValue();
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${video.trending.half-life:6h}")
+    private Duration halfLife;
+    @Value("${video.trending.like-weight:5}")
+    private double likeWeight;
+    @Value("${video.trending.view-weight:1}")
+    private double viewWeight;
+    @Value("${video.trending.top-k:100}")
+    private int topK;
+    @Value("${video.trending.snapshot-size:10000}")
+    private int snapshotSize;
+    @Value("${video.trending.min-score:0.01}")
+    private double minScore;
+    @Value("${video.trending.restore-on-startup:true}")
+    private boolean restoreOnStartup;
+    // The hostname unless configured, either way the same after a restart
+    @Value("${app.node-id:#{T(java.net.InetAddress).getLocalHost().getHostName()}}")
+    private String nodeId;
+
+    private final ConcurrentHashMap<String, DoubleAdder> scores = new ConcurrentHashMap<>();
+    // Events share the read lock, only moving the landmark takes the write lock
+    private final ReentrantReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+    private volatile long landmarkMillis = System.currentTimeMillis();
+    private volatile List<String> topVideoIds = List.of();
+
+    public void recordLike(String videoId) {
+        record(videoId, likeWeight, System.currentTimeMillis());
+    }
+
+    public void recordView(String videoId) {
+        record(videoId, viewWeight, System.currentTimeMillis());
+    }
+
+    public List<String> getTopVideoIds() {
+        return topVideoIds;
+    }
+
+    void record(String videoId, double weight, long nowMillis) {
+        landmarkLock.readLock().lock();
+        try {
+            addForwardScore(videoId, weight * growth(nowMillis - landmarkMillis));
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The score as of now, in event-weight units: a like that just happened is worth likeWeight.
+     */
+    double currentScore(String videoId, long nowMillis) {
+        DoubleAdder score = scores.get(videoId);
+        return score == null ? 0 : score.sum() / growth(nowMillis - landmarkMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${video.trending.refresh-interval-ms:5000}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    void refresh(long nowMillis) {
+        if (nowMillis - landmarkMillis > REBASE_AFTER.toMillis()) {
+            rebase(nowMillis);
+        }
+        // Anything that has decayed below the floor is dropped, so the map only holds videos with recent activity
+        double floor = minScore * growth(nowMillis - landmarkMillis);
+        scores.forEach((videoId, score) -> {
+            if (score.sum() < floor) {
+                scores.remove(videoId, score);
+            }
+        });
+        topVideoIds = strongest(topK).stream().map(Map.Entry::getKey).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${video.trending.snapshot-interval-ms:60000}")
+    public void saveSnapshot() {
+        if (scores.isEmpty()) {
+            return;
+        }
+        long landmark = landmarkMillis;
+        List<TrendingScore> snapshotScores = strongest(snapshotSize).stream()
+                .map(entry -> new TrendingScore(entry.getKey(), entry.getValue()))
+                .toList();
+        try {
+            mongoTemplate.save(new TrendingSnapshot(SNAPSHOT_ID_PREFIX + nodeId, landmark, snapshotScores, Instant.now()));
+            log.info("✅Saved trending snapshot of {} videos", snapshotScores.size());
+        } catch (RuntimeException exception) {
+            log.error("❌Failed to save trending snapshot: {}", exception.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreSnapshotInBackground() {
+        if (restoreOnStartup) {
+            Thread.ofVirtual().name("trending-snapshot-restore").start(this::restoreSnapshot);
+        }
+    }
+
+    void restoreSnapshot() {
+        List<TrendingSnapshot> snapshots;
+        try {
+            snapshots = mongoTemplate.findAll(TrendingSnapshot.class);
+        } catch (RuntimeException exception) {
+            log.error("❌Failed to load trending snapshots: {}", exception.getMessage());
+            return;
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        // Events recorded since startup are already in the map, snapshot scores are added on top of them
+        Map<String, Double> restored = new HashMap<>();
+        landmarkLock.readLock().lock();
+        try {
+            for (TrendingSnapshot snapshot : snapshots) {
+                double scale = growth(snapshot.getLandmarkMillis() - landmarkMillis);
+                snapshot.getScores().forEach(score ->
+                        restored.merge(score.getVideoId(), score.getScore() * scale, Math::max));
+            }
+            restored.forEach(this::addForwardScore);
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+        refresh();
+        log.info("♻️Restored trending scores for {} videos from {} node snapshots", restored.size(), snapshots.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saveSnapshot();
+    }
+
+    private void addForwardScore(String videoId, double forwardScore) {
+        scores.computeIfAbsent(videoId, id -> new DoubleAdder()).add(forwardScore);
+    }
+
+    private void rebase(long nowMillis) {
+        landmarkLock.writeLock().lock();
+        try {
+            double scale = growth(landmarkMillis - nowMillis);
+            scores.values().forEach(score -> {
+                double rebased = score.sumThenReset() * scale;
+                score.add(rebased);
+            });
+            landmarkMillis = nowMillis;
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<String, Double>> strongest(int limit) {
+        // Min-heap of the best `limit` scores seen so far, the weakest of them is evicted first
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(limit + 1, BY_SCORE);
+        scores.forEach((videoId, score) -> {
+            heap.offer(Map.entry(videoId, score.sum()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        });
+        List<Map.Entry<String, Double>> strongest = new ArrayList<>(heap);
+        strongest.sort(BY_SCORE.reversed());
+        return strongest;
+    }
+
+    private double growth(long elapsedMillis) {
+        return Math.pow(2, (double) elapsedMillis / halfLife.toMillis());
+    }
+}
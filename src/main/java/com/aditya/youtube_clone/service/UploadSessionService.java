@@ -0,0 +1,325 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.CreateUploadSessionDTO;
+import com.aditya.youtube_clone.dto.DirectUploadDTO;
+import com.aditya.youtube_clone.dto.UploadSessionDTO;
+import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.UploadMode;
+import com.aditya.youtube_clone.model.UploadSession;
+import com.aditya.youtube_clone.model.UploadSessionStatus;
+import com.aditya.youtube_clone.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+
+    private final S3Service s3Service;
+    private final VideoService videoService;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final StorageCleanupService storageCleanupService;
+    private final UserService userService;
+
+    @Value("${upload.session.chunk-size:8MB}")
+    private DataSize chunkSize;
+    @Value("${spring.servlet.multipart.max-file-size:500MB}")
+    private DataSize maxUploadSize;
+    @Value("${upload.session.ttl:24h}")
+    private Duration sessionTtl;
+    @Value("${upload.session.expiry-batch-size:100}")
+    private int expiryBatchSize;
+    @Value("${upload.session.expiry-enabled:true}")
+    private boolean expiryEnabled;
+
+    public UploadSessionDTO createSession(CreateUploadSessionDTO createUploadSessionDTO) {
+        return toUploadSessionDTO(openSession(createUploadSessionDTO, UploadMode.PROXIED));
+    }
+
+    public DirectUploadDTO createDirectSession(CreateUploadSessionDTO createUploadSessionDTO) {
+        String contentType = createUploadSessionDTO.getContentType();
+        if (contentType == null || !contentType.startsWith("video/")) {
+            log.error("❌Failed to create direct upload: unsupported content type {}", contentType);
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Only video content types can be uploaded");
+        }
+        UploadSession uploadSession = openSession(createUploadSessionDTO, UploadMode.DIRECT);
+        List<String> uploadUrls = IntStream.rangeClosed(1, uploadSession.getTotalParts())
+                .mapToObj(partNumber -> s3Service.presignUploadPart(uploadSession.getFileKey(),
+                        uploadSession.getUploadId(), partNumber))
+                .toList();
+        return new DirectUploadDTO(uploadSession.getId(), uploadSession.getTotalSize(), uploadSession.getChunkSize(),
+                uploadUrls, s3Service.getPresignExpiry());
+    }
+
+    public String presignChunk(String sessionId, long offset) {
+        UploadSession uploadSession = getOwnSession(sessionId);
+        requireInProgress(uploadSession);
+        if (uploadSession.getUploadMode() != UploadMode.DIRECT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Upload session " + sessionId + " does not accept direct uploads");
+        }
+        int partNumber = toPartNumber(uploadSession, offset);
+        return s3Service.presignUploadPart(uploadSession.getFileKey(), uploadSession.getUploadId(), partNumber);
+    }
+
+    private UploadSession openSession(CreateUploadSessionDTO createUploadSessionDTO, UploadMode uploadMode) {
+        long totalSize = createUploadSessionDTO.getTotalSize();
+        if (totalSize <= 0) {
+            log.error("❌Failed to create upload session: File is empty");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded file is empty");
+        }
+        if (totalSize > maxUploadSize.toBytes()) {
+            log.error("❌Failed to create upload session: {} bytes exceeds the maximum size", totalSize);
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Uploaded file exceeds the maximum size of " + maxUploadSize);
+        }
+        log.info("🚀Creating {} upload session for file: {}", uploadMode, createUploadSessionDTO.getFileName());
+        String fileKey = s3Service.generateFileKey(
+                StringUtils.getFilenameExtension(createUploadSessionDTO.getFileName()));
+        String uploadId = s3Service.createMultipartUpload(fileKey, createUploadSessionDTO.getContentType());
+
+        UploadSession uploadSession = new UploadSession();
+        uploadSession.setUserId(userService.getCurrentUserId());
+        uploadSession.setFileKey(fileKey);
+        uploadSession.setUploadId(uploadId);
+        uploadSession.setFileName(createUploadSessionDTO.getFileName());
+        uploadSession.setContentType(createUploadSessionDTO.getContentType());
+        uploadSession.setUploadMode(uploadMode);
+        uploadSession.setTotalSize(totalSize);
+        uploadSession.setChunkSize(chunkSize.toBytes());
+        Instant now = Instant.now();
+        uploadSession.setCreatedAt(now);
+        uploadSession.setExpireAt(now.plus(sessionTtl));
+        UploadSession createdSession = uploadSessionRepository.save(uploadSession);
+        log.info("✅Upload session {} created", createdSession.getId());
+        return createdSession;
+    }
+
+    public UploadSessionDTO getSessionDetails(String sessionId) {
+        return toUploadSessionDTO(getOwnSession(sessionId));
+    }
+
+    public UploadSessionDTO uploadChunk(String sessionId, long offset, long contentLength, InputStream inputStream) {
+        UploadSession uploadSession = getOwnSession(sessionId);
+        requireInProgress(uploadSession);
+        int partNumber = toPartNumber(uploadSession, offset);
+        long expectedLength = Math.min(uploadSession.getChunkSize(), uploadSession.getTotalSize() - offset);
+        if (contentLength != expectedLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk at offset " + offset + " must be " + expectedLength + " bytes");
+        }
+        log.info("🚀Uploading chunk {} of {} for upload session {}", partNumber,
+                uploadSession.getTotalParts(), sessionId);
+        CompletedPart completedPart = s3Service.uploadPart(uploadSession.getFileKey(), uploadSession.getUploadId(),
+                partNumber, RequestBody.fromInputStream(inputStream, expectedLength));
+
+        // Targeted $set so chunks uploaded in parallel don't overwrite each other's ETags
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(sessionId)),
+                new Update().set("parts." + partNumber, completedPart.eTag()),
+                UploadSession.class);
+        uploadSession.getParts().put(String.valueOf(partNumber), completedPart.eTag());
+        log.info("✅Chunk {} stored for upload session {}", partNumber, sessionId);
+        return toUploadSessionDTO(uploadSession);
+    }
+
+    public VideoUploadResponseDTO completeSession(String sessionId) {
+        UploadSession uploadSession = getOwnSession(sessionId);
+        requireInProgress(uploadSession);
+        List<CompletedPart> completedParts = getCompletedParts(uploadSession);
+        if (completedParts.size() != uploadSession.getTotalParts()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload session " + sessionId + " has "
+                    + completedParts.size() + " of " + uploadSession.getTotalParts() + " chunks");
+        }
+        // Claim the session so two concurrent finalize calls can't both complete the upload
+        if (!transitionStatus(sessionId, UploadSessionStatus.IN_PROGRESS, UploadSessionStatus.FINALIZING)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload session " + sessionId + " is already being finalized");
+        }
+        log.info("🚀Completing upload session {}", sessionId);
+        try {
+            s3Service.completeMultipartUpload(uploadSession.getFileKey(), uploadSession.getUploadId(), completedParts);
+        } catch (Exception exception) {
+            log.error("❌Failed to complete upload session {}: {}", sessionId, exception.getMessage());
+            transitionStatus(sessionId, UploadSessionStatus.FINALIZING, UploadSessionStatus.IN_PROGRESS);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An error occurred while completing the upload.");
+        }
+        String fileUrl = s3Service.getFileUrl(uploadSession.getFileKey());
+        if (uploadSession.getUploadMode() == UploadMode.DIRECT) {
+            verifyUploadedObject(uploadSession, fileUrl);
+        }
+        VideoUploadResponseDTO uploadResponse;
+        try {
+            uploadResponse = videoService.createVideo(fileUrl);
+        } catch (RuntimeException exception) {
+            log.error("❌Failed to create video for upload session {}: {}", sessionId, exception.getMessage());
+            abandonCompletedUpload(sessionId, fileUrl);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An error occurred while completing the upload.");
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(sessionId)),
+                new Update().set("status", UploadSessionStatus.COMPLETED).set("videoId", uploadResponse.getVideoId()),
+                UploadSession.class);
+        log.info("✅Upload session {} completed as video {}", sessionId, uploadResponse.getVideoId());
+        return uploadResponse;
+    }
+
+    public void abortSession(String sessionId) {
+        UploadSession uploadSession = getOwnSession(sessionId);
+        if (!transitionStatus(sessionId, UploadSessionStatus.IN_PROGRESS, UploadSessionStatus.ABORTED)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload session " + sessionId + " is " + uploadSession.getStatus());
+        }
+        s3Service.abortMultipartUpload(uploadSession.getFileKey(), uploadSession.getUploadId());
+        log.info("✅Upload session {} aborted", sessionId);
+    }
+
+    /**
+     * Aborts sessions left in progress past their expiry, so abandoned uploads don't keep their parts in S3.
+     */
+    @Scheduled(fixedDelayString = "${upload.session.expiry-check-interval-ms:600000}")
+    public void abortExpiredSessions() {
+        if (!expiryEnabled) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("status").is(UploadSessionStatus.IN_PROGRESS)
+                .and("expireAt").lt(Instant.now()))
+                .limit(expiryBatchSize);
+        int aborted = 0;
+        for (UploadSession expired : mongoTemplate.find(query, UploadSession.class)) {
+            // Lost to a finalize or abort of the uploader
+            if (!transitionStatus(expired.getId(), UploadSessionStatus.IN_PROGRESS, UploadSessionStatus.ABORTED)) {
+                continue;
+            }
+            try {
+                s3Service.abortMultipartUpload(expired.getFileKey(), expired.getUploadId());
+                aborted++;
+            } catch (RuntimeException exception) {
+                log.error("❌Failed to abort multipart upload of expired session {}: {}", expired.getId(),
+                        exception.getMessage());
+            }
+        }
+        if (aborted > 0) {
+            log.info("✅Aborted {} expired upload sessions", aborted);
+        }
+    }
+
+    UploadSession getSessionById(String sessionId) {
+        return uploadSessionRepository.findById(sessionId).orElseThrow(() ->
+                new IllegalArgumentException("Cannot find upload session by ID: " + sessionId)
+        );
+    }
+
+    private UploadSession getOwnSession(String sessionId) {
+        UploadSession uploadSession = getSessionById(sessionId);
+        if (!userService.getCurrentUserId().equals(uploadSession.getUserId())) {
+            log.error("❌Upload session {} was not created by the current user", sessionId);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Upload session " + sessionId + " belongs to another user");
+        }
+        return uploadSession;
+    }
+
+    private List<CompletedPart> getCompletedParts(UploadSession uploadSession) {
+        if (uploadSession.getUploadMode() == UploadMode.DIRECT) {
+            // The bytes never passed through us, so ask S3 which parts actually arrived
+            return s3Service.listUploadedParts(uploadSession.getFileKey(), uploadSession.getUploadId());
+        }
+        return uploadSession.getParts().entrySet().stream()
+                .map(part -> CompletedPart.builder()
+                        .partNumber(Integer.parseInt(part.getKey()))
+                        .eTag(part.getValue())
+                        .build())
+                .toList();
+    }
+
+    private void verifyUploadedObject(UploadSession uploadSession, String fileUrl) {
+        HeadObjectResponse headObjectResponse;
+        try {
+            headObjectResponse = s3Service.headObject(uploadSession.getFileKey());
+        } catch (RuntimeException exception) {
+            log.error("❌Failed to verify the uploaded object for session {}: {}", uploadSession.getId(),
+                    exception.getMessage());
+            abandonCompletedUpload(uploadSession.getId(), fileUrl);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An error occurred while completing the upload.");
+        }
+        if (headObjectResponse.contentLength() != uploadSession.getTotalSize()
+                || !uploadSession.getContentType().equals(headObjectResponse.contentType())) {
+            log.error("❌Uploaded object for session {} is {} bytes of {}, expected {} bytes of {}",
+                    uploadSession.getId(), headObjectResponse.contentLength(), headObjectResponse.contentType(),
+                    uploadSession.getTotalSize(), uploadSession.getContentType());
+            abandonCompletedUpload(uploadSession.getId(), fileUrl);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Uploaded file does not match the upload session");
+        }
+    }
+
+    // The multipart upload is gone once completed, so the session can't go back to IN_PROGRESS
+    private void abandonCompletedUpload(String sessionId, String fileUrl) {
+        transitionStatus(sessionId, UploadSessionStatus.FINALIZING, UploadSessionStatus.ABORTED);
+        storageCleanupService.deleteLater(Set.of(fileUrl));
+    }
+
+    private int toPartNumber(UploadSession uploadSession, long offset) {
+        long sessionChunkSize = uploadSession.getChunkSize();
+        if (offset < 0 || offset >= uploadSession.getTotalSize() || offset % sessionChunkSize != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk offset must be a multiple of " + sessionChunkSize + " within the file size");
+        }
+        return (int) (offset / sessionChunkSize) + 1;
+    }
+
+    private void requireInProgress(UploadSession uploadSession) {
+        if (uploadSession.getStatus() != UploadSessionStatus.IN_PROGRESS) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload session " + uploadSession.getId() + " is " + uploadSession.getStatus());
+        }
+        if (uploadSession.getExpireAt() != null && uploadSession.getExpireAt().isBefore(Instant.now())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload session " + uploadSession.getId() + " has expired");
+        }
+    }
+
+    private boolean transitionStatus(String sessionId, UploadSessionStatus from, UploadSessionStatus to) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(sessionId).and("status").is(from)),
+                new Update().set("status", to),
+                UploadSession.class).getModifiedCount() > 0;
+    }
+
+    private UploadSessionDTO toUploadSessionDTO(UploadSession uploadSession) {
+        List<Long> receivedOffsets = uploadSession.getParts().keySet().stream()
+                .map(partNumber -> (Long.parseLong(partNumber) - 1) * uploadSession.getChunkSize())
+                .sorted()
+                .toList();
+        return new UploadSessionDTO(uploadSession.getId(), uploadSession.getTotalSize(),
+                uploadSession.getChunkSize(), uploadSession.getStatus(), receivedOffsets);
+    }
+}
@@ -1,8 +1,10 @@
 package com.aditya.youtube_clone.service;
 
 import com.aditya.youtube_clone.dto.UserInfoDTO;
+import com.aditya.youtube_clone.dto.UserProfileDTO;
 import com.aditya.youtube_clone.model.User;
 import com.aditya.youtube_clone.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,7 @@ public class UserRegistrationService {
     private String userInfoEndpoint;
 
     private final UserRepository userRepository;
+    private final Cache<String, UserProfileDTO> userProfileCache;
 
     public void registerUser(String token) {
         try(HttpClient httpClient = HttpClient.newBuilder()
@@ -50,6 +53,8 @@ public class UserRegistrationService {
             user.setEmailAddress(userInfo.getEmail());
 
             userRepository.save(user);
+            // Drop any profile cached for this sub so the next request resolves the freshly saved user
+            userProfileCache.invalidate(user.getSub());
         }  catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error registering user: " + e.getMessage());
@@ -1,51 +1,128 @@
 package com.aditya.youtube_clone.service;
 
+import com.aditya.youtube_clone.dto.UserProfileDTO;
+import com.aditya.youtube_clone.model.Reaction;
 import com.aditya.youtube_clone.model.User;
+import com.aditya.youtube_clone.model.VideoReaction;
+import com.aditya.youtube_clone.repository.ReactionRepository;
 import com.aditya.youtube_clone.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final ReactionRepository reactionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CurrentUserContext currentUserContext;
+    private final Cache<String, UserProfileDTO> userProfileCache;
 
     public User getCurrentUser() {
-        Jwt jwtToken = (Jwt) SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getPrincipal();
-        String userSub = jwtToken.getClaim("sub").toString();
-        return userRepository.findBySub(userSub).orElseThrow(
+        // Looked up once per request, later calls in the same request reuse the resolved document
+        return currentUserContext.getOrLoad(() -> {
+            User user = findUserBySub(getCurrentUserSub());
+            userProfileCache.put(user.getSub(), toProfile(user));
+            return user;
+        });
+    }
+
+    /**
+     * The current user's id and profile, served from the sub cache so most authenticated calls
+     * never touch Mongo. Callers that need the full document still go through getCurrentUser.
+     */
+    public UserProfileDTO getCurrentUserProfile() {
+        return currentUserContext.getIfLoaded()
+                .map(this::toProfile)
+                .orElseGet(() -> userProfileCache.get(getCurrentUserSub(), sub -> toProfile(findUserBySub(sub))));
+    }
+
+    public String getCurrentUserId() {
+        return getCurrentUserProfile().getId();
+    }
+
+    private User findUserBySub(String sub) {
+        return userRepository.findBySub(sub).orElseThrow(
                 () -> new RuntimeException("User not found with given auth token")
         );
     }
 
-    public void addToLikedVideos(String videoId) {
-        User currentUser = getCurrentUser();
-        currentUser.addToLikedVideos(videoId);
-        userRepository.save(currentUser);
+    private UserProfileDTO toProfile(User user) {
+        return new UserProfileDTO(user.getId(), user.getSub(), user.getFirstName(), user.getLastName(),
+                user.getFullName(), user.getEmailAddress());
+    }
+
+    String getCurrentUserSub() {
+        Jwt jwtToken = (Jwt) SecurityContextHolder
+                .getContext()
+                .getAuthentication()
+                .getPrincipal();
+        return jwtToken.getClaim("sub").toString();
     }
 
-    public boolean checkUserLikedVideo(String videoId) {
-        return getCurrentUser().getLikedVideos().stream().anyMatch(v -> v.equals(videoId));
+    /**
+     * Toggles the current user's like or dislike on a video in the reaction collection. The unique
+     * (userId, videoId) index makes each step atomic, so concurrent toggles each see a distinct previous
+     * state. Toggling off sets the type to NONE instead of deleting the document, so the first-like marker
+     * survives it. Returns the reaction the user had before.
+     */
+    public VideoReaction toggleReaction(String videoId, VideoReaction reaction) {
+        String userId = getCurrentUserId();
+        while (true) {
+            try {
+                // Sets the reaction, switching from the opposite one, or inserts it if there was none
+                Reaction previous = mongoTemplate.findAndModify(
+                        reactionQuery(userId, videoId).addCriteria(Criteria.where("type").ne(reaction)),
+                        new Update().set("type", reaction).set("createdAt", Instant.now()),
+                        FindAndModifyOptions.options().upsert(true),
+                        Reaction.class);
+                return previous == null ? VideoReaction.NONE : previous.getType();
+            } catch (DuplicateKeyException duplicateKeyException) {
+                // The upsert collided with the same reaction, so this toggles it off
+            }
+            boolean removed = mongoTemplate.updateFirst(
+                    reactionQuery(userId, videoId).addCriteria(Criteria.where("type").is(reaction)),
+                    new Update().set("type", VideoReaction.NONE),
+                    Reaction.class).getModifiedCount() > 0;
+            if (removed) {
+                return reaction;
+            }
+            // A concurrent toggle changed the reaction in between, try again
+        }
     }
 
-    public boolean checkUserDisLikedVideo(String videoId) {
-        return getCurrentUser().getDisLikedVideos().stream().anyMatch(v -> v.equals(videoId));
+    /**
+     * Marks the current user's like of a video as their first one. Returns false when an earlier like was
+     * already marked, so re-liking after a toggle-off is not counted again.
+     */
+    public boolean markFirstLike(String videoId) {
+        return mongoTemplate.updateFirst(reactionQuery(getCurrentUserId(), videoId)
+                        .addCriteria(Criteria.where("type").is(VideoReaction.LIKE).and("firstLikedAt").exists(false)),
+                new Update().set("firstLikedAt", Instant.now()),
+                Reaction.class).getModifiedCount() > 0;
     }
 
-    public void removeFromLikedVideos(String videoId) {
-        User currentUser = getCurrentUser();
-        currentUser.removeFromLikedVideos(videoId);
-        userRepository.save(currentUser);
+    public List<String> getLikedVideoIds(int page, int size) {
+        return reactionRepository.findByUserIdAndTypeOrderByCreatedAtDesc(getCurrentUserId(), VideoReaction.LIKE,
+                        PageRequest.of(page, size))
+                .map(Reaction::getVideoId)
+                .getContent();
     }
 
-    public void removeFromDisLikedVideos(String videoId) {
-        User currentUser = getCurrentUser();
-        currentUser.removeFromDisLikedVideos(videoId);
-        userRepository.save(currentUser);
+    private Query reactionQuery(String userId, String videoId) {
+        return Query.query(Criteria.where("userId").is(userId).and("videoId").is(videoId));
     }
 }
@@ -0,0 +1,78 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for video metadata: a bounded local tier in front of an optional shared tier, then Mongo.
+ * Concurrent misses for the same video wait on a single load, so a thundering herd on a viral video costs
+ * one Mongo read. Writers evict both tiers; other instances' local tiers age out with their short TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class VideoDetailsCache {
+
+    private final AsyncCache<String, VideoDTO> videoDetailsLocalCache;
+    private final Optional<SharedVideoCache> sharedVideoCache;
+
+    public VideoDTO get(String videoId, Function<String, VideoDTO> loader) {
+        // The first caller installs an empty future and loads on its own thread; everyone else parks on the
+        // future, which unlike a lock held inside the map does not pin virtual threads
+        CompletableFuture<VideoDTO> pendingLoad = new CompletableFuture<>();
+        CompletableFuture<VideoDTO> entry = videoDetailsLocalCache.get(videoId, (id, executor) -> pendingLoad);
+        if (entry == pendingLoad) {
+            try {
+                pendingLoad.complete(load(videoId, loader));
+            } catch (RuntimeException exception) {
+                // Failed futures are dropped by the cache, the next caller loads again
+                pendingLoad.completeExceptionally(exception);
+            }
+        }
+        try {
+            // Callers get their own copy, the cached instance is never exposed
+            return copyOf(entry.join());
+        } catch (CompletionException completionException) {
+            if (completionException.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw completionException;
+        }
+    }
+
+    public void evict(String videoId) {
+        videoDetailsLocalCache.synchronous().invalidate(videoId);
+        sharedVideoCache.ifPresent(sharedCache -> sharedCache.evict(videoId));
+    }
+
+    private VideoDTO load(String videoId, Function<String, VideoDTO> loader) {
+        if (sharedVideoCache.isEmpty()) {
+            return loader.apply(videoId);
+        }
+        SharedVideoCache sharedCache = sharedVideoCache.get();
+        return sharedCache.get(videoId).orElseGet(() -> {
+            // A writer evicting while Mongo is read makes the put a no-op instead of caching the old document
+            long generation = sharedCache.generation(videoId);
+            VideoDTO loaded = loader.apply(videoId);
+            sharedCache.put(videoId, loaded, generation);
+            return loaded;
+        });
+    }
+
+    private VideoDTO copyOf(VideoDTO videoDTO) {
+        return new VideoDTO(videoDTO.getId(), videoDTO.getTitle(), videoDTO.getDescription(),
+                videoDTO.getTags() == null ? null : new HashSet<>(videoDTO.getTags()),
+                videoDTO.getVideoUrl(), videoDTO.getVideoStatus(), videoDTO.getThumbnailUrl(),
+                videoDTO.getThumbnailVariants() == null ? null : new LinkedHashMap<>(videoDTO.getThumbnailVariants()),
+                videoDTO.getLikes(), videoDTO.getDislikes(), videoDTO.getVersion(),
+                videoDTO.getHlsUrl(), videoDTO.getProcessingStatus());
+    }
+}
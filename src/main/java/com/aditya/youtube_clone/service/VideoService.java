@@ -1,41 +1,114 @@
 package com.aditya.youtube_clone.service;
 
+import com.aditya.youtube_clone.dto.ProcessingStatusDTO;
+import com.aditya.youtube_clone.dto.UniqueViewersDTO;
 import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.dto.VideoPageDTO;
 import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.ProcessingStatus;
 import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.model.VideoReaction;
+import com.aditya.youtube_clone.model.VideoStatus;
+import com.aditya.youtube_clone.repository.VideoDetails;
+import com.aditya.youtube_clone.repository.VideoReactionView;
 import com.aditya.youtube_clone.repository.VideoRepository;
+import com.aditya.youtube_clone.repository.VideoSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class VideoService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 1_000;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     private final S3Service s3Service;
     private final UserService userService;
     private final VideoRepository videoRepository;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final CommentService commentService;
+    private final VideoDetailsCache videoDetailsCache;
+    private final MongoTemplate mongoTemplate;
+    private final TrendingService trendingService;
+    private final ViewCounterBuffer viewCounterBuffer;
+    private final UniqueViewerService uniqueViewerService;
+    private final HomeFeedService homeFeedService;
+    private final ThumbnailService thumbnailService;
+    private final TranscodingService transcodingService;
+    private final StorageCleanupService storageCleanupService;
 
-    public VideoUploadResponseDTO uploadVideo(MultipartFile multipartFile) {
+    public CompletableFuture<VideoUploadResponseDTO> uploadVideo(MultipartFile multipartFile) {
         if (multipartFile.isEmpty()) {
             log.error("❌Failed to upload video: File is empty");
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Uploaded file is empty");
         }
         log.info("🚀Uploading video file from service");
-        // Upload file to AWS S3
-        String videoUrl = s3Service.uploadFile(multipartFile);
+        // Resolved up front, the S3 completion runs off the request thread
+        String userId = userService.getCurrentUserId();
+        // Upload file to AWS S3, the video is only recorded once the object exists
+        return s3Service.uploadFile(multipartFile).thenApply(videoUrl -> createVideo(videoUrl, userId));
+    }
+
+    public VideoUploadResponseDTO uploadVideoStream(InputStream inputStream, String contentType, String fileName) {
+        log.info("🚀Streaming video file from service");
+        // Request body goes straight into S3 multipart parts, nothing is spooled to disk
+        String videoUrl = s3Service.uploadStream(inputStream, contentType,
+                StringUtils.getFilenameExtension(fileName));
+        return createVideo(videoUrl);
+    }
+
+    public VideoUploadResponseDTO createVideo(String videoUrl) {
+        return createVideo(videoUrl, userService.getCurrentUserId());
+    }
+
+    private VideoUploadResponseDTO createVideo(String videoUrl, String userId) {
         Video video = new Video();
         video.setVideoUrl(videoUrl);
+        video.setUserId(userId);
         video.setLikes(new AtomicInteger(0));
+        video.setProcessingStatus(ProcessingStatus.PENDING);
 
         Video createdVideo = videoRepository.save(video);
         log.info("✅Video uploaded successfully");
+        // Playback falls back to the original file until the HLS renditions are ready
+        transcodingService.enqueue(createdVideo.getId(), videoUrl);
+        // Fanned out right away, feed reads hide it until it is published
+        homeFeedService.enqueueFanOut(createdVideo.getId(), userId);
         return new VideoUploadResponseDTO(createdVideo.getId(), createdVideo.getVideoUrl());
     }
 
@@ -44,25 +117,64 @@ public class VideoService {
         log.info("🚀Editing video metadata for video ID: {}", videoDTO.getId());
         log.info("🔎Finding video by ID: {}", videoDTO.getId());
         Video existingVideo = getVideoById(videoDTO.getId());
-        // Map videoDTO fields to video entity
-        log.info("🚀Mapping VideoDTO fields to existing Video entity");
-        existingVideo.setTitle(videoDTO.getTitle());
-        existingVideo.setDescription(videoDTO.getDescription());
-        existingVideo.setTags(videoDTO.getTags());
-        existingVideo.setVideoStatus(videoDTO.getVideoStatus());
-        existingVideo.setThumbnailUrl(videoDTO.getThumbnailUrl());
-        // Save the updated video entity
-        videoRepository.save(existingVideo);
+        // Only the edited fields are written, counters and job results flushed meanwhile are left alone
+        Update update = new Update()
+                .set("title", videoDTO.getTitle())
+                .set("description", videoDTO.getDescription())
+                .set("tags", videoDTO.getTags())
+                .set("videoStatus", videoDTO.getVideoStatus())
+                .set("searchTerms", searchTermsFor(videoDTO.getTitle(), videoDTO.getTags()))
+                .inc("version", 1);
+        if (!Objects.equals(existingVideo.getThumbnailUrl(), videoDTO.getThumbnailUrl())) {
+            // A hand-set thumbnail has no resized variants, the old ones would show a different image
+            update.set("thumbnailUrl", videoDTO.getThumbnailUrl()).unset("thumbnailVariants");
+        }
+        Video updatedVideo = mongoTemplate.findAndModify(byId(videoDTO.getId()), update,
+                FindAndModifyOptions.options().returnNew(true), Video.class);
+        videoDetailsCache.evict(videoDTO.getId());
+        if (updatedVideo == null) {
+            throw new IllegalArgumentException("Cannot find video by ID: " + videoDTO.getId());
+        }
         log.info("✅Video metadata updated successfully for video ID: {}", videoDTO.getId());
+        videoDTO.setVersion(updatedVideo.getVersion());
         return videoDTO;
     }
 
-    public String uploadThumbnail(MultipartFile file, String videoId) {
-        Video existingVideo = getVideoById(videoId);
-        String thumbnailUrl = s3Service.uploadFile(file);
-        existingVideo.setThumbnailUrl(thumbnailUrl);
-        videoRepository.save(existingVideo);
-        return thumbnailUrl;
+    public CompletableFuture<String> uploadThumbnail(MultipartFile file, String videoId) {
+        getVideoById(videoId);
+        thumbnailService.validate(file);
+        return s3Service.uploadFile(file).thenApply(thumbnailUrl -> {
+            // Shown as uploaded until the resized variants replace it
+            Video previousVideo = mongoTemplate.findAndModify(byId(videoId), new Update()
+                    .set("thumbnailUrl", thumbnailUrl)
+                    .unset("thumbnailVariants")
+                    .inc("version", 1), Video.class);
+            videoDetailsCache.evict(videoId);
+            if (previousVideo == null) {
+                // Deleted while the image was uploading
+                storageCleanupService.deleteLater(Set.of(thumbnailUrl));
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cannot find video by ID: " + videoId);
+            }
+            // Whatever it showed right before this write, not when the upload started
+            storageCleanupService.deleteLater(thumbnailUrlsOf(previousVideo));
+            thumbnailService.enqueueVariants(videoId, thumbnailUrl);
+            return thumbnailUrl;
+        });
+    }
+
+    private static Query byId(String videoId) {
+        return Query.query(Criteria.where("_id").is(videoId));
+    }
+
+    private Set<String> thumbnailUrlsOf(Video video) {
+        Set<String> thumbnailUrls = new HashSet<>();
+        if (video.getThumbnailUrl() != null) {
+            thumbnailUrls.add(video.getThumbnailUrl());
+        }
+        if (video.getThumbnailVariants() != null) {
+            thumbnailUrls.addAll(video.getThumbnailVariants().values());
+        }
+        return thumbnailUrls;
     }
 
     Video getVideoById(String videoId) {
@@ -73,60 +185,284 @@ public class VideoService {
 
     public void deleteVideoById(String videoId) {
         Video existingVideo = getVideoById(videoId);
-        // check for thumbnail and video url and delete from s3
+        videoRepository.delete(existingVideo);
+        videoDetailsCache.evict(videoId);
+        commentService.deleteCommentsForVideo(videoId);
+        transcodingService.deleteForVideo(videoId);
+        // The objects go once nothing points at them, a slow S3 no longer holds up the request
+        Set<String> fileUrls = thumbnailUrlsOf(existingVideo);
         if (existingVideo.getVideoUrl() != null) {
-            s3Service.deleteFile(existingVideo.getVideoUrl());
-        }
-        if (existingVideo.getThumbnailUrl() != null) {
-            s3Service.deleteFile(existingVideo.getThumbnailUrl());
+            fileUrls.add(existingVideo.getVideoUrl());
         }
-        videoRepository.delete(existingVideo);
+        storageCleanupService.deleteLater(fileUrls);
         log.info("✅Video deleted successfully for video ID: {}", videoId);
     }
 
     public VideoDTO getVideoDetails(String videoId) {
-        Video existingVideo = getVideoById(videoId);
+        return videoDetailsCache.get(videoId, id -> videoRepository.findDetailsById(id)
+                .map(this::mapToVideoDTO)
+                .orElseThrow(() -> new IllegalArgumentException("Cannot find video by ID: " + id)));
+    }
+
+    public void recordView(String videoId, String viewerId) {
+        // Views are never checked against Mongo, a malformed id is the one thing that can be rejected up front
+        if (!ObjectId.isValid(videoId)) {
+            throw new IllegalArgumentException("Invalid video ID: " + videoId);
+        }
+        // The sketch ignores repeat viewers by itself, so it sees every view, not just the counted ones
+        uniqueViewerService.record(videoId, viewerId);
+        if (viewCounterBuffer.record(viewerId, videoId)) {
+            trendingService.recordView(videoId);
+        }
+    }
+
+    public UniqueViewersDTO getUniqueViewers(String videoId, LocalDate from, LocalDate to) {
+        if (!ObjectId.isValid(videoId)) {
+            throw new IllegalArgumentException("Invalid video ID: " + videoId);
+        }
+        LocalDate end = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+        return uniqueViewerService.getUniqueViewers(videoId, from == null ? end : from, end);
+    }
+
+    public ProcessingStatusDTO getProcessingStatus(String videoId) {
+        return transcodingService.getStatus(videoId);
+    }
+
+    public List<VideoDTO> getTrendingVideos(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> trendingVideoIds = trendingService.getTopVideoIds();
+        if (trendingVideoIds.isEmpty()) {
+            return List.of();
+        }
+        Map<String, VideoSummary> videosById = videoRepository.findSummariesByIdIn(trendingVideoIds).stream()
+                .collect(Collectors.toMap(VideoSummary::getId, Function.identity()));
+        // Ranked order; private, unlisted and deleted videos are scored like any other but never listed
+        return trendingVideoIds.stream()
+                .map(videosById::get)
+                .filter(video -> video != null && video.getVideoStatus() == VideoStatus.PUBLIC)
+                .limit(limit)
+                .map(this::mapToVideoDTO)
+                .toList();
+    }
+
+    public VideoPageDTO getHomeFeed(String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (StringUtils.hasText(cursor) && !ObjectId.isValid(cursor)) {
+            throw new IllegalArgumentException("Invalid video cursor: " + cursor);
+        }
+        List<String> feedVideoIds = homeFeedService.getFeedVideoIds(userService.getCurrentUserId(),
+                StringUtils.hasText(cursor) ? cursor : null, size + 1);
+        boolean hasMore = feedVideoIds.size() > size;
+        List<String> pageVideoIds = feedVideoIds.subList(0, Math.min(size, feedVideoIds.size()));
+        if (pageVideoIds.isEmpty()) {
+            return new VideoPageDTO(List.of(), null);
+        }
+        Map<String, VideoSummary> videosById = videoRepository.findSummariesByIdIn(pageVideoIds).stream()
+                .collect(Collectors.toMap(VideoSummary::getId, Function.identity()));
+        // Unpublished and deleted videos drop out, the cursor still moves past them
+        List<VideoDTO> page = pageVideoIds.stream()
+                .map(videosById::get)
+                .filter(video -> video != null && video.getVideoStatus() == VideoStatus.PUBLIC)
+                .map(this::mapToVideoDTO)
+                .toList();
+        return new VideoPageDTO(page, hasMore ? pageVideoIds.get(pageVideoIds.size() - 1) : null);
+    }
+
+    public List<VideoDTO> getLikedVideos(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> likedVideoIds = userService.getLikedVideoIds(page, size);
+        if (likedVideoIds.isEmpty()) {
+            return List.of();
+        }
+        Map<String, VideoSummary> videosById = videoRepository.findSummariesByIdIn(likedVideoIds).stream()
+                .collect(Collectors.toMap(VideoSummary::getId, Function.identity()));
+        // Keep the newest-like-first order, videos deleted since they were liked drop out
+        return likedVideoIds.stream()
+                .map(videosById::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToVideoDTO)
+                .toList();
+    }
+
+    /**
+     * Newest-first page of public videos, optionally narrowed to one uploader and/or tag. The cursor is the
+     * id of the last video on the previous page; ObjectIds grow with creation time, so every page is a seek
+     * on one of the (..., videoStatus, _id) indexes however deep it is.
+     */
+    public VideoPageDTO listVideos(String userId, String tag, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Criteria criteria = Criteria.where("videoStatus").is(VideoStatus.PUBLIC);
+        if (StringUtils.hasText(userId)) {
+            criteria.and("userId").is(userId);
+        }
+        if (StringUtils.hasText(tag)) {
+            criteria.and("tags").is(tag);
+        }
+        if (StringUtils.hasText(cursor)) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new IllegalArgumentException("Invalid video cursor: " + cursor);
+            }
+            criteria.and("id").lt(new ObjectId(cursor));
+        }
+        // One extra video tells whether there is a next page without counting
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(size + 1);
+        List<VideoSummary> videos = mongoTemplate.query(Video.class).as(VideoSummary.class).matching(query).all();
+        boolean hasMore = videos.size() > size;
+        List<VideoDTO> page = videos.stream().limit(size).map(this::mapToVideoDTO).toList();
+        String nextCursor = hasMore ? videos.get(size - 1).getId() : null;
+        return new VideoPageDTO(page, nextCursor);
+    }
+
+    /**
+     * Relevance-ranked search over title, tags and description through the Video text index. Public videos
+     * by default; private and unlisted ones are only searched among the current user's own videos.
+     */
+    public List<VideoDTO> searchVideos(String text, VideoStatus status, int page, int size) {
+        if (!StringUtils.hasText(text)) {
+            throw new IllegalArgumentException("Search text must not be empty");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("Search only returns the top " + MAX_SEARCH_RESULTS + " results");
+        }
+        VideoStatus videoStatus = status == null ? VideoStatus.PUBLIC : status;
+        TextQuery query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+        query.addCriteria(Criteria.where("videoStatus").is(videoStatus));
+        if (videoStatus != VideoStatus.PUBLIC) {
+            query.addCriteria(Criteria.where("userId").is(userService.getCurrentUserId()));
+        }
+        // Without explicit fields the score would be the only thing projected
+        query.fields().include("title", "videoStatus", "videoUrl", "thumbnailUrl", "thumbnailVariants");
+        query.skip((long) page * size).limit(size);
+        return mongoTemplate.query(Video.class).as(VideoSummary.class).matching(query).all().stream()
+                .map(this::mapToVideoDTO)
+                .toList();
+    }
+
+    /**
+     * Titles of public videos whose words start with what the user typed so far: the last word is matched as a
+     * prefix, every earlier word must match in full.
+     */
+    public List<String> autocompleteTitles(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        List<String> words = words(prefix);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        List<Criteria> termCriteria = new ArrayList<>();
+        if (words.size() > 1) {
+            termCriteria.add(Criteria.where("searchTerms").all(words.subList(0, words.size() - 1)));
+        }
+        // Terms are lowercase letters and digits only, so the anchored regex needs no escaping and stays a range scan
+        termCriteria.add(Criteria.where("searchTerms").regex("^" + words.get(words.size() - 1)));
+        Query query = Query.query(Criteria.where("videoStatus").is(VideoStatus.PUBLIC).andOperator(termCriteria))
+                .limit(limit);
+        query.fields().include("title");
+        return mongoTemplate.query(Video.class).as(VideoSummary.class).matching(query).all().stream()
+                .map(VideoSummary::getTitle)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    static Set<String> searchTermsFor(String title, Set<String> tags) {
+        Set<String> searchTerms = new HashSet<>(words(title));
+        if (tags != null) {
+            tags.forEach(tag -> searchTerms.addAll(words(tag)));
+        }
+        return searchTerms;
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    private VideoDTO mapToVideoDTO(VideoDetails video) {
         VideoDTO videoDTO = new VideoDTO();
-        videoDTO.setId(existingVideo.getId());
-        videoDTO.setTitle(existingVideo.getTitle());
-        videoDTO.setDescription(existingVideo.getDescription());
-        videoDTO.setTags(existingVideo.getTags());
-        videoDTO.setVideoStatus(existingVideo.getVideoStatus());
-        videoDTO.setVideoUrl(existingVideo.getVideoUrl());
-        videoDTO.setThumbnailUrl(existingVideo.getThumbnailUrl());
+        videoDTO.setId(video.getId());
+        videoDTO.setTitle(video.getTitle());
+        videoDTO.setDescription(video.getDescription());
+        videoDTO.setTags(video.getTags());
+        videoDTO.setVideoStatus(video.getVideoStatus());
+        videoDTO.setVideoUrl(video.getVideoUrl());
+        videoDTO.setThumbnailUrl(video.getThumbnailUrl());
+        videoDTO.setThumbnailVariants(video.getThumbnailVariants());
+        videoDTO.setVersion(video.getVersion());
+        videoDTO.setHlsUrl(video.getHlsUrl());
+        videoDTO.setProcessingStatus(video.getProcessingStatus());
+        return videoDTO;
+    }
+
+    private VideoDTO mapToVideoDTO(VideoSummary video) {
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId(video.getId());
+        videoDTO.setTitle(video.getTitle());
+        videoDTO.setVideoStatus(video.getVideoStatus());
+        videoDTO.setVideoUrl(video.getVideoUrl());
+        videoDTO.setThumbnailUrl(video.getThumbnailUrl());
+        videoDTO.setThumbnailVariants(video.getThumbnailVariants());
         return videoDTO;
     }
 
     public VideoDTO likeVideo(String videoId) {
-        Video existingVideo = getVideoById(videoId);
-        // video like logic
-        if (userService.checkUserLikedVideo(videoId)) {
-            existingVideo.decrementLikes();
-            userService.removeFromLikedVideos(videoId);
-            log.info("🔽User removed like from video ID: {}", videoId);
-        }
-        else if (userService.checkUserDisLikedVideo(videoId)) {
-            existingVideo.decrementDisLikes();
-            userService.removeFromDisLikedVideos(videoId);
-            existingVideo.incrementLikes();
-            userService.addToLikedVideos(videoId);
-            log.info("🔼User switched from dislike to like for video ID: {}", videoId);
+        return toggleReaction(videoId, VideoReaction.LIKE);
+    }
+
+    public VideoDTO dislikeVideo(String videoId) {
+        return toggleReaction(videoId, VideoReaction.DISLIKE);
+    }
+
+    private VideoDTO toggleReaction(String videoId, VideoReaction reaction) {
+        VideoReactionView existingVideo = videoRepository.findReactionViewById(videoId).orElseThrow(() ->
+                new IllegalArgumentException("Cannot find video by ID: " + videoId)
+        );
+        // The user's stored reaction decides the transition, the video only gets counter deltas
+        VideoReaction previousReaction = userService.toggleReaction(videoId, reaction);
+        // Undo whatever the user had before, then apply the new reaction unless this was a toggle-off
+        long likesDelta = previousReaction == VideoReaction.LIKE ? -1 : 0;
+        long disLikesDelta = previousReaction == VideoReaction.DISLIKE ? -1 : 0;
+        if (previousReaction == reaction) {
+            log.info("🔽User removed {} from video ID: {}", reaction, videoId);
         } else {
-            existingVideo.incrementLikes();
-            userService.addToLikedVideos(videoId);
-            log.info("👍User liked video ID: {}", videoId);
+            if (reaction == VideoReaction.LIKE) {
+                likesDelta++;
+                // Only a user's first like of a video counts for trending, toggling it back on does not
+                if (userService.markFirstLike(videoId)) {
+                    trendingService.recordLike(videoId);
+                }
+            } else {
+                disLikesDelta++;
+            }
+            if (previousReaction != VideoReaction.NONE) {
+                log.info("🔼User switched from {} to {} for video ID: {}", previousReaction, reaction, videoId);
+            } else {
+                log.info("👍User added {} to video ID: {}", reaction, videoId);
+            }
         }
-        videoRepository.save(existingVideo);
-        VideoDTO videoDTO = new VideoDTO();
-        videoDTO.setId(existingVideo.getId());
-        videoDTO.setTitle(existingVideo.getTitle());
-        videoDTO.setDescription(existingVideo.getDescription());
-        videoDTO.setTags(existingVideo.getTags());
-        videoDTO.setVideoStatus(existingVideo.getVideoStatus());
-        videoDTO.setVideoUrl(existingVideo.getVideoUrl());
-        videoDTO.setThumbnailUrl(existingVideo.getThumbnailUrl());
-        videoDTO.setLikes(existingVideo.getLikes().get());
-        videoDTO.setDislikes(existingVideo.getDisLikes().get());
+        // Counters are buffered and flushed to Mongo in bulk, so add what hasn't been flushed yet
+        likeCounterBuffer.record(videoId, likesDelta, disLikesDelta);
+        VideoDTO videoDTO = mapToVideoDTO(existingVideo);
+        videoDTO.setLikes((int) (existingVideo.getLikes().get() + likeCounterBuffer.getPendingLikes(videoId)));
+        videoDTO.setDislikes((int) (existingVideo.getDisLikes().get() + likeCounterBuffer.getPendingDisLikes(videoId)));
         return videoDTO;
     }
 }
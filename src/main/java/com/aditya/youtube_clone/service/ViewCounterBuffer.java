@@ -0,0 +1,177 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Counts video views without a Mongo write per view. A view is first checked against Bloom filters of the
+ * (viewer, video) pairs seen in the dedup window, then its video id goes into a bounded ring buffer; every
+ * flush drains the buffer and writes one bulk $inc per video. Two filter generations rotate every window, or
+ * as soon as the current one has taken its expected number of views, so a busy period shortens the dedup
+ * window instead of saturating the filter into dropping first views. A repeat view is ignored for between
+ * one and two generations. A full buffer drops the view rather than blocking the request.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewCounterBuffer {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${video.views.buffer-capacity:65536}")
+    private int bufferCapacity;
+    @Value("${video.views.dedup.window:30m}")
+    private Duration dedupWindow;
+    @Value("${video.views.dedup.expected-views:1000000}")
+    private long expectedViews;
+    @Value("${video.views.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private static final int DEDUP_LOCK_STRIPES = 64;
+
+    private ArrayBlockingQueue<String> ringBuffer;
+    private final AtomicReference<ViewerFilters> viewerFilters = new AtomicReference<>();
+    // The check and the put of one view key must not interleave with the same key's, or both would count
+    private final ReentrantLock[] dedupLocks = new ReentrantLock[DEDUP_LOCK_STRIPES];
+    // Counts that were drained but not written yet, only touched under the flush lock
+    private final Map<String, Integer> unflushedViews = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong droppedViews = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        ringBuffer = new ArrayBlockingQueue<>(bufferCapacity);
+        for (int i = 0; i < DEDUP_LOCK_STRIPES; i++) {
+            dedupLocks[i] = new ReentrantLock();
+        }
+        BloomFilter filter = newFilter();
+        viewerFilters.set(new ViewerFilters(filter, newFilter(), System.currentTimeMillis()));
+        log.info("✅View dedup filters sized at {} KB each", filter.sizeInBytes() / 1024);
+    }
+
+    /**
+     * Returns whether the view was counted: false for a repeat view within the window or when the buffer is full.
+     */
+    public boolean record(String viewerId, String videoId) {
+        String viewKey = viewerId + '\n' + videoId;
+        ViewerFilters filters = viewerFilters.get();
+        ReentrantLock dedupLock = dedupLocks[(int) (BloomFilter.hash64(viewKey) & (DEDUP_LOCK_STRIPES - 1))];
+        dedupLock.lock();
+        try {
+            if (filters.previous().mightContain(viewKey) || !filters.current().put(viewKey)) {
+                return false;
+            }
+        } finally {
+            dedupLock.unlock();
+        }
+        if (filters.insertions().incrementAndGet() == expectedViews) {
+            // Full before its window is over, a fuller filter would start mistaking first views for repeats
+            rotate(filters, System.currentTimeMillis());
+        }
+        if (!ringBuffer.offer(videoId)) {
+            droppedViews.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${video.views.flush-interval-ms:200}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    void flush(long nowMillis) {
+        flushLock.lock();
+        try {
+            ViewerFilters filters = viewerFilters.get();
+            if (nowMillis - filters.startedAtMillis() >= dedupWindow.toMillis()) {
+                rotate(filters, nowMillis);
+            }
+            List<String> views = new ArrayList<>();
+            ringBuffer.drainTo(views);
+            views.forEach(videoId -> unflushedViews.merge(videoId, 1, Integer::sum));
+            long dropped = droppedViews.getAndSet(0);
+            if (dropped > 0) {
+                log.warn("⚠️Dropped {} views, the view buffer was full", dropped);
+            }
+            if (unflushedViews.isEmpty()) {
+                return;
+            }
+            int videos = unflushedViews.size();
+            try {
+                writeIncrements();
+            } catch (RuntimeException exception) {
+                log.error("❌Failed to flush view counts for {} videos, retrying {} next interval: {}",
+                        videos, unflushedViews.size(), exception.getMessage());
+                return;
+            }
+            log.debug("✅Flushed {} views for {} videos", views.size(), videos);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void writeIncrements() {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class);
+        List<String> videoIds = new ArrayList<>(unflushedViews.keySet());
+        videoIds.forEach(videoId -> bulkOperations.updateOne(Query.query(Criteria.where("id").is(videoId)),
+                new Update().inc("viewCount", unflushedViews.get(videoId))));
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            // Unordered, so every increment but the failed ones was applied and must not be written again
+            Set<String> failedVideoIds = exception.getErrors().stream()
+                    .map(error -> videoIds.get(error.getIndex()))
+                    .collect(Collectors.toSet());
+            unflushedViews.keySet().retainAll(failedVideoIds);
+            throw exception;
+        }
+        unflushedViews.clear();
+    }
+
+    private void rotate(ViewerFilters filters, long nowMillis) {
+        // Whoever rotates first wins, a rotation that lost the race would throw away a fresh generation
+        viewerFilters.compareAndSet(filters, new ViewerFilters(newFilter(), filters.current(), nowMillis));
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedViews, falsePositiveRate);
+    }
+
+    private record ViewerFilters(BloomFilter current, BloomFilter previous, long startedAtMillis,
+                                 AtomicLong insertions) {
+
+        private ViewerFilters(BloomFilter current, BloomFilter previous, long startedAtMillis) {
+            this(current, previous, startedAtMillis, new AtomicLong());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.WatchEventDTO;
+import com.aditya.youtube_clone.model.WatchEvent;
+import com.aditya.youtube_clone.model.WatchHistoryBucket;
+import com.aditya.youtube_clone.model.WatchProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Watch history kept out of the user document. Every event upserts the resume position of the video, while the
+ * user's bucket for the day only gets an entry the first time a video is started that day, so heartbeats never
+ * fill the bucket. Recent history reads the newest buckets through the (userId, bucketStart) index and takes the
+ * positions from the progress documents.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WatchHistoryService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int BUCKETS_PER_READ = 7;
+    // Watched this far in, a video leaves continue watching
+    private static final double COMPLETED_FRACTION = 0.95;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserService userService;
+
+    @Value("${video.history.bucket-cap:500}")
+    private int bucketCap;
+
+    public void recordWatchEvent(String videoId, long positionSeconds, Long durationSeconds) {
+        if (!ObjectId.isValid(videoId)) {
+            throw new IllegalArgumentException("Invalid video ID: " + videoId);
+        }
+        if (positionSeconds < 0 || (durationSeconds != null && durationSeconds <= 0)) {
+            throw new IllegalArgumentException("Position and duration must be positive");
+        }
+        String userId = userService.getCurrentUserId();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // Matches nothing once today's bucket lists the video; the insert that follows hits the unique index
+        Query bucket = Query.query(Criteria.where("userId").is(userId)
+                .and("bucketStart").is(now.truncatedTo(ChronoUnit.DAYS))
+                .and("events.videoId").ne(videoId));
+        Update append = new Update().push("events").slice(-bucketCap)
+                .each(new WatchEvent(videoId, positionSeconds, now));
+        try {
+            mongoTemplate.upsert(bucket, append, WatchHistoryBucket.class);
+        } catch (DuplicateKeyException duplicateKeyException) {
+            // Either the video is already in today's bucket or another first event of the day created it
+            mongoTemplate.updateFirst(bucket, append, WatchHistoryBucket.class);
+        }
+
+        boolean completed = durationSeconds != null && positionSeconds >= durationSeconds * COMPLETED_FRACTION;
+        Query progress = Query.query(Criteria.where("userId").is(userId).and("videoId").is(videoId));
+        upsert(progress, new Update()
+                .set("positionSeconds", positionSeconds)
+                .set("durationSeconds", durationSeconds)
+                .set("completed", completed)
+                .set("updatedAt", now), WatchProgress.class);
+    }
+
+    /**
+     * The current user's most recently watched videos, newest first, each with its latest position.
+     */
+    public List<WatchEventDTO> getRecentHistory(int limit) {
+        validateLimit(limit);
+        String userId = userService.getCurrentUserId();
+        Map<String, WatchEventDTO> recent = new LinkedHashMap<>();
+        Instant before = null;
+        while (recent.size() < limit) {
+            Criteria criteria = Criteria.where("userId").is(userId);
+            if (before != null) {
+                criteria = criteria.and("bucketStart").lt(before);
+            }
+            Query query = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.DESC, "bucketStart"))
+                    .limit(BUCKETS_PER_READ);
+            List<WatchHistoryBucket> buckets = mongoTemplate.find(query, WatchHistoryBucket.class);
+            for (WatchHistoryBucket bucket : buckets) {
+                List<WatchEvent> events = new ArrayList<>(bucket.getEvents());
+                for (int i = events.size() - 1; i >= 0 && recent.size() < limit; i--) {
+                    WatchEvent event = events.get(i);
+                    recent.putIfAbsent(event.getVideoId(), new WatchEventDTO(event.getVideoId(),
+                            event.getPositionSeconds(), null, event.getWatchedAt()));
+                }
+            }
+            if (buckets.size() < BUCKETS_PER_READ) {
+                break;
+            }
+            before = buckets.get(buckets.size() - 1).getBucketStart();
+        }
+        if (!recent.isEmpty()) {
+            Query progress = Query.query(Criteria.where("userId").is(userId).and("videoId").in(recent.keySet()));
+            for (WatchProgress latest : mongoTemplate.find(progress, WatchProgress.class)) {
+                WatchEventDTO event = recent.get(latest.getVideoId());
+                event.setPositionSeconds(latest.getPositionSeconds());
+                event.setDurationSeconds(latest.getDurationSeconds());
+            }
+        }
+        return List.copyOf(recent.values());
+    }
+
+    public List<WatchEventDTO> getContinueWatching(int limit) {
+        validateLimit(limit);
+        Query query = Query.query(Criteria.where("userId").is(userService.getCurrentUserId()).and("completed").is(false))
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+                .limit(limit);
+        return mongoTemplate.find(query, WatchProgress.class).stream().map(this::mapToWatchEventDTO).toList();
+    }
+
+    public Optional<WatchEventDTO> getResumePosition(String videoId) {
+        Query query = Query.query(Criteria.where("userId").is(userService.getCurrentUserId()).and("videoId").is(videoId));
+        return Optional.ofNullable(mongoTemplate.findOne(query, WatchProgress.class)).map(this::mapToWatchEventDTO);
+    }
+
+    // Two first events racing on the unique index: the loser retries and finds the winner's document
+    private void upsert(Query query, Update update, Class<?> document) {
+        try {
+            mongoTemplate.upsert(query, update, document);
+        } catch (DuplicateKeyException duplicateKeyException) {
+            mongoTemplate.upsert(query, update, document);
+        }
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    private WatchEventDTO mapToWatchEventDTO(WatchProgress progress) {
+        return new WatchEventDTO(progress.getVideoId(), progress.getPositionSeconds(), progress.getDurationSeconds(),
+                progress.getUpdatedAt());
+    }
+}
@@ -0,0 +1,111 @@
+package com.aditya.youtube_clone;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.service.VideoService;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+@ActiveProfiles("test")
+class VirtualThreadLoadTest {
+
+    // Well past Tomcat's default of 200 platform request threads
+    private static final int CONCURRENT_REQUESTS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private VideoService videoService;
+
+    @TestConfiguration
+    static class PermitAllSecurityConfig {
+        @Bean
+        public SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http) throws Exception {
+            http
+                    .csrf(AbstractHttpConfigurer::disable)
+                    .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+            return http.build();
+        }
+    }
+
+    @Test
+    void blockingRequestsScaleBeyondPlatformThreadPool() throws Exception {
+        CountDownLatch allInFlight = new CountDownLatch(CONCURRENT_REQUESTS);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger virtualRequestThreads = new AtomicInteger();
+        AtomicInteger pinnedEvents = new AtomicInteger();
+        // Every request parks inside the service, the way it would on a slow Mongo/S3/Auth0 call
+        when(videoService.getVideoDetails(any())).thenAnswer(invocation -> {
+            if (Thread.currentThread().isVirtual()) {
+                virtualRequestThreads.incrementAndGet();
+            }
+            allInFlight.countDown();
+            release.await();
+            VideoDTO videoDTO = new VideoDTO();
+            videoDTO.setId(invocation.getArgument(0));
+            return videoDTO;
+        });
+
+        try (RecordingStream pinningRecorder = new RecordingStream();
+             ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clientExecutor)
+                     .build()) {
+            pinningRecorder.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            pinningRecorder.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.incrementAndGet());
+            pinningRecorder.startAsync();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/api/videos/video-" + i))
+                        .GET()
+                        .build();
+                responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+
+            // Every request is parked in the service at the same moment
+            assertTrue(allInFlight.await(60, TimeUnit.SECONDS),
+                    "Only " + (CONCURRENT_REQUESTS - allInFlight.getCount()) + " requests were in flight");
+            release.countDown();
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get(60, TimeUnit.SECONDS).statusCode());
+            }
+            pinningRecorder.stop();
+        }
+
+        assertEquals(CONCURRENT_REQUESTS, virtualRequestThreads.get());
+        assertEquals(0, pinnedEvents.get(), "Virtual threads were pinned while blocking");
+    }
+}
@@ -0,0 +1,130 @@
+package com.aditya.youtube_clone.config;
+
+import com.aditya.youtube_clone.model.Comment;
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Reaction;
+import com.aditya.youtube_clone.model.Subscription;
+import com.aditya.youtube_clone.model.UniqueViewerSketch;
+import com.aditya.youtube_clone.model.UploadSession;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.model.WatchHistoryBucket;
+import com.aditya.youtube_clone.model.WatchProgress;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoIndexInitializerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    private MongoMappingContext mappingContext() {
+        // Same simple types as the Boot-configured context, so Instant is not mapped as an entity
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        return mappingContext;
+    }
+
+    @Test
+    void testCreateIndexes_IndexesFromAnnotations() {
+        when(mongoTemplate.indexOps(Reaction.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(Comment.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(Video.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(UniqueViewerSketch.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(WatchHistoryBucket.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(WatchProgress.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(Subscription.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(FeedEntry.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(Job.class)).thenReturn(indexOperations);
+        when(mongoTemplate.indexOps(UploadSession.class)).thenReturn(indexOperations);
+
+        new MongoIndexInitializer(mongoTemplate, mappingContext()).createIndexes();
+
+        ArgumentCaptor<IndexDefinition> indexCaptor = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(25)).ensureIndex(indexCaptor.capture());
+        List<IndexDefinition> indexes = indexCaptor.getAllValues();
+        IndexDefinition userVideo = indexes.stream()
+                .filter(index -> "user_video_unique".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("userId", 1).append("videoId", 1), userVideo.getIndexKeys());
+        assertTrue(userVideo.getIndexOptions().getBoolean("unique"));
+        IndexDefinition videoCreated = indexes.stream()
+                .filter(index -> "video_created".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("videoId", 1).append("createdAt", -1).append("_id", -1),
+                videoCreated.getIndexKeys());
+        IndexDefinition tagFeed = indexes.stream()
+                .filter(index -> "tags_status_id".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("tags", 1).append("videoStatus", 1).append("_id", -1), tagFeed.getIndexKeys());
+        IndexDefinition videoText = indexes.stream()
+                .filter(index -> index.getIndexOptions().containsKey("weights"))
+                .findFirst().orElseThrow();
+        assertEquals("text", videoText.getIndexKeys().get("description"));
+        // The description keeps the default weight of 1
+        assertEquals(new Document("title", 3F).append("tags", 2F),
+                videoText.getIndexOptions().get("weights", Document.class));
+        IndexDefinition sketchExpiry = indexes.stream()
+                .filter(index -> "updated_ttl".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(400L * 24 * 60 * 60, sketchExpiry.getIndexOptions().get("expireAfterSeconds"));
+        IndexDefinition historyBuckets = indexes.stream()
+                .filter(index -> "user_bucket_unique".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("userId", 1).append("bucketStart", -1), historyBuckets.getIndexKeys());
+        assertTrue(historyBuckets.getIndexOptions().getBoolean("unique"));
+        IndexDefinition feed = indexes.stream()
+                .filter(index -> new Document("userId", 1).append("videoId", -1).equals(index.getIndexKeys()))
+                .findFirst().orElseThrow();
+        assertTrue(feed.getIndexOptions().getBoolean("unique"));
+        IndexDefinition dueJobs = indexes.stream()
+                .filter(index -> "type_status_run_at".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("type", 1).append("status", 1).append("runAt", 1), dueJobs.getIndexKeys());
+        IndexDefinition expiringJobs = indexes.stream()
+                .filter(index -> "expire_at_ttl".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(0L, expiringJobs.getIndexOptions().get("expireAfterSeconds"));
+        IndexDefinition expiringSessions = indexes.stream()
+                .filter(index -> "status_expire".equals(index.getIndexOptions().get("name")))
+                .findFirst().orElseThrow();
+        assertEquals(new Document("status", 1).append("expireAt", 1), expiringSessions.getIndexKeys());
+    }
+
+    @Test
+    void testCreateIndexes_MongoUnavailableIsLogged() {
+        when(mongoTemplate.indexOps(Reaction.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(Comment.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(Video.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(UniqueViewerSketch.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(WatchHistoryBucket.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(WatchProgress.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(Subscription.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(FeedEntry.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(Job.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        when(mongoTemplate.indexOps(UploadSession.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+
+        new MongoIndexInitializer(mongoTemplate, mappingContext()).createIndexes();
+
+        verifyNoInteractions(indexOperations);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aditya.youtube_clone.config;
+
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class MongoRoundTripCounterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MongoRoundTripCounter mongoRoundTripCounter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        mongoRoundTripCounter = new MongoRoundTripCounter(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private MockHttpServletRequest handleRequest(String method, String uriPattern, int mongoCommands) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/videos/video123/like");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, uriPattern);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        for (int i = 0; i < mongoCommands; i++) {
+            mongoRoundTripCounter.commandStarted(mock(CommandStartedEvent.class));
+        }
+        RequestContextHolder.resetRequestAttributes();
+        mongoRoundTripCounter.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+        return request;
+    }
+
+    @Test
+    void testRoundTripsRecordedPerEndpoint() {
+        // Video projection read plus the conditional update on the user
+        MockHttpServletRequest request = handleRequest("POST", "/api/videos/{videoId}/like", 2);
+        handleRequest("POST", "/api/videos/{videoId}/like", 2);
+        handleRequest("GET", "/api/videos/{videoId}", 1);
+
+        assertEquals(2, MongoRoundTripCounter.getRoundTrips(request));
+        DistributionSummary likeRoundTrips = meterRegistry.get("mongo.round.trips")
+                .tag("method", "POST").tag("uri", "/api/videos/{videoId}/like").summary();
+        assertEquals(2, likeRoundTrips.count());
+        assertEquals(2, likeRoundTrips.max());
+        assertEquals(1, meterRegistry.get("mongo.round.trips")
+                .tag("method", "GET").tag("uri", "/api/videos/{videoId}").summary().max());
+    }
+
+    @Test
+    void testCommandsOutsideRequestsAreIgnored() {
+        // e.g. the scheduled like counter flush
+        mongoRoundTripCounter.commandStarted(mock(CommandStartedEvent.class));
+
+        MockHttpServletRequest request = handleRequest("GET", "/api/videos/{videoId}", 0);
+        assertEquals(0, MongoRoundTripCounter.getRoundTrips(request));
+        assertEquals(0, meterRegistry.get("mongo.round.trips").summary().max());
+    }
+}
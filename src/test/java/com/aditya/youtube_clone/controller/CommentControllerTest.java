@@ -0,0 +1,96 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.config.TestSecurityConfig;
+import com.aditya.youtube_clone.dto.CommentDTO;
+import com.aditya.youtube_clone.dto.CommentPageDTO;
+import com.aditya.youtube_clone.service.CommentService;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CommentController.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class CommentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CommentService commentService;
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void addCommentTest_Success() throws Exception {
+        when(commentService.addComment("video123", "Nice video")).thenReturn(
+                new CommentDTO("comment123", "video123", "Nice video", "user123", 0, 0, Instant.now()));
+
+        mockMvc.perform(post("/api/videos/{videoId}/comments", "video123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Nice video\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(result -> {
+                    JSONObject jsonResponse = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals("comment123", jsonResponse.getString("id"));
+                    assertEquals("user123", jsonResponse.getString("authorId"));
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void addCommentTest_VideoNotFound() throws Exception {
+        when(commentService.addComment("missingVideo", "Nice video"))
+                .thenThrow(new IllegalArgumentException("Cannot find video by ID: missingVideo"));
+
+        mockMvc.perform(post("/api/videos/{videoId}/comments", "missingVideo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Nice video\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getCommentsTest_Success() throws Exception {
+        when(commentService.getComments("video123", "cursor123", 10)).thenReturn(new CommentPageDTO(
+                List.of(new CommentDTO("comment123", "video123", "Nice video", "user123", 0, 0, Instant.now())),
+                "nextCursor"));
+
+        mockMvc.perform(get("/api/videos/{videoId}/comments", "video123")
+                        .param("cursor", "cursor123")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(result -> {
+                    JSONObject jsonResponse = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals("nextCursor", jsonResponse.getString("nextCursor"));
+                    assertEquals(1, jsonResponse.getJSONArray("comments").length());
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getCommentsTest_InvalidCursor() throws Exception {
+        when(commentService.getComments("video123", "bad", 20))
+                .thenThrow(new IllegalArgumentException("Invalid comment cursor: bad"));
+
+        mockMvc.perform(get("/api/videos/{videoId}/comments", "video123").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,71 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.config.TestSecurityConfig;
+import com.aditya.youtube_clone.service.SubscriptionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(SubscriptionController.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class SubscriptionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionService subscriptionService;
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void subscribeTest_Success() throws Exception {
+        mockMvc.perform(post("/api/subscriptions/{creatorId}", "creator123"))
+                .andExpect(status().isNoContent());
+        verify(subscriptionService, times(1)).subscribe("creator123");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void subscribeTest_UnknownCreator() throws Exception {
+        doThrow(new IllegalArgumentException("Cannot find user by ID: missing"))
+                .when(subscriptionService).subscribe("missing");
+
+        mockMvc.perform(post("/api/subscriptions/{creatorId}", "missing"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void unsubscribeTest_Success() throws Exception {
+        mockMvc.perform(delete("/api/subscriptions/{creatorId}", "creator123"))
+                .andExpect(status().isNoContent());
+        verify(subscriptionService, times(1)).unsubscribe("creator123");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getSubscriptionsTest_Success() throws Exception {
+        when(subscriptionService.getSubscriptions(null, 100)).thenReturn(List.of("creator123"));
+
+        mockMvc.perform(get("/api/subscriptions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("creator123"));
+    }
+}
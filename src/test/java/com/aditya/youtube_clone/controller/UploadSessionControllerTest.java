@@ -0,0 +1,151 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.config.TestSecurityConfig;
+import com.aditya.youtube_clone.dto.CreateUploadSessionDTO;
+import com.aditya.youtube_clone.dto.DirectUploadDTO;
+import com.aditya.youtube_clone.dto.UploadSessionDTO;
+import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.UploadSessionStatus;
+import com.aditya.youtube_clone.service.UploadSessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UploadSessionController.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class UploadSessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void createUploadSessionTest_Success() throws Exception {
+        CreateUploadSessionDTO createUploadSessionDTO = new CreateUploadSessionDTO("clip.mp4", "video/mp4", 25);
+        when(uploadSessionService.createSession(createUploadSessionDTO)).thenReturn(
+                new UploadSessionDTO("session123", 25, 10, UploadSessionStatus.IN_PROGRESS, List.of()));
+
+        mockMvc.perform(post("/api/videos/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createUploadSessionDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(result -> {
+                    UploadSessionDTO response = objectMapper.readValue(
+                            result.getResponse().getContentAsString(), UploadSessionDTO.class);
+                    assertEquals("session123", response.getSessionId());
+                    assertEquals(10, response.getChunkSize());
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void uploadChunkTest_Success() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("session123"), eq(10L), eq(10L), any())).thenReturn(
+                new UploadSessionDTO("session123", 25, 10, UploadSessionStatus.IN_PROGRESS, List.of(10L)));
+
+        mockMvc.perform(put("/api/videos/uploads/session123/chunks")
+                        .param("offset", "10")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[10]))
+                .andExpect(status().isOk())
+                .andExpect(result -> {
+                    UploadSessionDTO response = objectMapper.readValue(
+                            result.getResponse().getContentAsString(), UploadSessionDTO.class);
+                    assertEquals(List.of(10L), response.getReceivedOffsets());
+                });
+        verify(uploadSessionService, times(1)).uploadChunk(eq("session123"), eq(10L), eq(10L), any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void uploadChunkTest_SessionNotFound() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("missing"), eq(0L), eq(10L), any()))
+                .thenThrow(new IllegalArgumentException("Cannot find upload session by ID: missing"));
+
+        mockMvc.perform(put("/api/videos/uploads/missing/chunks")
+                        .param("offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[10]))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void completeUploadSessionTest_Success() throws Exception {
+        when(uploadSessionService.completeSession("session123"))
+                .thenReturn(new VideoUploadResponseDTO("video123", "https://example.com/key.mp4"));
+
+        mockMvc.perform(post("/api/videos/uploads/session123/complete"))
+                .andExpect(status().isCreated())
+                .andExpect(result -> {
+                    VideoUploadResponseDTO response = objectMapper.readValue(
+                            result.getResponse().getContentAsString(), VideoUploadResponseDTO.class);
+                    assertEquals("video123", response.getVideoId());
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void abortUploadSessionTest_Success() throws Exception {
+        mockMvc.perform(delete("/api/videos/uploads/session123"))
+                .andExpect(status().isOk());
+        verify(uploadSessionService, times(1)).abortSession("session123");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void createDirectUploadTest_Success() throws Exception {
+        CreateUploadSessionDTO createUploadSessionDTO = new CreateUploadSessionDTO("clip.mp4", "video/mp4", 15);
+        when(uploadSessionService.createDirectSession(createUploadSessionDTO)).thenReturn(new DirectUploadDTO(
+                "session123", 15, 10, List.of("https://signed/1", "https://signed/2"), Instant.EPOCH));
+
+        mockMvc.perform(post("/api/videos/uploads/direct")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createUploadSessionDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(result -> {
+                    JSONObject response = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals("session123", response.getString("sessionId"));
+                    assertEquals(2, response.getJSONArray("uploadUrls").length());
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getChunkUploadUrlTest_Success() throws Exception {
+        when(uploadSessionService.presignChunk("session123", 10L)).thenReturn("https://signed/2");
+
+        mockMvc.perform(get("/api/videos/uploads/session123/chunks/url").param("offset", "10"))
+                .andExpect(status().isOk())
+                .andExpect(result -> {
+                    JSONObject response = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals("https://signed/2", response.getString("uploadUrl"));
+                });
+    }
+}
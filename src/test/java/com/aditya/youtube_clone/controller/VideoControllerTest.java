@@ -1,8 +1,13 @@
 package com.aditya.youtube_clone.controller;
 
 import com.aditya.youtube_clone.config.TestSecurityConfig;
+import com.aditya.youtube_clone.dto.ProcessingStatusDTO;
+import com.aditya.youtube_clone.dto.UniqueViewersDTO;
 import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.dto.VideoPageDTO;
 import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.exception.TransferPipelineSaturatedException;
+import com.aditya.youtube_clone.model.JobStatus;
 import com.aditya.youtube_clone.model.VideoStatus;
 import com.aditya.youtube_clone.service.S3Service;
 import com.aditya.youtube_clone.service.VideoService;
@@ -17,22 +22,31 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Slf4j
@@ -67,11 +81,14 @@ public class VideoControllerTest  {
     @Test
     @WithMockUser(username = "testuser")
     public void uploadVideoTest_Success() throws Exception {
-        doReturn(new VideoUploadResponseDTO("1","https://example.com"))
+        doReturn(CompletableFuture.completedFuture(new VideoUploadResponseDTO("1","https://example.com")))
                 .when(videoService).uploadVideo(mockMultipartFile);
 
-        mockMvc.perform(multipart("/api/videos")
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/videos")
                         .file(mockMultipartFile))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isCreated())
                 .andExpect(result -> {
                     String responseBody = result.getResponse().getContentAsString();
@@ -84,6 +101,27 @@ public class VideoControllerTest  {
         verify(videoService).uploadVideo(any());
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    public void uploadVideoStreamTest_Success() throws Exception {
+        doReturn(new VideoUploadResponseDTO("1", "https://example.com"))
+                .when(videoService).uploadVideoStream(any(), eq("video/mp4"), eq("test-video.mp4"));
+
+        mockMvc.perform(post("/api/videos/stream")
+                        .contentType("video/mp4")
+                        .header("X-File-Name", "test-video.mp4")
+                        .content("Dummy video content".getBytes()))
+                .andExpect(status().isCreated())
+                .andExpect(result -> {
+                    VideoUploadResponseDTO response = new ObjectMapper().readValue(
+                            result.getResponse().getContentAsString(), VideoUploadResponseDTO.class);
+                    assertEquals("https://example.com", response.getVideoUrl());
+                    assertEquals("1", response.getVideoId());
+                });
+
+        verify(videoService).uploadVideoStream(any(), eq("video/mp4"), eq("test-video.mp4"));
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     public void uploadVideoTest_IOError()  {
@@ -151,6 +189,18 @@ public class VideoControllerTest  {
         }
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    public void uploadVideoTest_TransferPipelineSaturated() throws Exception {
+        doThrow(new TransferPipelineSaturatedException(5))
+                .when(videoService).uploadVideo(any());
+
+        mockMvc.perform(multipart("/api/videos")
+                        .file(mockMultipartFile))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     public void uploadVideoTest_EmptyFile() throws Exception {
@@ -337,13 +387,16 @@ public class VideoControllerTest  {
     public void uploadThumbnailTest_Success() throws Exception {
         String videoId = "video123";
 
-        doReturn("https://thumbnail.url").when(videoService)
+        doReturn(CompletableFuture.completedFuture("https://thumbnail.url")).when(videoService)
                 .uploadThumbnail(any(), eq(videoId));
 
         // Perform the file upload request and verify the response status
-        mockMvc.perform(multipart("/api/videos/thumbnail")
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/videos/thumbnail")
                         .file(mockMultipartFile)
                         .param("videoId", videoId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isCreated());
         verify(videoService).uploadThumbnail(any(), eq(videoId));
     }
@@ -353,14 +406,17 @@ public class VideoControllerTest  {
     public void uploadThumbnailTest_Failure() throws Exception {
         String videoId = "video123";
 
-        doThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                "An error occurred while uploading the thumbnail."))
+        doReturn(CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                "An error occurred while uploading the thumbnail.")))
                 .when(videoService).uploadThumbnail(any(), eq(videoId));
 
         // Perform the file upload request and verify the response status
-        mockMvc.perform(multipart("/api/videos/thumbnail")
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/videos/thumbnail")
                         .file(mockMultipartFile)
                         .param("videoId", videoId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().is5xxServerError())
                 .andExpect(result -> {
                     Exception resolved = result.getResolvedException();
@@ -515,4 +571,261 @@ public class VideoControllerTest  {
         verify(videoService, times(1)).likeVideo(videoId);
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    public void dislikeVideoTest_Success() throws Exception {
+        String videoId = "video123";
+        VideoDTO videoDTOResponse = new VideoDTO();
+        videoDTOResponse.setId(videoId);
+        videoDTOResponse.setLikes(0);
+        videoDTOResponse.setDislikes(1);
+        doReturn(videoDTOResponse).when(videoService).dislikeVideo(videoId);
+        mockMvc.perform(post("/api/videos/{videoId}/dislike", videoId))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONObject jsonResponse = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals(0, jsonResponse.getInt("likes"));
+                    assertEquals(1, jsonResponse.getInt("dislikes"));
+                });
+        verify(videoService, times(1)).dislikeVideo(videoId);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getLikedVideosTest_Success() throws Exception {
+        VideoDTO likedVideo = new VideoDTO();
+        likedVideo.setId("video123");
+        likedVideo.setTitle("title");
+        doReturn(List.of(likedVideo)).when(videoService).getLikedVideos(2, 10);
+        mockMvc.perform(get("/api/videos/liked").param("page", "2").param("size", "10"))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONArray jsonResponse = new JSONArray(result.getResponse().getContentAsString());
+                    assertEquals(1, jsonResponse.length());
+                    assertEquals("video123", jsonResponse.getJSONObject(0).getString("id"));
+                });
+        verify(videoService, times(1)).getLikedVideos(2, 10);
+        verify(videoService, never()).getVideoDetails(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getLikedVideosTest_InvalidPage() throws Exception {
+        doThrow(new IllegalArgumentException("Page must be >= 0 and size between 1 and 100"))
+                .when(videoService).getLikedVideos(0, 500);
+        mockMvc.perform(get("/api/videos/liked").param("size", "500"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private VideoDTO videoDetails(VideoStatus videoStatus) {
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId("video123");
+        videoDTO.setTitle("title");
+        videoDTO.setVideoStatus(videoStatus);
+        videoDTO.setVersion(3);
+        return videoDTO;
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getVideoByIdTest_PublicVideoIsCacheable() throws Exception {
+        doReturn(videoDetails(VideoStatus.PUBLIC)).when(videoService).getVideoDetails("video123");
+        mockMvc.perform(get("/api/videos/{videoId}", "video123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"video123-3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, public, s-maxage=60"))
+                .andExpect(result -> assertEquals("title",
+                        new JSONObject(result.getResponse().getContentAsString()).getString("title")));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getVideoByIdTest_MatchingETagReturnsNotModified() throws Exception {
+        doReturn(videoDetails(VideoStatus.PUBLIC)).when(videoService).getVideoDetails("video123");
+        mockMvc.perform(get("/api/videos/{videoId}", "video123").header(HttpHeaders.IF_NONE_MATCH, "\"video123-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"video123-3\""))
+                .andExpect(result -> assertEquals(0, result.getResponse().getContentLength()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getVideoByIdTest_StaleETagReturnsBody() throws Exception {
+        doReturn(videoDetails(VideoStatus.PUBLIC)).when(videoService).getVideoDetails("video123");
+        mockMvc.perform(get("/api/videos/{videoId}", "video123").header(HttpHeaders.IF_NONE_MATCH, "\"video123-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"video123-3\""));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getVideoByIdTest_NonPublicVideosStayOutOfSharedCaches() throws Exception {
+        doReturn(videoDetails(VideoStatus.UNLISTED)).when(videoService).getVideoDetails("video123");
+        mockMvc.perform(get("/api/videos/{videoId}", "video123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+
+        doReturn(videoDetails(VideoStatus.PRIVATE)).when(videoService).getVideoDetails("video123");
+        mockMvc.perform(get("/api/videos/{videoId}", "video123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getVideoByIdTest_VideoNotFound() throws Exception {
+        doThrow(new IllegalArgumentException("Cannot find video by ID: missing"))
+                .when(videoService).getVideoDetails("missing");
+        mockMvc.perform(get("/api/videos/{videoId}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void listVideosTest_Success() throws Exception {
+        VideoDTO listedVideo = new VideoDTO();
+        listedVideo.setId("video123");
+        doReturn(new VideoPageDTO(List.of(listedVideo), "video123"))
+                .when(videoService).listVideos("userId", "music", null, 10);
+        mockMvc.perform(get("/api/videos").param("userId", "userId").param("tag", "music").param("size", "10"))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONObject jsonResponse = new JSONObject(result.getResponse().getContentAsString());
+                    assertEquals("video123", jsonResponse.getJSONArray("videos").getJSONObject(0).getString("id"));
+                    assertEquals("video123", jsonResponse.getString("nextCursor"));
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void listVideosTest_InvalidCursor() throws Exception {
+        doThrow(new IllegalArgumentException("Invalid video cursor: bad"))
+                .when(videoService).listVideos(null, null, "bad", 20);
+        mockMvc.perform(get("/api/videos").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void searchVideosTest_Success() throws Exception {
+        VideoDTO foundVideo = new VideoDTO();
+        foundVideo.setId("video123");
+        doReturn(List.of(foundVideo)).when(videoService).searchVideos("funny cats", VideoStatus.UNLISTED, 0, 20);
+        mockMvc.perform(get("/api/videos/search").param("q", "funny cats").param("status", "UNLISTED"))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONArray jsonResponse = new JSONArray(result.getResponse().getContentAsString());
+                    assertEquals("video123", jsonResponse.getJSONObject(0).getString("id"));
+                });
+        verify(videoService, never()).getVideoDetails(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void searchVideosTest_BlankQuery() throws Exception {
+        doThrow(new IllegalArgumentException("Search text must not be empty"))
+                .when(videoService).searchVideos(" ", null, 0, 20);
+        mockMvc.perform(get("/api/videos/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void autocompleteTitlesTest_Success() throws Exception {
+        doReturn(List.of("Funny cats")).when(videoService).autocompleteTitles("fun", 10);
+        mockMvc.perform(get("/api/videos/autocomplete").param("prefix", "fun"))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONArray jsonResponse = new JSONArray(result.getResponse().getContentAsString());
+                    assertEquals("Funny cats", jsonResponse.getString(0));
+                });
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getTrendingVideosTest_Success() throws Exception {
+        VideoDTO trendingVideo = new VideoDTO();
+        trendingVideo.setId("video123");
+        doReturn(List.of(trendingVideo)).when(videoService).getTrendingVideos(5);
+        mockMvc.perform(get("/api/videos/trending").param("limit", "5"))
+                .andExpect(status().isOk()).andExpect(result -> {
+                    JSONArray jsonResponse = new JSONArray(result.getResponse().getContentAsString());
+                    assertEquals("video123", jsonResponse.getJSONObject(0).getString("id"));
+                });
+        verify(videoService, never()).getVideoDetails(any());
+    }
+
+    @Test
+    @WithMockUser(username = "auth0|viewer")
+    public void recordViewTest_Accepted() throws Exception {
+        mockMvc.perform(post("/api/videos/{videoId}/views", "video123"))
+                .andExpect(status().isAccepted());
+        verify(videoService, times(1)).recordView("video123", "auth0|viewer");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void recordViewTest_InvalidVideoId() throws Exception {
+        doThrow(new IllegalArgumentException("Invalid video ID: bad"))
+                .when(videoService).recordView("bad", "testuser");
+        mockMvc.perform(post("/api/videos/{videoId}/views", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getUniqueViewersTest_Success() throws Exception {
+        LocalDate day = LocalDate.of(2026, 10, 1);
+        when(videoService.getUniqueViewers("video123", day, day.plusDays(1)))
+                .thenReturn(new UniqueViewersDTO("video123", 1500, Map.of(day, 1000L, day.plusDays(1), 800L)));
+
+        mockMvc.perform(get("/api/videos/{videoId}/unique-viewers", "video123")
+                        .param("from", "2026-10-01").param("to", "2026-10-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uniqueViewers").value(1500))
+                .andExpect(jsonPath("$.dailyUniqueViewers['2026-10-02']").value(800));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getUniqueViewersTest_InvalidRange() throws Exception {
+        when(videoService.getUniqueViewers(eq("video123"), any(), any()))
+                .thenThrow(new IllegalArgumentException("Range start 2026-10-02 is after its end 2026-10-01"));
+
+        mockMvc.perform(get("/api/videos/{videoId}/unique-viewers", "video123")
+                        .param("from", "2026-10-02").param("to", "2026-10-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/videos/{videoId}/unique-viewers", "video123").param("from", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getProcessingStatusTest_Success() throws Exception {
+        when(videoService.getProcessingStatus("video123"))
+                .thenReturn(new ProcessingStatusDTO("video123", JobStatus.RUNNING, 42, 1));
+
+        mockMvc.perform(get("/api/videos/{videoId}/processing", "video123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.progress").value(42));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getProcessingStatusTest_NoJob() throws Exception {
+        when(videoService.getProcessingStatus("video123"))
+                .thenThrow(new IllegalArgumentException("No transcoding job for video ID: video123"));
+
+        mockMvc.perform(get("/api/videos/{videoId}/processing", "video123"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getHomeFeedTest_Success() throws Exception {
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId("video123");
+        when(videoService.getHomeFeed("cursor123", 10)).thenReturn(new VideoPageDTO(List.of(videoDTO), "video123"));
+
+        mockMvc.perform(get("/api/videos/feed").param("cursor", "cursor123").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.videos[0].id").value("video123"))
+                .andExpect(jsonPath("$.nextCursor").value("video123"));
+    }
 }
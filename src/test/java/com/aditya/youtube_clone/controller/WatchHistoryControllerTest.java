@@ -0,0 +1,81 @@
+package com.aditya.youtube_clone.controller;
+
+import com.aditya.youtube_clone.config.TestSecurityConfig;
+import com.aditya.youtube_clone.dto.WatchEventDTO;
+import com.aditya.youtube_clone.service.WatchHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(WatchHistoryController.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class WatchHistoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WatchHistoryService watchHistoryService;
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void recordWatchEventTest_Success() throws Exception {
+        mockMvc.perform(post("/api/history")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"videoId\": \"video123\", \"positionSeconds\": 42, \"durationSeconds\": 600}"))
+                .andExpect(status().isNoContent());
+        verify(watchHistoryService, times(1)).recordWatchEvent("video123", 42, 600L);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void recordWatchEventTest_InvalidEvent() throws Exception {
+        doThrow(new IllegalArgumentException("Position and duration must be positive"))
+                .when(watchHistoryService).recordWatchEvent("video123", -5, null);
+
+        mockMvc.perform(post("/api/history")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"videoId\": \"video123\", \"positionSeconds\": -5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getContinueWatchingTest_Success() throws Exception {
+        when(watchHistoryService.getContinueWatching(10)).thenReturn(
+                List.of(new WatchEventDTO("video123", 120, 600L, Instant.now())));
+
+        mockMvc.perform(get("/api/history/continue-watching"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].videoId").value("video123"))
+                .andExpect(jsonPath("$[0].positionSeconds").value(120));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void getResumePositionTest_NotWatched() throws Exception {
+        when(watchHistoryService.getResumePosition("video123")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/history/{videoId}", "video123"))
+                .andExpect(status().isNotFound());
+    }
+}
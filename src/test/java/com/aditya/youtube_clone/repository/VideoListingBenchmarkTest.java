@@ -0,0 +1,175 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.dto.VideoPageDTO;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.service.CommentService;
+import com.aditya.youtube_clone.service.HomeFeedService;
+import com.aditya.youtube_clone.service.LikeCounterBuffer;
+import com.aditya.youtube_clone.service.S3Service;
+import com.aditya.youtube_clone.service.StorageCleanupService;
+import com.aditya.youtube_clone.service.ThumbnailService;
+import com.aditya.youtube_clone.service.TranscodingService;
+import com.aditya.youtube_clone.service.TrendingService;
+import com.aditya.youtube_clone.service.UniqueViewerService;
+import com.aditya.youtube_clone.service.UserService;
+import com.aditya.youtube_clone.service.VideoDetailsCache;
+import com.aditya.youtube_clone.service.VideoService;
+import com.aditya.youtube_clone.service.ViewCounterBuffer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Keyset listing against a large Video collection: a page deep in the feed should cost the same as the first
+ * one, while the equivalent skip-based page grows with the offset. Needs a real Mongo, run with
+ * BENCHMARK_MONGO_URI=mongodb://localhost:27017 mvn test -Dtest=VideoListingBenchmarkTest
+ * (BENCHMARK_VIDEO_COUNT defaults to 10 million, seeding takes a few minutes).
+ */
+@Slf4j
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MONGO_URI", matches = ".+")
+class VideoListingBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int USERS = 10_000;
+    private static final int TAGS = 1_000;
+    private static final int MEASURED_ITERATIONS = 50;
+    private static final int SKIP_ITERATIONS = 5;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private VideoService videoService;
+    private int videoCount;
+
+    @BeforeAll
+    void seed() {
+        videoCount = Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_VIDEO_COUNT", "10000000"));
+        mongoClient = MongoClients.create(System.getenv("BENCHMARK_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(mongoClient, "listing-benchmark-" + new ObjectId());
+        VideoRepository videoRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(VideoRepository.class);
+        videoService = new VideoService(mock(S3Service.class), mock(UserService.class), videoRepository,
+                mock(LikeCounterBuffer.class), mock(CommentService.class), mock(VideoDetailsCache.class), mongoTemplate,
+                mock(TrendingService.class), mock(ViewCounterBuffer.class), mock(UniqueViewerService.class),
+                mock(HomeFeedService.class), mock(ThumbnailService.class), mock(TranscodingService.class),
+                mock(StorageCleanupService.class));
+
+        MongoCollection<Document> videos = mongoTemplate.getCollection("Video");
+        List<Document> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < videoCount; i++) {
+            // One in ten videos is not public, so the status key does real filtering
+            batch.add(new Document("_id", new ObjectId())
+                    .append("title", "Video " + i)
+                    .append("userId", "user" + (i % USERS))
+                    .append("tags", List.of("tag" + (i % TAGS), "tag" + ((i * 7) % TAGS)))
+                    .append("videoStatus", i % 10 == 0 ? "PRIVATE" : "PUBLIC")
+                    .append("videoUrl", "https://bucket.s3.amazonaws.com/" + i + ".mp4"));
+            if (batch.size() == INSERT_BATCH) {
+                videos.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            videos.insertMany(batch);
+        }
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        IndexOperations indexOperations = mongoTemplate.indexOps(Video.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Video.class)
+                .forEach(indexOperations::ensureIndex);
+        log.info("✅Seeded {} videos", videoCount);
+    }
+
+    @AfterAll
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+
+    @Test
+    void deepKeysetPagesCostTheSameAsTheFirst() {
+        // A cursor near the oldest end of the public feed
+        int deepOffset = (int) (videoCount * 0.9 * 0.9);
+        String deepCursor = mongoTemplate.getCollection("Video")
+                .find(new Document("videoStatus", "PUBLIC"))
+                .sort(new Document("_id", -1))
+                .skip(deepOffset)
+                .limit(1)
+                .first()
+                .getObjectId("_id")
+                .toHexString();
+
+        long firstPage = p50Micros(MEASURED_ITERATIONS, () -> videoService.listVideos(null, null, null, PAGE_SIZE));
+        long deepPage = p50Micros(MEASURED_ITERATIONS, () -> videoService.listVideos(null, null, deepCursor, PAGE_SIZE));
+        long userPage = p50Micros(MEASURED_ITERATIONS, () -> videoService.listVideos("user42", null, null, PAGE_SIZE));
+        long tagPage = p50Micros(MEASURED_ITERATIONS, () -> videoService.listVideos(null, "tag42", null, PAGE_SIZE));
+        long skipPage = p50Micros(SKIP_ITERATIONS, () -> mongoTemplate.getCollection("Video")
+                .find(new Document("videoStatus", "PUBLIC"))
+                .sort(new Document("_id", -1))
+                .skip(deepOffset)
+                .limit(PAGE_SIZE)
+                .into(new ArrayList<>()));
+
+        log.info("📊first page:            p50 {} µs", firstPage);
+        log.info("📊keyset page at {}:  p50 {} µs", deepOffset, deepPage);
+        log.info("📊by user:               p50 {} µs", userPage);
+        log.info("📊by tag:                p50 {} µs", tagPage);
+        log.info("📊skip page at {}:    p50 {} µs", deepOffset, skipPage);
+
+        Document deepPlan = explain(new Document("videoStatus", "PUBLIC")
+                .append("_id", new Document("$lt", new ObjectId(deepCursor))));
+        Document tagPlan = explain(new Document("videoStatus", "PUBLIC").append("tags", "tag42"));
+        // The seek reads the page and the one look-ahead video, nothing before the cursor
+        assertEquals(PAGE_SIZE + 1, deepPlan.getInteger("totalDocsExamined"));
+        assertTrue(deepPlan.getInteger("totalKeysExamined") <= PAGE_SIZE + 2);
+        assertEquals(PAGE_SIZE + 1, tagPlan.getInteger("totalDocsExamined"));
+        VideoPageDTO deep = videoService.listVideos(null, null, deepCursor, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, deep.getVideos().size());
+    }
+
+    private Document explain(Document filter) {
+        Document find = new Document("find", "Video")
+                .append("filter", filter)
+                .append("sort", new Document("_id", -1))
+                .append("limit", PAGE_SIZE + 1);
+        return mongoTemplate.getDb()
+                .runCommand(new Document("explain", find).append("verbosity", "executionStats"))
+                .get("executionStats", Document.class);
+    }
+
+    private static long p50Micros(int iterations, Supplier<?> read) {
+        read.get();
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            read.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[iterations / 2] / 1_000;
+    }
+}
@@ -0,0 +1,129 @@
+package com.aditya.youtube_clone.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes read and latency of the full-document video read against the projections, on a video that
+ * still carries a large embedded comment list. Needs a real Mongo, run with
+ * BENCHMARK_MONGO_URI=mongodb://localhost:27017 mvn test -Dtest=VideoProjectionBenchmarkTest
+ */
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MONGO_URI", matches = ".+")
+class VideoProjectionBenchmarkTest {
+
+    private static final int EMBEDDED_COMMENTS = 5_000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private final AtomicLong findBytes = new AtomicLong();
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private VideoRepository videoRepository;
+    private String videoId;
+
+    @BeforeEach
+    void setUp() {
+        CommandListener findResponseSize = new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                if ("find".equals(event.getCommandName())) {
+                    findBytes.addAndGet(bsonSize(event.getResponse()));
+                }
+            }
+        };
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(System.getenv("BENCHMARK_MONGO_URI")))
+                .addCommandListener(findResponseSize)
+                .build());
+        mongoTemplate = new MongoTemplate(mongoClient, "projection-benchmark-" + new ObjectId());
+        videoRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(VideoRepository.class);
+
+        List<Document> comments = new ArrayList<>();
+        for (int i = 0; i < EMBEDDED_COMMENTS; i++) {
+            comments.add(new Document("_id", new ObjectId()).append("text", "comment " + i + " " + "x".repeat(200))
+                    .append("authorId", "user" + i).append("likeCount", 0).append("disLikeCount", 0));
+        }
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("Video").insertOne(new Document("_id", id)
+                .append("title", "Benchmark video")
+                .append("description", "A video with a long comment history")
+                .append("tags", List.of("benchmark", "projection"))
+                .append("videoUrl", "https://bucket.s3.amazonaws.com/video.mp4")
+                .append("videoStatus", "PUBLIC")
+                .append("thumbnailUrl", "https://bucket.s3.amazonaws.com/thumbnail.png")
+                .append("likes", 10).append("disLikes", 1)
+                .append("comments", comments));
+        videoId = id.toHexString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+
+    @Test
+    void projectionsReadOnlyTheFieldsTheyExpose() {
+        Measurement fullDocument = measure(() -> videoRepository.findById(videoId));
+        Measurement detailProjection = measure(() -> videoRepository.findDetailsById(videoId));
+        Measurement reactionProjection = measure(() -> videoRepository.findReactionViewById(videoId));
+        Measurement summaryProjection = measure(() -> videoRepository.findSummariesByIdIn(List.of(videoId)));
+
+        log.info("📊findById:             {} bytes/read, p50 {} µs", fullDocument.bytesPerRead(), fullDocument.p50Micros());
+        log.info("📊findDetailsById:      {} bytes/read, p50 {} µs", detailProjection.bytesPerRead(), detailProjection.p50Micros());
+        log.info("📊findReactionViewById: {} bytes/read, p50 {} µs", reactionProjection.bytesPerRead(), reactionProjection.p50Micros());
+        log.info("📊findSummariesByIdIn:  {} bytes/read, p50 {} µs", summaryProjection.bytesPerRead(), summaryProjection.p50Micros());
+
+        assertTrue(detailProjection.bytesPerRead() * 100 < fullDocument.bytesPerRead(),
+                "The detail projection should not pull the embedded comments");
+        assertTrue(reactionProjection.bytesPerRead() * 100 < fullDocument.bytesPerRead());
+        assertTrue(summaryProjection.bytesPerRead() * 100 < fullDocument.bytesPerRead());
+    }
+
+    private Measurement measure(Supplier<?> read) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            read.get();
+        }
+        findBytes.set(0);
+        long[] latencies = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            read.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new Measurement(findBytes.get() / MEASURED_ITERATIONS, latencies[MEASURED_ITERATIONS / 2] / 1_000);
+    }
+
+    private static long bsonSize(BsonDocument document) {
+        return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private record Measurement(long bytesPerRead, long p50Micros) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.aditya.youtube_clone.repository;
+
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.service.CommentService;
+import com.aditya.youtube_clone.service.HomeFeedService;
+import com.aditya.youtube_clone.service.LikeCounterBuffer;
+import com.aditya.youtube_clone.service.S3Service;
+import com.aditya.youtube_clone.service.StorageCleanupService;
+import com.aditya.youtube_clone.service.ThumbnailService;
+import com.aditya.youtube_clone.service.TranscodingService;
+import com.aditya.youtube_clone.service.TrendingService;
+import com.aditya.youtube_clone.service.UniqueViewerService;
+import com.aditya.youtube_clone.service.UserService;
+import com.aditya.youtube_clone.service.VideoDetailsCache;
+import com.aditya.youtube_clone.service.VideoService;
+import com.aditya.youtube_clone.service.ViewCounterBuffer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Search and autocomplete latency against a seeded catalog, checked against the 50ms p99 target. Needs a real
+ * Mongo, run with BENCHMARK_MONGO_URI=mongodb://localhost:27017 mvn test -Dtest=VideoSearchBenchmarkTest
+ * (BENCHMARK_VIDEO_COUNT defaults to one million).
+ */
+@Slf4j
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MONGO_URI", matches = ".+")
+class VideoSearchBenchmarkTest {
+
+    private static final int VOCABULARY_SIZE = 5_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int MEASURED_QUERIES = 1_000;
+    private static final long P99_TARGET_MICROS = 50_000;
+
+    private final Random random = new Random(42);
+    private final List<String> vocabulary = new ArrayList<>();
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private VideoService videoService;
+
+    @BeforeAll
+    void seed() {
+        int videoCount = Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_VIDEO_COUNT", "1000000"));
+        mongoClient = MongoClients.create(System.getenv("BENCHMARK_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(mongoClient, "search-benchmark-" + new ObjectId());
+        VideoRepository videoRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(VideoRepository.class);
+        videoService = new VideoService(mock(S3Service.class), mock(UserService.class), videoRepository,
+                mock(LikeCounterBuffer.class), mock(CommentService.class), mock(VideoDetailsCache.class), mongoTemplate,
+                mock(TrendingService.class), mock(ViewCounterBuffer.class), mock(UniqueViewerService.class),
+                mock(HomeFeedService.class), mock(ThumbnailService.class), mock(TranscodingService.class),
+                mock(StorageCleanupService.class));
+
+        Set<String> words = new HashSet<>();
+        while (words.size() < VOCABULARY_SIZE) {
+            words.add(randomWord());
+        }
+        vocabulary.addAll(words);
+
+        MongoCollection<Document> videos = mongoTemplate.getCollection("Video");
+        List<Document> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < videoCount; i++) {
+            List<String> titleWords = List.of(pick(), pick(), pick(), pick());
+            List<String> tags = List.of(pick(), pick());
+            Set<String> searchTerms = new HashSet<>(titleWords);
+            searchTerms.addAll(tags);
+            batch.add(new Document("_id", new ObjectId())
+                    .append("title", String.join(" ", titleWords))
+                    .append("description", String.join(" ", pick(), pick(), pick(), pick(), pick(), pick()))
+                    .append("tags", tags)
+                    .append("searchTerms", searchTerms)
+                    .append("videoStatus", i % 10 == 0 ? "PRIVATE" : "PUBLIC")
+                    .append("videoUrl", "https://bucket.s3.amazonaws.com/" + i + ".mp4"));
+            if (batch.size() == INSERT_BATCH) {
+                videos.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            videos.insertMany(batch);
+        }
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        IndexOperations indexOperations = mongoTemplate.indexOps(Video.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Video.class)
+                .forEach(indexOperations::ensureIndex);
+        log.info("✅Seeded {} videos over a {} word vocabulary", videoCount, VOCABULARY_SIZE);
+    }
+
+    @AfterAll
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+
+    @Test
+    void searchAndAutocompleteStayUnderTarget() {
+        long[] search = latencies(() -> videoService.searchVideos(pick() + " " + pick(), null, 0, 20));
+        long[] autocomplete = latencies(() -> videoService.autocompleteTitles(
+                pick() + " " + pick().substring(0, 3), 10));
+
+        log.info("📊search:       p50 {} µs, p99 {} µs", percentile(search, 50), percentile(search, 99));
+        log.info("📊autocomplete: p50 {} µs, p99 {} µs", percentile(autocomplete, 50), percentile(autocomplete, 99));
+
+        assertTrue(percentile(search, 99) < P99_TARGET_MICROS, "Search p99 is over 50ms");
+        assertTrue(percentile(autocomplete, 99) < P99_TARGET_MICROS, "Autocomplete p99 is over 50ms");
+    }
+
+    private long[] latencies(Supplier<?> query) {
+        for (int i = 0; i < MEASURED_QUERIES / 10; i++) {
+            query.get();
+        }
+        long[] latencies = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            query.get();
+            latencies[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedLatencies, int percentile) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile / 100)];
+    }
+
+    private String pick() {
+        return vocabulary.get(random.nextInt(vocabulary.size()));
+    }
+
+    private String randomWord() {
+        char[] letters = new char[6];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
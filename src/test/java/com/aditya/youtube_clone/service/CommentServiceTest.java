@@ -0,0 +1,150 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.CommentDTO;
+import com.aditya.youtube_clone.dto.CommentPageDTO;
+import com.aditya.youtube_clone.model.Comment;
+import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.repository.CommentRepository;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentServiceTest {
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private CommentService commentService;
+
+    private Comment comment(String id, long createdAtMillis) {
+        return new Comment(id, "videoId", "text " + id, "user123", 0, 0, Instant.ofEpochMilli(createdAtMillis));
+    }
+
+    private Query capturedFindQuery() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Comment.class));
+        return queryCaptor.getValue();
+    }
+
+    @Test
+    public void addCommentTest_Success() {
+        when(mongoTemplate.exists(any(Query.class), eq(Video.class))).thenReturn(true);
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> {
+            Comment saved = invocation.getArgument(0);
+            saved.setId("comment123");
+            return saved;
+        });
+
+        CommentDTO commentDTO = commentService.addComment("videoId", "Nice video");
+
+        assertEquals("comment123", commentDTO.getId());
+        assertEquals("videoId", commentDTO.getVideoId());
+        assertEquals("user123", commentDTO.getAuthorId());
+        assertEquals("Nice video", commentDTO.getText());
+        assertNotNull(commentDTO.getCreatedAt());
+        // The video document is only checked for existence, never loaded or rewritten
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(Video.class));
+        verify(mongoTemplate, never()).save(any(Video.class));
+    }
+
+    @Test
+    public void addCommentTest_VideoNotFound() {
+        when(mongoTemplate.exists(any(Query.class), eq(Video.class))).thenReturn(false);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                commentService.addComment("missingVideo", "Nice video"));
+
+        assertEquals("Cannot find video by ID: missingVideo", exception.getMessage());
+        verify(commentRepository, never()).save(any());
+    }
+
+    @Test
+    public void addCommentTest_BlankText() {
+        assertThrows(IllegalArgumentException.class, () -> commentService.addComment("videoId", "  "));
+        verifyNoInteractions(mongoTemplate, commentRepository);
+    }
+
+    @Test
+    public void getCommentsTest_FirstPageHasNextCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(Comment.class)))
+                .thenReturn(List.of(comment("c3", 3000), comment("c2", 2000), comment("c1", 1000)));
+
+        CommentPageDTO page = commentService.getComments("videoId", null, 2);
+
+        assertEquals(List.of("c3", "c2"), page.getComments().stream().map(CommentDTO::getId).toList());
+        assertNotNull(page.getNextCursor());
+        Query query = capturedFindQuery();
+        assertEquals(new Document("videoId", "videoId"), query.getQueryObject());
+        assertEquals(new Document("createdAt", -1).append("id", -1), query.getSortObject());
+        assertEquals(3, query.getLimit());
+    }
+
+    @Test
+    public void getCommentsTest_CursorSeeksPastLastComment() {
+        when(mongoTemplate.find(any(Query.class), eq(Comment.class)))
+                .thenReturn(List.of(comment("c3", 3000), comment("c2", 2000), comment("c1", 1000)))
+                .thenReturn(List.of(comment("c1", 1000)));
+        String cursor = commentService.getComments("videoId", null, 2).getNextCursor();
+
+        CommentPageDTO page = commentService.getComments("videoId", cursor, 2);
+
+        assertEquals(List.of("c1"), page.getComments().stream().map(CommentDTO::getId).toList());
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(Comment.class));
+        assertEquals(new Document("videoId", "videoId").append("$or", List.of(
+                        new Document("createdAt", new Document("$lt", Instant.ofEpochMilli(2000))),
+                        new Document("createdAt", Instant.ofEpochMilli(2000)).append("id", new Document("$lt", "c2")))),
+                queryCaptor.getAllValues().get(1).getQueryObject());
+    }
+
+    @Test
+    public void getCommentsTest_InvalidCursor() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                commentService.getComments("videoId", "not-a-cursor", 20));
+        assertEquals("Invalid comment cursor: not-a-cursor", exception.getMessage());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void getCommentsTest_InvalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> commentService.getComments("videoId", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> commentService.getComments("videoId", null, 101));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void deleteCommentsForVideoTest() {
+        when(mongoTemplate.remove(any(Query.class), eq(Comment.class))).thenReturn(DeleteResult.acknowledged(3));
+
+        commentService.deleteCommentsForVideo("videoId");
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(queryCaptor.capture(), eq(Comment.class));
+        assertEquals(new Document("videoId", "videoId"), queryCaptor.getValue().getQueryObject());
+    }
+}
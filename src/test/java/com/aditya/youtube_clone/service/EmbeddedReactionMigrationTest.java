@@ -0,0 +1,79 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Reaction;
+import com.aditya.youtube_clone.model.User;
+import com.aditya.youtube_clone.model.VideoReaction;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmbeddedReactionMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @InjectMocks
+    private EmbeddedReactionMigration embeddedReactionMigration;
+
+    @Test
+    void testMigrate_DisabledByDefault() {
+        embeddedReactionMigration.migrate();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testMigrate_MovesSetsIntoReactionsThenUnsetsThem() {
+        ReflectionTestUtils.setField(embeddedReactionMigration, "migrateEmbedded", true);
+        ObjectId userId = new ObjectId();
+        Document user = new Document("_id", userId)
+                .append("likedVideos", List.of("video1", "video2"))
+                .append("disLikedVideos", List.of("video3"));
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("User");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("User"))).thenReturn(Stream.of(user));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reaction.class)).thenReturn(bulkOperations);
+
+        embeddedReactionMigration.migrate();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).upsert(queryCaptor.capture(), updateCaptor.capture());
+        assertEquals(new Document("userId", userId.toHexString()).append("videoId", "video3"),
+                queryCaptor.getAllValues().get(2).getQueryObject());
+        // Reactions made after the deploy win over the migrated ones
+        assertEquals(new Document("type", VideoReaction.DISLIKE).append("createdAt",
+                        ((Document) updateCaptor.getAllValues().get(2).getUpdateObject().get("$setOnInsert")).get("createdAt")),
+                updateCaptor.getAllValues().get(2).getUpdateObject().get("$setOnInsert"));
+        // Migrated likes are already marked as first likes, dislikes have none
+        Document migratedLike = (Document) updateCaptor.getAllValues().get(0).getUpdateObject().get("$setOnInsert");
+        assertEquals(VideoReaction.LIKE, migratedLike.get("type"));
+        assertEquals(migratedLike.get("createdAt"), migratedLike.get("firstLikedAt"));
+        verify(bulkOperations).execute();
+
+        ArgumentCaptor<Update> unsetCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), unsetCaptor.capture(), eq("User"));
+        assertEquals(new Document("likedVideos", 1).append("disLikedVideos", 1),
+                unsetCaptor.getValue().getUpdateObject().get("$unset"));
+    }
+}
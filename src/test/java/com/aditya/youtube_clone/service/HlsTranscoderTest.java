@@ -0,0 +1,91 @@
+package com.aditya.youtube_clone.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class HlsTranscoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HlsTranscoder hlsTranscoder() {
+        HlsTranscoder hlsTranscoder = new HlsTranscoder(mock(S3Service.class), objectMapper);
+        ReflectionTestUtils.setField(hlsTranscoder, "ffmpegPath", "ffmpeg");
+        ReflectionTestUtils.setField(hlsTranscoder, "segmentSeconds", 6);
+        return hlsTranscoder;
+    }
+
+    @Test
+    void testRenditionsFor_SkipsRenditionsTallerThanSource() {
+        assertEquals(List.of("720p", "480p", "360p"),
+                HlsTranscoder.renditionsFor(720).stream().map(HlsTranscoder.Rendition::name).toList());
+        assertEquals(4, HlsTranscoder.renditionsFor(2160).size());
+        // A tiny source is kept at its own height rounded down to even, never upscaled
+        HlsTranscoder.Rendition tiny = HlsTranscoder.renditionsFor(241).getFirst();
+        assertEquals(240, tiny.height());
+        assertEquals("240p", tiny.name());
+    }
+
+    @Test
+    void testBuildCommand_OneDecodeForEveryRendition() {
+        List<String> command = hlsTranscoder().buildCommand(Path.of("/work/source"), Path.of("/work/hls"),
+                HlsTranscoder.renditionsFor(720), true);
+
+        assertEquals("ffmpeg", command.getFirst());
+        assertEquals(1, command.stream().filter("-i"::equals).count());
+        assertEquals("[0:v]split=3[s0][s1][s2];[s0]scale=-2:720[v0];[s1]scale=-2:480[v1];[s2]scale=-2:360[v2]",
+                valueOf(command, "-filter_complex"));
+        assertEquals("2800k", valueOf(command, "-b:v:0"));
+        assertEquals("800k", valueOf(command, "-b:v:2"));
+        assertEquals("v:0,a:0,name:720p v:1,a:1,name:480p v:2,a:2,name:360p", valueOf(command, "-var_stream_map"));
+        assertEquals("expr:gte(t,n_forced*6)", valueOf(command, "-force_key_frames"));
+        assertEquals("master.m3u8", valueOf(command, "-master_pl_name"));
+        assertEquals(Path.of("/work/hls/%v/playlist.m3u8").toString(), command.getLast());
+    }
+
+    @Test
+    void testBuildCommand_SilentSourceMapsNoAudio() {
+        List<String> command = hlsTranscoder().buildCommand(Path.of("/work/source"), Path.of("/work/hls"),
+                HlsTranscoder.renditionsFor(480), false);
+
+        assertFalse(command.contains("0:a:0"));
+        assertEquals("v:0,name:480p v:1,name:360p", valueOf(command, "-var_stream_map"));
+    }
+
+    @Test
+    void testParseProbe_ReadsDurationHeightAndAudio() throws IOException {
+        HlsTranscoder.SourceInfo sourceInfo = HlsTranscoder.parseProbe(objectMapper.readTree("""
+                {"streams": [{"codec_type": "video", "height": 1080}, {"codec_type": "audio"}],
+                 "format": {"duration": "93.5"}}"""));
+
+        assertEquals(93.5, sourceInfo.durationSeconds());
+        assertEquals(1080, sourceInfo.height());
+        assertTrue(sourceInfo.hasAudio());
+        assertThrows(IOException.class, () -> HlsTranscoder.parseProbe(objectMapper.readTree("""
+                {"streams": [{"codec_type": "audio"}], "format": {"duration": "10"}}""")));
+    }
+
+    @Test
+    void testProgressPercent_ScalesEncodedTimeToTheEncodingShare() {
+        assertEquals(45, HlsTranscoder.progressPercent("out_time_us=50000000", 100));
+        assertEquals(45, HlsTranscoder.progressPercent("out_time_ms=50000000", 100));
+        // Encoding alone never reports done, the upload is still to come
+        assertEquals(89, HlsTranscoder.progressPercent("out_time_us=100000000", 100));
+        assertEquals(-1, HlsTranscoder.progressPercent("out_time_us=N/A", 100));
+        assertEquals(-1, HlsTranscoder.progressPercent("frame=120", 100));
+        assertEquals(-1, HlsTranscoder.progressPercent("out_time_us=5000000", 0));
+    }
+
+    private static String valueOf(List<String> command, String option) {
+        int index = command.indexOf(option);
+        assertTrue(index >= 0, option + " is missing");
+        return command.get(index + 1);
+    }
+}
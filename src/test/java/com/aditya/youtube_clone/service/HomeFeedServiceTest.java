@@ -0,0 +1,139 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Video;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HomeFeedServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private JobQueue jobQueue;
+
+    @InjectMocks
+    private HomeFeedService homeFeedService;
+
+    private static List<String> subscribers(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> String.format("subscriber%05d", i)).toList();
+    }
+
+    private static FeedEntry entry(String videoId) {
+        return new FeedEntry(null, "viewer", videoId, "creator", null);
+    }
+
+    private static Video video(String videoId) {
+        Video video = new Video();
+        video.setId(videoId);
+        return video;
+    }
+
+    @Test
+    public void fanOutTest_WritesOneEntryPerSubscriberInBatches() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FeedEntry.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(subscriptionService.getSubscriberIds(eq("creator"), isNull(), eq(1000))).thenReturn(subscribers(0, 1000));
+        when(subscriptionService.getSubscriberIds("creator", "subscriber00999", 1000)).thenReturn(subscribers(1000, 1500));
+
+        homeFeedService.fanOut("videoId", "creator");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedEntry>> batchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(2)).insert(batchCaptor.capture());
+        List<FeedEntry> entries = new ArrayList<>();
+        batchCaptor.getAllValues().forEach(entries::addAll);
+        assertEquals(1500, entries.size());
+        assertEquals("subscriber01499", entries.get(1499).getUserId());
+        assertEquals("videoId", entries.get(0).getVideoId());
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    public void fanOutTest_PullCreatorIsSkipped() {
+        when(subscriptionService.isPullCreator("celebrity")).thenReturn(true);
+
+        homeFeedService.fanOut("videoId", "celebrity");
+
+        verify(subscriptionService, never()).getSubscriberIds(anyString(), any(), anyInt());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void enqueueFanOutTest_KeysTheJobByVideo() {
+        homeFeedService.enqueueFanOut("videoId", "creator");
+
+        verify(jobQueue).enqueue(HomeFeedService.JOB_TYPE, "videoId", Map.of("creatorId", "creator"));
+    }
+
+    @Test
+    public void fanOutTest_FailureIsLeftToTheJobWorker() {
+        when(subscriptionService.getSubscriberIds(eq("creator"), isNull(), eq(1000)))
+                .thenThrow(new RuntimeException("Mongo unavailable"));
+
+        assertThrows(RuntimeException.class, () -> homeFeedService.fanOut("videoId", "creator"));
+    }
+
+    @Test
+    public void getFeedVideoIdsTest_PushOnlyFeedIsOneRangeScan() {
+        when(mongoTemplate.find(any(Query.class), eq(FeedEntry.class))).thenReturn(List.of(entry("b"), entry("a")));
+
+        assertEquals(List.of("b", "a"), homeFeedService.getFeedVideoIds("viewer", null, 21));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(FeedEntry.class));
+        assertEquals(new Document("videoId", -1), queryCaptor.getValue().getSortObject());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Video.class));
+    }
+
+    @Test
+    public void getFeedVideoIdsTest_MergesPulledCreatorsNewestFirst() {
+        String cursor = new ObjectId().toHexString();
+        List<String> ids = IntStream.range(0, 5).mapToObj(i -> new ObjectId().toHexString()).toList();
+        when(mongoTemplate.find(any(Query.class), eq(FeedEntry.class)))
+                .thenReturn(List.of(entry(ids.get(4)), entry(ids.get(1)), entry(ids.get(0))));
+        when(subscriptionService.getPullCreatorIds("viewer")).thenReturn(List.of("celebrity"));
+        when(mongoTemplate.find(any(Query.class), eq(Video.class)))
+                .thenReturn(List.of(video(ids.get(3)), video(ids.get(1))));
+
+        List<String> feed = homeFeedService.getFeedVideoIds("viewer", cursor, 3);
+
+        assertEquals(List.of(ids.get(4), ids.get(3), ids.get(1)), feed);
+        ArgumentCaptor<Query> pulledCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(pulledCaptor.capture(), eq(Video.class));
+        Document pulled = pulledCaptor.getValue().getQueryObject();
+        assertEquals(new Document("$lt", new ObjectId(cursor)), pulled.get("id"));
+        assertEquals(new Document("$in", List.of("celebrity")), pulled.get("userId"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.JobStatus;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JobQueueTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private JobQueue jobQueue;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jobQueue, "lease", Duration.ofMinutes(2));
+    }
+
+    private static Job leasedJob() {
+        Job job = new Job();
+        job.setId("job1");
+        job.setType("transcode");
+        job.setKey("video1");
+        job.setLeaseToken("token");
+        return job;
+    }
+
+    @Test
+    public void enqueueTest_QueuesJobDueNow() {
+        assertTrue(jobQueue.enqueue("transcode", "video1", Map.of("sourceUrl", "source")));
+
+        ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+        verify(mongoTemplate).insert(jobCaptor.capture());
+        Job job = jobCaptor.getValue();
+        assertEquals(JobStatus.QUEUED, job.getStatus());
+        assertEquals("video1", job.getKey());
+        assertEquals("source", job.getPayload().get("sourceUrl"));
+        assertNotNull(job.getRunAt());
+    }
+
+    @Test
+    public void enqueueTest_SameKeyIsQueuedOnce() {
+        when(mongoTemplate.insert(any(Job.class))).thenThrow(new DuplicateKeyException("type_key_unique"));
+
+        assertFalse(jobQueue.enqueue("transcode", "video1", Map.of()));
+    }
+
+    @Test
+    public void claimTest_TakesDueJobOfItsTypeWithFreshLease() {
+        Instant now = Instant.parse("2026-10-18T12:00:00Z");
+        jobQueue.claim("transcode", now);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(Job.class));
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertEquals("transcode", query.get("type"));
+        // Queued jobs that are due, and running jobs whose worker stopped renewing
+        List<?> due = (List<?>) query.get("$or");
+        assertEquals(new Document("status", JobStatus.QUEUED).append("runAt", new Document("$lte", now)), due.get(0));
+        assertEquals(new Document("status", JobStatus.RUNNING).append("leaseExpiresAt", new Document("$lt", now)),
+                due.get(1));
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        assertEquals(JobStatus.RUNNING, set.get("status"));
+        assertEquals(now.plus(Duration.ofMinutes(2)), set.get("leaseExpiresAt"));
+        assertNotNull(set.get("leaseToken"));
+        assertEquals(new Document("attempts", 1), updateCaptor.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    public void completeTest_IsFencedOnTheLeaseToken() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Job.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        Instant expireAt = Instant.parse("2026-10-25T12:00:00Z");
+
+        assertFalse(jobQueue.complete(leasedJob(), expireAt));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(Job.class));
+        assertEquals(new Document("_id", "job1").append("leaseToken", "token"), queryCaptor.getValue().getQueryObject());
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        assertEquals(JobStatus.SUCCEEDED, set.get("status"));
+        assertEquals(expireAt, set.get("expireAt"));
+    }
+
+    @Test
+    public void releaseTest_GivesTheAttemptBack() {
+        jobQueue.release(leasedJob());
+
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), updateCaptor.capture(), eq(Job.class));
+        assertEquals(JobStatus.QUEUED, ((Document) updateCaptor.getValue().getUpdateObject().get("$set")).get("status"));
+        assertEquals(new Document("attempts", -1), updateCaptor.getValue().getUpdateObject().get("$inc"));
+    }
+}
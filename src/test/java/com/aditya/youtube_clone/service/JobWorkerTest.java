@@ -0,0 +1,149 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class JobWorkerTest {
+
+    private final JobQueue jobQueue = mock(JobQueue.class);
+    private final JobHandler handler = mock(JobHandler.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JobWorker jobWorker;
+
+    @BeforeEach
+    void setUp() {
+        jobWorker = new JobWorker(jobQueue, List.of(handler), meterRegistry);
+        ReflectionTestUtils.setField(jobWorker, "workerEnabled", true);
+        ReflectionTestUtils.setField(jobWorker, "heartbeatInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(jobWorker, "retryBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(jobWorker, "maxRetryBackoff", Duration.ofHours(1));
+        ReflectionTestUtils.setField(jobWorker, "succeededRetention", Duration.ofDays(7));
+        when(handler.type()).thenReturn("transcode");
+        when(handler.maxAttempts()).thenReturn(3);
+    }
+
+    private static Job claimedJob(int attempts) {
+        Job job = new Job();
+        job.setId("job" + attempts);
+        job.setType("transcode");
+        job.setKey("video1");
+        job.setAttempts(attempts);
+        job.setLeaseToken("token");
+        return job;
+    }
+
+    @Test
+    public void runTest_SuccessCompletesWithExpiry() {
+        when(jobQueue.complete(any(), any())).thenReturn(true);
+        Instant before = Instant.now();
+
+        jobWorker.run(handler, claimedJob(1));
+
+        verify(jobQueue).complete(any(), argThat(expireAt -> !expireAt.isBefore(before.plus(Duration.ofDays(7)))));
+        assertEquals(1, meterRegistry.get("jobs.runs").tag("outcome", "succeeded").timer().count());
+    }
+
+    @Test
+    public void runTest_KeptJobsNeverExpire() {
+        when(handler.keepSucceeded()).thenReturn(true);
+        when(jobQueue.complete(any(), any())).thenReturn(true);
+
+        jobWorker.run(handler, claimedJob(1));
+
+        verify(jobQueue).complete(any(), isNull());
+    }
+
+    @Test
+    public void runTest_FailureIsRetriedWithBackoff() throws Exception {
+        doThrow(new IOException("ffmpeg exited with 1")).when(handler).handle(any(), any());
+        Instant before = Instant.now();
+
+        jobWorker.run(handler, claimedJob(2));
+
+        // Second attempt waits between half and all of twice the base backoff
+        verify(jobQueue).retry(any(), argThat(runAt -> !runAt.isBefore(before.plusSeconds(30))
+                && runAt.isBefore(before.plusSeconds(61))), eq("IOException: ffmpeg exited with 1"));
+        verify(jobQueue, never()).deadLetter(any(), anyString());
+    }
+
+    @Test
+    public void runTest_LastAttemptIsDeadLettered() throws Exception {
+        doThrow(new IOException("corrupt input")).when(handler).handle(any(), any());
+        when(jobQueue.deadLetter(any(), anyString())).thenReturn(true);
+        Job job = claimedJob(3);
+
+        jobWorker.run(handler, job);
+
+        verify(jobQueue).deadLetter(job, "IOException: corrupt input");
+        verify(handler).onDeadLetter(job);
+        verify(jobQueue, never()).retry(any(), any(), any());
+    }
+
+    @Test
+    public void runTest_LostLeaseStopsWithoutTouchingTheJob() throws Exception {
+        ReflectionTestUtils.setField(jobWorker, "heartbeatInterval", Duration.ofMillis(10));
+        doAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return null;
+        }).when(handler).handle(any(), any());
+        // Another worker claimed the job, the heartbeat's fenced renewal no longer matches
+        when(jobQueue.renewLease(any(), anyInt())).thenReturn(false);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> jobWorker.run(handler, claimedJob(1)));
+
+        verify(jobQueue, never()).complete(any(), any());
+        verify(jobQueue, never()).retry(any(), any(), any());
+        verify(jobQueue, never()).release(any());
+    }
+
+    @Test
+    public void backoffTest_IsCapped() {
+        Duration backoff = jobWorker.backoff(30);
+
+        assertFalse(backoff.compareTo(Duration.ofMinutes(30)) < 0);
+        assertFalse(backoff.compareTo(Duration.ofHours(1)) > 0);
+    }
+
+    @Test
+    public void pollTest_ClaimsUpToTheHandlersConcurrency() throws Exception {
+        CountDownLatch finish = new CountDownLatch(1);
+        when(handler.concurrency()).thenReturn(2);
+        when(jobQueue.claim(eq("transcode"), any())).thenReturn(claimedJob(1), claimedJob(2), claimedJob(3));
+        when(jobQueue.complete(any(), any())).thenReturn(true);
+        doAnswer(invocation -> finish.await(5, TimeUnit.SECONDS)).when(handler).handle(any(), any());
+
+        jobWorker.poll();
+        jobWorker.poll();
+
+        verify(jobQueue, times(2)).claim(eq("transcode"), any());
+        finish.countDown();
+        verify(jobQueue, timeout(5000).times(2)).complete(any(), any());
+    }
+
+    @Test
+    public void pollTest_DisabledWorkerNeverClaims() {
+        ReflectionTestUtils.setField(jobWorker, "workerEnabled", false);
+
+        jobWorker.poll();
+
+        verifyNoInteractions(jobQueue);
+    }
+}
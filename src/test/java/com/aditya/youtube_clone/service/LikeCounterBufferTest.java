@@ -0,0 +1,218 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeCounterBufferTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @TempDir
+    private Path walDirectory;
+
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @BeforeEach
+    void setUp() {
+        likeCounterBuffer = new LikeCounterBuffer(mongoTemplate);
+    }
+
+    private LikeCounterBuffer walBackedBuffer() throws IOException {
+        LikeCounterBuffer walBuffer = new LikeCounterBuffer(mongoTemplate);
+        ReflectionTestUtils.setField(walBuffer, "walEnabled", true);
+        ReflectionTestUtils.setField(walBuffer, "walDirectory", walDirectory);
+        walBuffer.openWriteAheadLog();
+        return walBuffer;
+    }
+
+    private List<Document> flushedIncrements() {
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), updateCaptor.capture());
+        return updateCaptor.getAllValues().stream()
+                .map(update -> (Document) update.getUpdateObject().get("$inc"))
+                .toList();
+    }
+
+    @Test
+    void testFlush_ConcurrentLikesBecomeOneBulkIncrement() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        int users = 5000;
+
+        // Half of the users switch from an earlier dislike, the rest like for the first time
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                boolean switchedFromDislike = i % 2 == 0;
+                results.add(executor.submit(() ->
+                        likeCounterBuffer.record("videoId", 1, switchedFromDislike ? -1 : 0)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        assertEquals(users, likeCounterBuffer.getPendingLikes("videoId"));
+        likeCounterBuffer.flush();
+
+        // Thousands of likes cost a single counter write
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(List.of(new Document("likes", (long) users).append("disLikes", (long) -users / 2)),
+                flushedIncrements());
+        assertEquals(0, likeCounterBuffer.getPendingLikes("videoId"));
+    }
+
+    @Test
+    void testFlush_NothingPendingSkipsMongo() {
+        likeCounterBuffer.flush();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testFlush_IdleVideosAreDropped() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        likeCounterBuffer.record("videoId", 1, 0);
+        likeCounterBuffer.flush();
+        likeCounterBuffer.flush();
+        likeCounterBuffer.flush();
+
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class);
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(likeCounterBuffer, "counters")).isEmpty());
+    }
+
+    @Test
+    void testFlush_FailedBulkWriteIsRetried() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new RuntimeException("Mongo unavailable"))
+                .thenReturn(null);
+        likeCounterBuffer.record("videoId", 1, 0);
+        likeCounterBuffer.record("videoId", 1, 0);
+
+        likeCounterBuffer.flush();
+        assertEquals(2, likeCounterBuffer.getPendingLikes("videoId"));
+        likeCounterBuffer.flush();
+
+        assertEquals(0, likeCounterBuffer.getPendingLikes("videoId"));
+        List<Document> increments = flushedIncrements();
+        assertEquals(new Document("likes", 2L), increments.get(increments.size() - 1));
+    }
+
+    @Test
+    void testFlush_PartialFailureAddsBackOnlyTheFailedDeltas() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        // The second update of the bulk write failed, the first one was applied
+        when(bulkOperations.execute())
+                .thenThrow(new BulkOperationException("1 of 2 writes failed", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), List.of(new BulkWriteError(91, "shutting down",
+                        new BsonDocument(), 1)), null, new ServerAddress(), Set.of())))
+                .thenReturn(null);
+        likeCounterBuffer.record("video1", 1, 0);
+        likeCounterBuffer.record("video2", 1, 0);
+
+        likeCounterBuffer.flush();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).updateOne(queryCaptor.capture(), any(Update.class));
+        String failedVideoId = (String) queryCaptor.getAllValues().get(1).getQueryObject().get("id");
+        String appliedVideoId = failedVideoId.equals("video1") ? "video2" : "video1";
+        assertEquals(1, likeCounterBuffer.getPendingLikes(failedVideoId));
+        assertEquals(0, likeCounterBuffer.getPendingLikes(appliedVideoId));
+    }
+
+    @Test
+    void testWriteAheadLog_RecoversUnflushedDeltasAfterCrash() throws IOException {
+        LikeCounterBuffer crashedBuffer = walBackedBuffer();
+        crashedBuffer.record("videoId", 1, 0);
+        crashedBuffer.record("videoId", 1, -1);
+        crashedBuffer.record("otherVideoId", 0, 1);
+        crashedBuffer.syncWriteAheadLog();
+        // No flush and no shutdown hook: the process died here
+
+        LikeCounterBuffer restartedBuffer = walBackedBuffer();
+
+        assertEquals(2, restartedBuffer.getPendingLikes("videoId"));
+        assertEquals(-1, restartedBuffer.getPendingDisLikes("videoId"));
+        assertEquals(1, restartedBuffer.getPendingDisLikes("otherVideoId"));
+    }
+
+    @Test
+    void testWriteAheadLog_SegmentsDeletedOnlyAfterSuccessfulFlush() throws IOException {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new RuntimeException("Mongo unavailable"))
+                .thenReturn(null);
+        LikeCounterBuffer walBuffer = walBackedBuffer();
+        walBuffer.record("videoId", 1, 0);
+
+        walBuffer.flush();
+        // The failed flush keeps the sealed segment next to the new one
+        assertTrue(Files.exists(walDirectory.resolve("reactions-1.wal")));
+        assertTrue(Files.exists(walDirectory.resolve("reactions-2.wal")));
+
+        walBuffer.flush();
+        assertFalse(Files.exists(walDirectory.resolve("reactions-1.wal")));
+        assertFalse(Files.exists(walDirectory.resolve("reactions-2.wal")));
+        assertTrue(Files.exists(walDirectory.resolve("reactions-3.wal")));
+        assertEquals(0, walBuffer.getPendingLikes("videoId"));
+    }
+
+    @Test
+    void testWriteAheadLog_SkipsTornRecord() throws IOException {
+        Files.writeString(walDirectory.resolve("reactions-7.wal"), "videoId 1 0\nvideoId 1 0\nvideo");
+
+        LikeCounterBuffer walBuffer = walBackedBuffer();
+
+        assertEquals(2, walBuffer.getPendingLikes("videoId"));
+        assertTrue(Files.exists(walDirectory.resolve("reactions-8.wal")));
+    }
+
+    @Test
+    void testRecord_FailsWhenWriteAheadLogIsClosed() throws IOException {
+        LikeCounterBuffer walBuffer = walBackedBuffer();
+        walBuffer.shutdown();
+
+        assertThrows(RuntimeException.class, () -> walBuffer.record("videoId", 1, 0));
+        assertEquals(0, walBuffer.getPendingLikes("videoId"));
+    }
+}
@@ -1,30 +1,69 @@
 package com.aditya.youtube_clone.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.aditya.youtube_clone.exception.TransferPipelineSaturatedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.S3Utilities;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
 import software.amazon.awssdk.services.s3.model.GetUrlRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.PutObjectAclRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 import static com.aditya.youtube_clone.constants.Constants.AWS_S3_BUCKET_NAME;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @Slf4j
@@ -33,9 +72,31 @@ public class S3ServiceTest {
     @Mock
     private S3Client s3Client;
 
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private ExecutorService s3UploadExecutor;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private Semaphore s3TransferPermits = new Semaphore(2);
+
     @InjectMocks
     private S3Service s3Service;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3Service, "bucketName", AWS_S3_BUCKET_NAME);
+        ReflectionTestUtils.setField(s3Service, "publicReadAcl", true);
+        ReflectionTestUtils.setField(s3Service, "retryAfterSeconds", 5L);
+    }
+
     @Test
     public void testUploadFile_Success() {
         // Create a mock MultipartFile
@@ -54,18 +115,53 @@ public class S3ServiceTest {
             when(mockMultipartFile.getInputStream()).thenReturn(
                     new java.io.ByteArrayInputStream("Dummy file content".getBytes())
             );
+            when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                    .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
 
             // Call the method under test
-            assertEquals("http://mock-s3-url/test-file.txt",s3Service.uploadFile(mockMultipartFile));
+            assertEquals("http://mock-s3-url/test-file.txt",s3Service.uploadFile(mockMultipartFile).join());
 
-            // Verify that s3Client.putObject was called
-            verify(s3Client, times(1)).putObject((PutObjectRequest) any(), (RequestBody) any());
+            // Verify that s3AsyncClient.putObject was called
+            ArgumentCaptor<PutObjectRequest> putObjectCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+            verify(s3AsyncClient, times(1)).putObject(putObjectCaptor.capture(), any(AsyncRequestBody.class));
+            // ACL and content type are applied on the PUT itself rather than in follow-up requests
+            assertEquals(ObjectCannedACL.PUBLIC_READ, putObjectCaptor.getValue().acl());
+            assertEquals("text/plain", putObjectCaptor.getValue().contentType());
+            verify(s3Client, never()).putObjectAcl(any(PutObjectAclRequest.class));
+            assertEquals(1, meterRegistry.get("s3.requests").tag("operation", "putObject").timer().count());
+            // The transfer permit is handed back once the upload completes
+            assertEquals(2, s3TransferPermits.availablePermits());
         } catch (IOException e) {
             // This block should not be reached in this test
             log.error(e.getMessage());
         }
     }
 
+    @Test
+    public void testUploadFile_BucketPolicyMode() throws IOException {
+        ReflectionTestUtils.setField(s3Service, "bucketName", "custom-bucket");
+        ReflectionTestUtils.setField(s3Service, "publicReadAcl", false);
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        S3Utilities s3Utilities = mock(S3Utilities.class);
+        URL mockURL = mock(URL.class);
+        when(s3Client.utilities()).thenReturn(s3Utilities);
+        when(mockURL.toString()).thenReturn("http://mock-s3-url/test-file.txt");
+        when(s3Utilities.getUrl(any(GetUrlRequest.class))).thenReturn(mockURL);
+        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-file.txt");
+        when(mockMultipartFile.getSize()).thenReturn(18L);
+        when(mockMultipartFile.getInputStream()).thenReturn(
+                new java.io.ByteArrayInputStream("Dummy file content".getBytes()));
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        s3Service.uploadFile(mockMultipartFile).join();
+
+        ArgumentCaptor<PutObjectRequest> putObjectCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient, times(1)).putObject(putObjectCaptor.capture(), any(AsyncRequestBody.class));
+        assertEquals("custom-bucket", putObjectCaptor.getValue().bucket());
+        assertNull(putObjectCaptor.getValue().acl());
+    }
+
     @Test
     public void testUploadFile_ThrowsException_OnIOError() throws IOException {
         // Create a mock MultipartFile instead of MockMultipartFile
@@ -98,6 +194,42 @@ public class S3ServiceTest {
         assertEquals("An unknown error occurred while uploading the file.", exception.getReason());
     }
 
+    @Test
+    public void testUploadFile_FailsAsynchronously_OnS3Error() throws IOException {
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-file.txt");
+        when(mockMultipartFile.getSize()).thenReturn(18L);
+        when(mockMultipartFile.getInputStream()).thenReturn(
+                new java.io.ByteArrayInputStream("Dummy file content".getBytes()));
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 unavailable")));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                s3Service.uploadFile(mockMultipartFile).join());
+
+        ResponseStatusException cause = (ResponseStatusException) exception.getCause();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, cause.getStatusCode());
+        assertEquals("An unknown error occurred while uploading the file.", cause.getReason());
+        assertEquals(2, s3TransferPermits.availablePermits());
+    }
+
+    @Test
+    public void testUploadFile_RejectedWhenPipelineSaturated() throws IOException {
+        ReflectionTestUtils.setField(s3Service, "s3TransferPermits", new Semaphore(0));
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-file.txt");
+        InputStream inputStream = spy(new ByteArrayInputStream("Dummy file content".getBytes()));
+        when(mockMultipartFile.getInputStream()).thenReturn(inputStream);
+
+        TransferPipelineSaturatedException exception = assertThrows(TransferPipelineSaturatedException.class, () ->
+                s3Service.uploadFile(mockMultipartFile));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals("5", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(inputStream).close();
+        verifyNoInteractions(s3AsyncClient);
+    }
+
     @Test
     void testDeleteFile_Success() {
         // Arrange
@@ -105,15 +237,15 @@ public class S3ServiceTest {
         String expectedKey = "file.mp4";
 
         DeleteObjectResponse mockResponse = DeleteObjectResponse.builder().build();
-        when(s3Client.deleteObject(any(Consumer.class))).thenReturn(mockResponse);
+        when(s3AsyncClient.deleteObject(any(Consumer.class))).thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         // Act
-        s3Service.deleteFile(fileUrl);
+        s3Service.deleteFile(fileUrl).join();
 
         // Assert
         ArgumentCaptor<Consumer<DeleteObjectRequest.Builder>> captor =
                 ArgumentCaptor.forClass(Consumer.class);
-        verify(s3Client).deleteObject(captor.capture());
+        verify(s3AsyncClient).deleteObject(captor.capture());
 
         // Verify the request built by the captured consumer
         DeleteObjectRequest.Builder builder = DeleteObjectRequest.builder();
@@ -122,5 +254,177 @@ public class S3ServiceTest {
 
         assertEquals(AWS_S3_BUCKET_NAME, actualRequest.bucket());
         assertEquals(expectedKey, actualRequest.key());
+        assertEquals(2, s3TransferPermits.availablePermits());
+    }
+
+    @Test
+    void testDeleteFile_FailsAsynchronously_OnS3Error() {
+        when(s3AsyncClient.deleteObject(any(Consumer.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 unavailable")));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                s3Service.deleteFile("https://bucket-name.s3.region.amazonaws.com/file.mp4").join());
+
+        ResponseStatusException cause = (ResponseStatusException) exception.getCause();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, cause.getStatusCode());
+        assertEquals("An error occurred while deleting the file.", cause.getReason());
+    }
+
+    private void configureMultipartUpload() {
+        ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofBytes(8));
+        ReflectionTestUtils.setField(s3Service, "maxInFlightParts", 2);
+        ReflectionTestUtils.setField(s3Service, "maxUploadSize", DataSize.ofBytes(64));
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-id").build());
+    }
+
+    @Test
+    void testUploadStream_Success() {
+        configureMultipartUpload();
+        S3Utilities s3Utilities = mock(S3Utilities.class);
+        URL mockURL = mock(URL.class);
+        when(s3Client.utilities()).thenReturn(s3Utilities);
+        when(mockURL.toString()).thenReturn("http://mock-s3-url/test-file.mp4");
+        when(s3Utilities.getUrl(any(GetUrlRequest.class))).thenReturn(mockURL);
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+
+        // 20 bytes with 8 byte parts -> 8 + 8 + 4
+        String url = s3Service.uploadStream(new ByteArrayInputStream("01234567890123456789".getBytes()),
+                "video/mp4", "mp4");
+
+        assertEquals("http://mock-s3-url/test-file.mp4", url);
+        verify(s3AsyncClient, times(3)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(captor.capture());
+        assertEquals(3, captor.getValue().multipartUpload().parts().size());
+        assertEquals("upload-id", captor.getValue().uploadId());
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertEquals(2, s3TransferPermits.availablePermits());
+    }
+
+    @Test
+    void testUploadStream_RejectedWhenPipelineSaturated() {
+        ReflectionTestUtils.setField(s3Service, "s3TransferPermits", new Semaphore(0));
+
+        TransferPipelineSaturatedException exception = assertThrows(TransferPipelineSaturatedException.class, () ->
+                s3Service.uploadStream(new ByteArrayInputStream("0123".getBytes()), "video/mp4", "mp4"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testUploadPart_HoldsATransferPermit() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            assertEquals(1, s3TransferPermits.availablePermits());
+            return UploadPartResponse.builder().eTag("etag1").build();
+        });
+
+        CompletedPart completedPart = s3Service.uploadPart("key.mp4", "upload-id", 1, RequestBody.fromString("0123"));
+
+        assertEquals("etag1", completedPart.eTag());
+        assertEquals(2, s3TransferPermits.availablePermits());
+    }
+
+    @Test
+    void testUploadPart_RejectedWhenPipelineSaturated() {
+        ReflectionTestUtils.setField(s3Service, "s3TransferPermits", new Semaphore(0));
+
+        TransferPipelineSaturatedException exception = assertThrows(TransferPipelineSaturatedException.class, () ->
+                s3Service.uploadPart("key.mp4", "upload-id", 1, RequestBody.fromString("0123")));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(s3Client, never()).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testUploadStream_AbortsOnPartFailure() {
+        configureMultipartUpload();
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Part upload failed")));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                s3Service.uploadStream(new ByteArrayInputStream("01234567890123456789".getBytes()),
+                        "video/mp4", "mp4"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+        // The first failure stops reading further parts
+        verify(s3AsyncClient, times(1)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testUploadStream_RejectsOversizedBody() {
+        configureMultipartUpload();
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                s3Service.uploadStream(new ByteArrayInputStream(new byte[100]), "video/mp4", "mp4"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testUploadStream_RejectsEmptyBody() {
+        configureMultipartUpload();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                s3Service.uploadStream(new ByteArrayInputStream(new byte[0]), "video/mp4", "mp4"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(s3AsyncClient, never()).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testPresignAndHead_AgainstLocalStandIn() throws IOException, InterruptedException {
+        // MockWebServer plays the part of a local S3 endpoint (what LocalStack/MinIO would be in the local profile)
+        try (MockWebServer localS3 = new MockWebServer()) {
+            localS3.start();
+            URI endpoint = URI.create(localS3.url("/").toString());
+            StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create("test", "test"));
+            S3Client localS3Client = S3Client.builder()
+                    .endpointOverride(endpoint)
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(credentials)
+                    .forcePathStyle(true)
+                    .build();
+            S3Presigner localS3Presigner = S3Presigner.builder()
+                    .endpointOverride(endpoint)
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(credentials)
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                    .build();
+            S3Service localS3Service = new S3Service(localS3Client, mock(S3AsyncClient.class),
+                    mock(ExecutorService.class), localS3Presigner, new SimpleMeterRegistry(), new Semaphore(1));
+            ReflectionTestUtils.setField(localS3Service, "bucketName", AWS_S3_BUCKET_NAME);
+            ReflectionTestUtils.setField(localS3Service, "presignExpiry", Duration.ofMinutes(5));
+
+            String uploadUrl = localS3Service.presignUploadPart("key.mp4", "upload-id", 2);
+            assertTrue(uploadUrl.startsWith(endpoint + AWS_S3_BUCKET_NAME + "/key.mp4?"));
+            assertTrue(uploadUrl.contains("partNumber=2"));
+            assertTrue(uploadUrl.contains("uploadId=upload-id"));
+            assertTrue(uploadUrl.contains("X-Amz-Expires=300"));
+
+            localS3.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setHeader("Content-Length", "25")
+                    .addHeader("Content-Type", "video/mp4"));
+            HeadObjectResponse headObjectResponse = localS3Service.headObject("key.mp4");
+            RecordedRequest recordedRequest = localS3.takeRequest();
+            assertEquals("HEAD", recordedRequest.getMethod());
+            assertEquals("/" + AWS_S3_BUCKET_NAME + "/key.mp4", recordedRequest.getPath());
+            assertEquals(25L, headObjectResponse.contentLength());
+            assertEquals("video/mp4", headObjectResponse.contentType());
+            localS3Client.close();
+            localS3Presigner.close();
+        }
     }
-}
\ No newline at end of file
+}
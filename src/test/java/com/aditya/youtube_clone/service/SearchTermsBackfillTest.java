@@ -0,0 +1,66 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchTermsBackfillTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @InjectMocks
+    private SearchTermsBackfill searchTermsBackfill;
+
+    @Test
+    void testBackfill_DisabledByDefault() {
+        searchTermsBackfill.backfill();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testBackfill_WritesTermsFromTitleAndTags() {
+        ReflectionTestUtils.setField(searchTermsBackfill, "backfillTerms", true);
+        ObjectId videoId = new ObjectId();
+        Document video = new Document("_id", videoId)
+                .append("title", "Funny Cats, compilation #2")
+                .append("tags", List.of("Pets"));
+        when(mongoTemplate.getCollectionName(Video.class)).thenReturn("Video");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("Video"))).thenReturn(Stream.of(video));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+
+        searchTermsBackfill.backfill();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(videoId, queryCaptor.getValue().getQueryObject().get("_id"));
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        assertEquals(Set.of("funny", "cats", "compilation", "2", "pets"), set.get("searchTerms"));
+    }
+}
@@ -0,0 +1,193 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.FeedEntry;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Subscription;
+import com.aditya.youtube_clone.model.User;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private JobQueue jobQueue;
+
+    @InjectMocks
+    private SubscriptionService subscriptionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(subscriptionService, "maxFanOutSubscribers", 3L);
+    }
+
+    private void creatorReachesSubscriberCount(long subscriberCount) {
+        User creator = new User();
+        creator.setSubscriberCount(subscriberCount);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(User.class))).thenReturn(creator);
+    }
+
+    @Test
+    public void subscribeTest_InsertsEdgeAndCountsSubscriber() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        creatorReachesSubscriberCount(1);
+
+        subscriptionService.subscribe("creator");
+
+        ArgumentCaptor<Subscription> edgeCaptor = ArgumentCaptor.forClass(Subscription.class);
+        verify(mongoTemplate).insert(edgeCaptor.capture());
+        assertEquals("viewer", edgeCaptor.getValue().getSubscriberId());
+        assertEquals("creator", edgeCaptor.getValue().getCreatorId());
+        assertFalse(edgeCaptor.getValue().isPull());
+        ArgumentCaptor<Update> countCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), countCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(User.class));
+        assertEquals(new Document("subscriberCount", 1), countCaptor.getValue().getUpdateObject().get("$inc"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Subscription.class));
+    }
+
+    @Test
+    public void subscribeTest_AlreadySubscribedIsNotCountedTwice() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        when(mongoTemplate.insert(any(Subscription.class))).thenThrow(new DuplicateKeyException("E11000"));
+
+        subscriptionService.subscribe("creator");
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(User.class));
+    }
+
+    @Test
+    public void subscribeTest_CrossingThresholdSwitchesCreatorToPull() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        creatorReachesSubscriberCount(3);
+
+        subscriptionService.subscribe("creator");
+
+        // The new edge is flagged right away, the earlier ones by a queued job
+        verify(mongoTemplate).updateFirst(any(Query.class), eq(new Update().set("pull", true)),
+                eq(Subscription.class));
+        verify(jobQueue).enqueue(SubscriptionService.JOB_TYPE, "creator", Map.of());
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(Subscription.class));
+    }
+
+    @Test
+    public void subscribeTest_PastThresholdOnlyFlagsTheNewEdge() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        creatorReachesSubscriberCount(4);
+
+        subscriptionService.subscribe("creator");
+
+        verify(mongoTemplate).updateFirst(any(Query.class), eq(new Update().set("pull", true)),
+                eq(Subscription.class));
+        verifyNoInteractions(jobQueue);
+    }
+
+    @Test
+    public void handleTest_FlagsTheRemainingEdges() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Subscription.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        Job job = new Job();
+        job.setKey("creator");
+
+        subscriptionService.handle(job, progress -> {});
+
+        ArgumentCaptor<Query> switchCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(switchCaptor.capture(), eq(new Update().set("pull", true)),
+                eq(Subscription.class));
+        assertEquals(new Document("creatorId", "creator").append("pull", false),
+                switchCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    public void handleTest_FailureIsLeftToTheJobWorker() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Subscription.class)))
+                .thenThrow(new RuntimeException("Mongo unavailable"));
+        Job job = new Job();
+        job.setKey("creator");
+
+        assertThrows(RuntimeException.class, () -> subscriptionService.handle(job, progress -> {}));
+    }
+
+    @Test
+    public void subscribeTest_InvalidCreator() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.subscribe("viewer"));
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.subscribe("missing"));
+        verify(mongoTemplate, never()).insert(any(Subscription.class));
+    }
+
+    @Test
+    public void unsubscribeTest_RemovesEdgeAndCreatorsFeedEntries() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Subscription.class))).thenReturn(new Subscription());
+        creatorReachesSubscriberCount(0);
+
+        subscriptionService.unsubscribe("creator");
+
+        ArgumentCaptor<Update> countCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), countCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(User.class));
+        assertEquals(new Document("subscriberCount", -1), countCaptor.getValue().getUpdateObject().get("$inc"));
+        ArgumentCaptor<Query> feedCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(feedCaptor.capture(), eq(FeedEntry.class));
+        assertEquals(new Document("userId", "viewer").append("creatorId", "creator"),
+                feedCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    public void unsubscribeTest_NotSubscribed() {
+        when(userService.getCurrentUserId()).thenReturn("viewer");
+
+        subscriptionService.unsubscribe("creator");
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(User.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(FeedEntry.class));
+    }
+
+    @Test
+    public void getPullCreatorIdsTest_OnlyFlaggedEdges() {
+        when(mongoTemplate.find(any(Query.class), eq(Subscription.class))).thenReturn(List.of(
+                new Subscription(null, null, "celebrity", false, null)));
+
+        assertEquals(List.of("celebrity"), subscriptionService.getPullCreatorIds("viewer"));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Subscription.class));
+        assertEquals(new Document("subscriberId", "viewer").append("pull", true),
+                queryCaptor.getValue().getQueryObject());
+    }
+}
@@ -0,0 +1,166 @@
+package com.aditya.youtube_clone.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ThumbnailProcessorTest {
+
+    private final S3Service s3Service = mock(S3Service.class);
+    private final Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+    private ExecutorService thumbnailExecutor;
+    private ThumbnailProcessor thumbnailProcessor;
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailExecutor = Executors.newFixedThreadPool(4);
+        thumbnailProcessor = new ThumbnailProcessor(s3Service, thumbnailExecutor);
+        ReflectionTestUtils.setField(thumbnailProcessor, "widths", List.of(720, 120, 320));
+        ReflectionTestUtils.setField(thumbnailProcessor, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(thumbnailProcessor, "maxSourcePixels", 40_000_000L);
+        when(s3Service.uploadBytes(any(), eq("image/jpeg"), eq("jpg"))).thenAnswer(invocation -> {
+            String url = "s3-" + uploaded.size() + "-" + System.nanoTime();
+            uploaded.put(url, invocation.getArgument(0));
+            return CompletableFuture.completedFuture(url);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailExecutor.shutdownNow();
+    }
+
+    @Test
+    void testProcess_ProducesEveryWidthNarrowestFirst() throws IOException {
+        byte[] source = png(1920, 1080);
+
+        Map<String, String> variants = thumbnailProcessor.process(file(source)).join();
+
+        assertEquals(List.of("120", "320", "720"), List.copyOf(variants.keySet()));
+        for (Map.Entry<String, String> variant : variants.entrySet()) {
+            byte[] jpeg = uploaded.get(variant.getValue());
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+            int width = Integer.parseInt(variant.getKey());
+            assertEquals(width, image.getWidth());
+            assertEquals(Math.round(width * 9 / 16f), image.getHeight());
+        }
+        assertTrue(uploaded.get(variants.get("120")).length < uploaded.get(variants.get("720")).length);
+    }
+
+    @Test
+    void testWidthsFor_NeverUpscales() {
+        assertEquals(List.of(120, 320), thumbnailProcessor.widthsFor(640));
+        assertEquals(List.of(90), thumbnailProcessor.widthsFor(90));
+    }
+
+    @Test
+    void testResize_FlattensTransparencyOntoWhite() {
+        BufferedImage transparent = new BufferedImage(400, 200, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage resized = ThumbnailProcessor.resize(transparent, 100);
+
+        assertEquals(100, resized.getWidth());
+        assertEquals(50, resized.getHeight());
+        assertEquals(Color.WHITE.getRGB(), resized.getRGB(50, 25));
+    }
+
+    @Test
+    void testValidate_RejectsUnreadableImage() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> thumbnailProcessor.validate(upload("not an image".getBytes())));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void testValidate_RejectsOversizedImageFromItsHeader() throws IOException {
+        ReflectionTestUtils.setField(thumbnailProcessor, "maxSourcePixels", 1_000L);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> thumbnailProcessor.validate(upload(png(100, 100))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        thumbnailProcessor.validate(upload(png(20, 20)));
+    }
+
+    @Test
+    void testProcess_FailsOnUnreadableSource() throws IOException {
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> thumbnailProcessor.process(file("not an image".getBytes())).join());
+
+        assertInstanceOf(ResponseStatusException.class, exception.getCause());
+        verify(s3Service, never()).uploadBytes(any(), any(), any());
+    }
+
+    @Test
+    void testProcess_FailedUploadRemovesOtherVariants() throws IOException {
+        when(s3Service.uploadBytes(any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture("s3-first"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 down")))
+                .thenReturn(CompletableFuture.completedFuture("s3-third"));
+        when(s3Service.deleteFile(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> thumbnailProcessor.process(file(png(1280, 720))).join());
+
+        assertEquals("S3 down", exception.getCause().getMessage());
+        verify(s3Service).deleteFile("s3-first");
+        verify(s3Service).deleteFile("s3-third");
+    }
+
+    private static MockMultipartFile upload(byte[] content) {
+        return new MockMultipartFile("file", "thumbnail.png", "image/png", content);
+    }
+
+    private Path file(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "thumbnail-", null), content);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int x = 0; x < width; x += 10) {
+            graphics.setColor(new Color(x % 256, (x * 3) % 256, (x * 7) % 256));
+            graphics.fillRect(x, 0, 10, height);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+}
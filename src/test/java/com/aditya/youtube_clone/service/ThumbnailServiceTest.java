@@ -0,0 +1,109 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ThumbnailServiceTest {
+
+    @Mock
+    private JobQueue jobQueue;
+
+    @Mock
+    private ThumbnailProcessor thumbnailProcessor;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private VideoDetailsCache videoDetailsCache;
+
+    @Mock
+    private StorageCleanupService storageCleanupService;
+
+    @InjectMocks
+    private ThumbnailService thumbnailService;
+
+    private static Job job() {
+        Job job = new Job();
+        job.setType(ThumbnailService.JOB_TYPE);
+        job.setKey("original-url");
+        job.setPayload(Map.of("videoId", "video1"));
+        return job;
+    }
+
+    private void resizesInto(Map<String, String> variants) {
+        when(mongoTemplate.exists(any(Query.class), eq(Video.class))).thenReturn(true);
+        when(thumbnailProcessor.process(any(Path.class))).thenReturn(CompletableFuture.completedFuture(variants));
+    }
+
+    @Test
+    public void handleTest_SwapsInTheVariantsAndDropsTheOriginal() throws Exception {
+        Map<String, String> variants = new LinkedHashMap<>(Map.of("120", "small-url"));
+        variants.put("720", "wide-url");
+        resizesInto(variants);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Video.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        thumbnailService.handle(job(), progress -> {});
+
+        verify(s3Service).downloadFile(eq("original-url"), any(Path.class));
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(Video.class));
+        // Only while the video still shows the image this job resized
+        assertEquals(new Document("_id", "video1").append("thumbnailUrl", "original-url"),
+                queryCaptor.getValue().getQueryObject());
+        Document set = (Document) updateCaptor.getValue().getUpdateObject().get("$set");
+        assertEquals("wide-url", set.get("thumbnailUrl"));
+        assertEquals(variants, set.get("thumbnailVariants"));
+        verify(videoDetailsCache).evict("video1");
+        verify(storageCleanupService).deleteLater(List.of("original-url"));
+    }
+
+    @Test
+    public void handleTest_ReplacedMeanwhileDiscardsTheVariants() throws Exception {
+        resizesInto(Map.of("120", "small-url"));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Video.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        thumbnailService.handle(job(), progress -> {});
+
+        verify(storageCleanupService).deleteLater(argThat(urls -> List.copyOf(urls).equals(List.of("small-url"))));
+        verify(storageCleanupService, never()).deleteLater(List.of("original-url"));
+    }
+
+    @Test
+    public void handleTest_AlreadyReplacedSkipsTheWork() throws Exception {
+        when(mongoTemplate.exists(any(Query.class), eq(Video.class))).thenReturn(false);
+
+        thumbnailService.handle(job(), progress -> {});
+
+        verifyNoInteractions(s3Service, thumbnailProcessor, storageCleanupService);
+    }
+}
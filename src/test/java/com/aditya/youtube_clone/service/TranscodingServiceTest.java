@@ -0,0 +1,175 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.ProcessingStatusDTO;
+import com.aditya.youtube_clone.model.Job;
+import com.aditya.youtube_clone.model.JobStatus;
+import com.aditya.youtube_clone.model.ProcessingStatus;
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TranscodingServiceTest {
+
+    @Mock
+    private JobQueue jobQueue;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private HlsTranscoder hlsTranscoder;
+
+    @Mock
+    private VideoDetailsCache videoDetailsCache;
+
+    @Mock
+    private StorageCleanupService storageCleanupService;
+
+    @InjectMocks
+    private TranscodingService transcodingService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transcodingService, "workerEnabled", true);
+        ReflectionTestUtils.setField(transcodingService, "maxConcurrentJobs", 2);
+        ReflectionTestUtils.setField(transcodingService, "maxAttempts", 3);
+    }
+
+    private static Job claimedJob() {
+        Job job = new Job();
+        job.setId("job1");
+        job.setType(TranscodingService.JOB_TYPE);
+        job.setKey("video1");
+        job.setPayload(Map.of("sourceUrl", "https://bucket.s3.amazonaws.com/video.mp4"));
+        job.setStatus(JobStatus.RUNNING);
+        job.setAttempts(1);
+        job.setLeaseToken("token");
+        return job;
+    }
+
+    private void videoUpdatesMatch(long matched) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Video.class)))
+                .thenReturn(UpdateResult.acknowledged(matched, matched, null));
+    }
+
+    private List<Document> videoSets() {
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), updateCaptor.capture(), eq(Video.class));
+        return updateCaptor.getAllValues().stream()
+                .map(update -> (Document) update.getUpdateObject().get("$set"))
+                .toList();
+    }
+
+    @Test
+    public void enqueueTest_KeysTheJobByVideo() {
+        transcodingService.enqueue("video1", "https://bucket.s3.amazonaws.com/video.mp4");
+
+        verify(jobQueue).enqueue(TranscodingService.JOB_TYPE, "video1",
+                Map.of("sourceUrl", "https://bucket.s3.amazonaws.com/video.mp4"));
+    }
+
+    @Test
+    public void handleTest_SuccessPublishesPlaylist() throws Exception {
+        when(hlsTranscoder.transcode(eq("video1"), eq(1), anyString(), any()))
+                .thenReturn("https://bucket.s3.amazonaws.com/hls/video1/1/master.m3u8");
+        videoUpdatesMatch(1);
+
+        transcodingService.handle(claimedJob(), progress -> {});
+
+        List<Document> videoSets = videoSets();
+        assertEquals(ProcessingStatus.PROCESSING, videoSets.get(0).get("processingStatus"));
+        assertEquals(ProcessingStatus.READY, videoSets.get(1).get("processingStatus"));
+        assertEquals("https://bucket.s3.amazonaws.com/hls/video1/1/master.m3u8", videoSets.get(1).get("hlsUrl"));
+        verify(videoDetailsCache, times(2)).evict("video1");
+        verifyNoInteractions(storageCleanupService);
+    }
+
+    @Test
+    public void handleTest_RetrySuccessRemovesEarlierAttemptsOutput() throws Exception {
+        Job job = claimedJob();
+        job.setAttempts(3);
+        when(hlsTranscoder.transcode(eq("video1"), eq(3), anyString(), any()))
+                .thenReturn("https://bucket.s3.amazonaws.com/hls/video1/3/master.m3u8");
+        videoUpdatesMatch(1);
+
+        transcodingService.handle(job, progress -> {});
+
+        assertEquals("https://bucket.s3.amazonaws.com/hls/video1/3/master.m3u8", videoSets().get(1).get("hlsUrl"));
+        verify(storageCleanupService).deleteFolderLater("hls/video1/1/");
+        verify(storageCleanupService).deleteFolderLater("hls/video1/2/");
+        verifyNoMoreInteractions(storageCleanupService);
+    }
+
+    @Test
+    public void handleTest_FailureIsLeftToTheWorker() throws Exception {
+        when(hlsTranscoder.transcode(eq("video1"), eq(1), anyString(), any())).thenThrow(new IOException("ffmpeg exited with 1"));
+        videoUpdatesMatch(1);
+
+        assertThrows(IOException.class, () -> transcodingService.handle(claimedJob(), progress -> {}));
+
+        assertEquals(1, videoSets().size());
+    }
+
+    @Test
+    public void handleTest_VideoDeletedDuringTranscodeRemovesOutput() throws Exception {
+        when(hlsTranscoder.transcode(eq("video1"), eq(1), anyString(), any())).thenReturn("master-url");
+        videoUpdatesMatch(0);
+
+        transcodingService.handle(claimedJob(), progress -> {});
+
+        verify(storageCleanupService).deleteFolderLater("hls/video1/");
+    }
+
+    @Test
+    public void onDeadLetterTest_MarksVideoFailedAndCleansUpAttempts() {
+        videoUpdatesMatch(1);
+
+        transcodingService.onDeadLetter(claimedJob());
+
+        assertEquals(ProcessingStatus.FAILED, videoSets().getFirst().get("processingStatus"));
+        verify(videoDetailsCache).evict("video1");
+        verify(storageCleanupService).deleteFolderLater("hls/video1/");
+    }
+
+    @Test
+    public void getStatusTest_ReportsTheJob() {
+        Job job = claimedJob();
+        job.setProgress(40);
+        when(jobQueue.find(TranscodingService.JOB_TYPE, "video1")).thenReturn(job);
+
+        ProcessingStatusDTO status = transcodingService.getStatus("video1");
+
+        assertEquals(new ProcessingStatusDTO("video1", JobStatus.RUNNING, 40, 1), status);
+        assertThrows(IllegalArgumentException.class, () -> transcodingService.getStatus("video2"));
+    }
+
+    @Test
+    public void concurrencyTest_DisabledWorkerClaimsNothing() {
+        assertEquals(2, transcodingService.concurrency());
+        ReflectionTestUtils.setField(transcodingService, "workerEnabled", false);
+
+        assertEquals(0, transcodingService.concurrency());
+    }
+}
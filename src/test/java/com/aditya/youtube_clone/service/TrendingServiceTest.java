@@ -0,0 +1,199 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.TrendingScore;
+import com.aditya.youtube_clone.model.TrendingSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendingServiceTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private TrendingService trendingService;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        trendingService = newTrendingService(3);
+        start = (long) ReflectionTestUtils.getField(trendingService, "landmarkMillis");
+    }
+
+    private TrendingService newTrendingService(int topK) {
+        return newTrendingService(topK, "node1");
+    }
+
+    private TrendingService newTrendingService(int topK, String nodeId) {
+        TrendingService service = new TrendingService(mongoTemplate);
+        ReflectionTestUtils.setField(service, "nodeId", nodeId);
+        ReflectionTestUtils.setField(service, "halfLife", Duration.ofHours(6));
+        ReflectionTestUtils.setField(service, "likeWeight", 5);
+        ReflectionTestUtils.setField(service, "viewWeight", 1);
+        ReflectionTestUtils.setField(service, "topK", topK);
+        ReflectionTestUtils.setField(service, "snapshotSize", 10_000);
+        ReflectionTestUtils.setField(service, "minScore", 0.01);
+        return service;
+    }
+
+    @Test
+    void testScore_HalvesEveryHalfLife() {
+        trendingService.record("video", 8, start);
+
+        assertEquals(8, trendingService.currentScore("video", start), 1e-9);
+        assertEquals(4, trendingService.currentScore("video", start + 6 * HOUR), 1e-9);
+        assertEquals(1, trendingService.currentScore("video", start + 18 * HOUR), 1e-9);
+    }
+
+    @Test
+    void testRefresh_RecentActivityOutranksOlderActivity() {
+        // Yesterday's big video against today's smaller but fresher ones
+        for (int i = 0; i < 40; i++) {
+            trendingService.record("yesterday", 1, start);
+        }
+        for (int i = 0; i < 10; i++) {
+            trendingService.record("today", 1, start + 24 * HOUR);
+        }
+        for (int i = 0; i < 5; i++) {
+            trendingService.record("thisHour", 1, start + 24 * HOUR);
+        }
+        trendingService.record("once", 1, start + 24 * HOUR);
+
+        trendingService.refresh(start + 24 * HOUR);
+
+        // 40 views a day ago are worth 2.5 now; top K keeps only three
+        assertEquals(List.of("today", "thisHour", "yesterday"), trendingService.getTopVideoIds());
+    }
+
+    @Test
+    void testRefresh_ForgetsVideosThatDecayedAway() {
+        trendingService.record("old", 1, start);
+        trendingService.record("fresh", 1, start + 48 * HOUR);
+
+        trendingService.refresh(start + 48 * HOUR);
+
+        assertEquals(List.of("fresh"), trendingService.getTopVideoIds());
+        assertFalse(((Map<?, ?>) ReflectionTestUtils.getField(trendingService, "scores")).containsKey("old"));
+    }
+
+    @Test
+    void testRefresh_RebaseKeepsScoresAndRanking() {
+        long later = start + Duration.ofDays(31).toMillis();
+        trendingService.record("first", 5, later - HOUR);
+        trendingService.record("second", 1, later - HOUR);
+        double before = trendingService.currentScore("first", later);
+
+        trendingService.refresh(later);
+
+        assertEquals(later, ReflectionTestUtils.getField(trendingService, "landmarkMillis"));
+        assertEquals(before, trendingService.currentScore("first", later), 1e-9);
+        assertEquals(List.of("first", "second"), trendingService.getTopVideoIds());
+    }
+
+    @Test
+    void testSnapshot_RestartResumesRanking() {
+        trendingService.record("hot", 10, start);
+        trendingService.record("warm", 3, start);
+        trendingService.saveSnapshot();
+        ArgumentCaptor<TrendingSnapshot> snapshotCaptor = ArgumentCaptor.forClass(TrendingSnapshot.class);
+        verify(mongoTemplate).save(snapshotCaptor.capture());
+        TrendingSnapshot snapshot = snapshotCaptor.getValue();
+        assertEquals("trending:node1", snapshot.getId());
+        assertEquals(List.of("hot", "warm"), snapshot.getScores().stream().map(TrendingScore::getVideoId).toList());
+
+        // Six hours later a new instance with its own landmark picks the snapshot up
+        TrendingService restarted = newTrendingService(3);
+        long restartedAt = start + 6 * HOUR;
+        ReflectionTestUtils.setField(restarted, "landmarkMillis", restartedAt);
+        when(mongoTemplate.findAll(TrendingSnapshot.class)).thenReturn(List.of(snapshot));
+        restarted.record("new", 4, restartedAt);
+
+        restarted.restoreSnapshot();
+
+        assertEquals(5, restarted.currentScore("hot", restartedAt), 1e-9);
+        assertEquals(List.of("hot", "new", "warm"), restarted.getTopVideoIds());
+    }
+
+    @Test
+    void testSnapshot_RestoreTakesTheHighestScoreAcrossNodes() {
+        TrendingService otherNode = newTrendingService(3, "node2");
+        ReflectionTestUtils.setField(otherNode, "landmarkMillis", start);
+        trendingService.record("shared", 2, start);
+        trendingService.record("onlyHere", 1, start);
+        otherNode.record("shared", 6, start);
+        otherNode.record("onlyThere", 3, start);
+        trendingService.saveSnapshot();
+        otherNode.saveSnapshot();
+        ArgumentCaptor<TrendingSnapshot> snapshotCaptor = ArgumentCaptor.forClass(TrendingSnapshot.class);
+        verify(mongoTemplate, times(2)).save(snapshotCaptor.capture());
+        List<TrendingSnapshot> snapshots = snapshotCaptor.getAllValues();
+        assertEquals(List.of("trending:node1", "trending:node2"),
+                snapshots.stream().map(TrendingSnapshot::getId).toList());
+
+        TrendingService restarted = newTrendingService(3);
+        ReflectionTestUtils.setField(restarted, "landmarkMillis", start);
+        when(mongoTemplate.findAll(TrendingSnapshot.class)).thenReturn(snapshots);
+        restarted.restoreSnapshot();
+
+        assertEquals(6, restarted.currentScore("shared", start), 1e-9);
+        assertEquals(List.of("shared", "onlyThere", "onlyHere"), restarted.getTopVideoIds());
+    }
+
+    @Test
+    void testSnapshot_SkippedWhenNothingIsScored() {
+        trendingService.saveSnapshot();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testSnapshot_FailuresAreLogged() {
+        trendingService.record("hot", 1, start);
+        when(mongoTemplate.save(any(TrendingSnapshot.class))).thenThrow(new RuntimeException("Mongo unavailable"));
+        trendingService.saveSnapshot();
+
+        when(mongoTemplate.findAll(TrendingSnapshot.class)).thenThrow(new RuntimeException("Mongo unavailable"));
+        trendingService.restoreSnapshot();
+        assertTrue(trendingService.getTopVideoIds().isEmpty());
+    }
+
+    @Test
+    void testRefresh_TopKIsBoundedUnderConcurrentEvents() throws Exception {
+        TrendingService bounded = newTrendingService(10);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int video = 0; video < 1_000; video++) {
+                int views = video;
+                String videoId = "video" + video;
+                executor.submit(() -> {
+                    for (int i = 0; i < views % 50; i++) {
+                        bounded.recordView(videoId);
+                    }
+                });
+            }
+        }
+        bounded.refresh();
+
+        List<String> top = bounded.getTopVideoIds();
+        assertEquals(10, top.size());
+        top.forEach(videoId -> assertEquals(49, Integer.parseInt(videoId.substring(5)) % 50));
+    }
+}
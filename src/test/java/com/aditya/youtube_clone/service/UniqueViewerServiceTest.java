@@ -0,0 +1,239 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.UniqueViewersDTO;
+import com.aditya.youtube_clone.model.UniqueViewerSketch;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UniqueViewerServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+    // Four standard errors of a precision 14 sketch
+    private static final double ERROR_BOUND = 4 * 1.04 / Math.sqrt(1 << UniqueViewerService.PRECISION);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private UniqueViewerService uniqueViewerService;
+
+    @BeforeEach
+    void setUp() {
+        uniqueViewerService = newNode("node1");
+    }
+
+    private UniqueViewerService newNode(String nodeId) {
+        UniqueViewerService node = new UniqueViewerService(mongoTemplate);
+        ReflectionTestUtils.setField(node, "maxRangeDays", 90);
+        ReflectionTestUtils.setField(node, "nodeId", nodeId);
+        return node;
+    }
+
+    // The documents the bulk upserts would have written, as a later find returns them
+    private List<UniqueViewerSketch> flushedSketches() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).upsert(queryCaptor.capture(), updateCaptor.capture());
+        List<UniqueViewerSketch> sketches = new ArrayList<>();
+        for (int i = 0; i < updateCaptor.getAllValues().size(); i++) {
+            Document set = (Document) updateCaptor.getAllValues().get(i).getUpdateObject().get("$set");
+            sketches.add(new UniqueViewerSketch(queryCaptor.getAllValues().get(i).getQueryObject().getString("id"),
+                    set.getString("videoId"), set.getString("day"), (byte[]) set.get("registers"),
+                    (Instant) set.get("updatedAt")));
+        }
+        return sketches;
+    }
+
+    private static void assertWithinErrorBound(long expected, long estimate) {
+        double relativeError = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(relativeError < ERROR_BOUND, "Estimated " + estimate + " for " + expected);
+    }
+
+    @Test
+    void testEstimate_StaysWithinErrorBoundsAtMillionsOfViewers() {
+        HyperLogLog sketch = new HyperLogLog(UniqueViewerService.PRECISION);
+        int viewers = 0;
+        for (int checkpoint : new int[]{100, 10_000, 1_000_000, 5_000_000}) {
+            while (viewers < checkpoint) {
+                sketch.add(BloomFilter.hash64("auth0|" + viewers++));
+            }
+            assertWithinErrorBound(checkpoint, sketch.estimate());
+        }
+        // Viewing again does not move the estimate
+        long estimate = sketch.estimate();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(BloomFilter.hash64("auth0|" + i));
+        }
+        assertEquals(estimate, sketch.estimate());
+    }
+
+    @Test
+    void testSketch_StaysSparseForFewViewersAndSurvivesSerialization() {
+        HyperLogLog sparse = new HyperLogLog(UniqueViewerService.PRECISION);
+        HyperLogLog dense = new HyperLogLog(UniqueViewerService.PRECISION);
+        for (int i = 0; i < 100; i++) {
+            sparse.add(BloomFilter.hash64("viewer" + i));
+        }
+        for (int i = 50; i < 100_000; i++) {
+            dense.add(BloomFilter.hash64("viewer" + i));
+        }
+
+        assertTrue(sparse.isSparse());
+        assertTrue(sparse.toBytes().length <= 1 + 4 * 100);
+        assertFalse(dense.isSparse());
+        HyperLogLog restored = HyperLogLog.fromBytes(sparse.toBytes());
+        assertEquals(sparse.estimate(), restored.estimate());
+        assertEquals(100, restored.estimate());
+        // Sparse and dense sketches merge either way round
+        restored.merge(dense);
+        HyperLogLog union = HyperLogLog.fromBytes(dense.toBytes());
+        union.merge(sparse);
+        assertEquals(restored.estimate(), union.estimate());
+        assertWithinErrorBound(100_000, union.estimate());
+    }
+
+    @Test
+    void testFlush_RestartedNodeKeepsWritingItsOwnDocument() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UniqueViewerSketch.class))
+                .thenReturn(bulkOperations);
+        uniqueViewerService.record("videoId", "viewer1", DAY);
+        uniqueViewerService.flush();
+        UniqueViewerSketch firstWrite = flushedSketches().get(0);
+
+        UniqueViewerService restarted = newNode("node1");
+        when(mongoTemplate.find(any(Query.class), eq(UniqueViewerSketch.class))).thenReturn(List.of(firstWrite));
+        restarted.record("videoId", "viewer2", DAY);
+        restarted.flush();
+
+        List<UniqueViewerSketch> writes = flushedSketches();
+        assertEquals(firstWrite.getId(), writes.get(writes.size() - 1).getId());
+        assertEquals(2, HyperLogLog.fromBytes(writes.get(writes.size() - 1).getRegisters()).estimate());
+    }
+
+    @Test
+    void testFlush_DropsFlushedSketchesOfPastDays() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UniqueViewerSketch.class))
+                .thenReturn(bulkOperations);
+        uniqueViewerService.record("videoId", "viewer", DAY);
+        uniqueViewerService.record("videoId", "viewer");
+
+        uniqueViewerService.flush();
+
+        Map<?, ?> sketches = (Map<?, ?>) ReflectionTestUtils.getField(uniqueViewerService, "sketches");
+        assertEquals(1, sketches.size());
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    void testGetUniqueViewers_MergesSketchesFromEveryNode() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UniqueViewerSketch.class))
+                .thenReturn(bulkOperations);
+        UniqueViewerService otherNode = newNode("node2");
+        // The nodes share 200k viewers, a sum of the two counts would be 1.2M
+        for (int i = 0; i < 600_000; i++) {
+            uniqueViewerService.record("videoId", "viewer" + i, DAY);
+        }
+        for (int i = 400_000; i < 1_000_000; i++) {
+            otherNode.record("videoId", "viewer" + i, DAY.plusDays(i % 2));
+        }
+        uniqueViewerService.flush();
+        otherNode.flush();
+        List<UniqueViewerSketch> stored = flushedSketches();
+        assertEquals(3, stored.size());
+        when(mongoTemplate.find(any(Query.class), eq(UniqueViewerSketch.class))).thenReturn(stored);
+
+        UniqueViewersDTO uniqueViewers = newNode("node3").getUniqueViewers("videoId", DAY, DAY.plusDays(1));
+
+        assertWithinErrorBound(1_000_000, uniqueViewers.getUniqueViewers());
+        assertWithinErrorBound(800_000, uniqueViewers.getDailyUniqueViewers().get(DAY));
+        assertWithinErrorBound(300_000, uniqueViewers.getDailyUniqueViewers().get(DAY.plusDays(1)));
+    }
+
+    @Test
+    void testGetUniqueViewers_IncludesViewsNotFlushedYet() {
+        uniqueViewerService.record("videoId", "viewer1", DAY);
+        uniqueViewerService.record("videoId", "viewer2", DAY);
+        uniqueViewerService.record("videoId", "viewer1", DAY);
+        uniqueViewerService.record("otherVideoId", "viewer3", DAY);
+
+        UniqueViewersDTO uniqueViewers = uniqueViewerService.getUniqueViewers("videoId", DAY, DAY);
+
+        assertEquals(2, uniqueViewers.getUniqueViewers());
+        assertEquals(Map.of(DAY, 2L), uniqueViewers.getDailyUniqueViewers());
+    }
+
+    @Test
+    void testFlush_EvictedSketchMergesStoredRegistersBeforeOverwriting() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UniqueViewerSketch.class))
+                .thenReturn(bulkOperations);
+        for (int i = 0; i < 1_000; i++) {
+            uniqueViewerService.record("videoId", "viewer" + i, DAY);
+        }
+        uniqueViewerService.flush();
+        UniqueViewerSketch firstWrite = flushedSketches().get(0);
+        // An idle interval drops the sketch from memory
+        uniqueViewerService.flush();
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(uniqueViewerService, "sketches")).isEmpty());
+
+        when(mongoTemplate.find(any(Query.class), eq(UniqueViewerSketch.class))).thenReturn(List.of(firstWrite));
+        uniqueViewerService.record("videoId", "latecomer", DAY);
+        uniqueViewerService.flush();
+
+        List<UniqueViewerSketch> writes = flushedSketches();
+        UniqueViewerSketch secondWrite = writes.get(writes.size() - 1);
+        assertEquals(firstWrite.getId(), secondWrite.getId());
+        assertWithinErrorBound(1_001, HyperLogLog.fromBytes(secondWrite.getRegisters()).estimate());
+    }
+
+    @Test
+    void testFlush_FailedBulkWriteIsRetried() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UniqueViewerSketch.class))
+                .thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new RuntimeException("Mongo unavailable"))
+                .thenReturn(null);
+        uniqueViewerService.record("videoId", "viewer", DAY);
+
+        uniqueViewerService.flush();
+        uniqueViewerService.flush();
+        uniqueViewerService.flush();
+
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    void testGetUniqueViewers_RejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> uniqueViewerService.getUniqueViewers("videoId", DAY, DAY.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> uniqueViewerService.getUniqueViewers("videoId", DAY, DAY.plusDays(90)));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,398 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.CreateUploadSessionDTO;
+import com.aditya.youtube_clone.dto.DirectUploadDTO;
+import com.aditya.youtube_clone.dto.UploadSessionDTO;
+import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.UploadMode;
+import com.aditya.youtube_clone.model.UploadSession;
+import com.aditya.youtube_clone.model.UploadSessionStatus;
+import com.aditya.youtube_clone.repository.UploadSessionRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UploadSessionServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private VideoService videoService;
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private StorageCleanupService storageCleanupService;
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private UploadSession uploadSession;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadSessionService, "chunkSize", DataSize.ofBytes(10));
+        ReflectionTestUtils.setField(uploadSessionService, "maxUploadSize", DataSize.ofBytes(100));
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(uploadSessionService, "expiryBatchSize", 100);
+        ReflectionTestUtils.setField(uploadSessionService, "expiryEnabled", true);
+        uploadSession = new UploadSession();
+        uploadSession.setId("session123");
+        uploadSession.setUserId("user123");
+        uploadSession.setFileKey("key.mp4");
+        uploadSession.setContentType("video/mp4");
+        uploadSession.setUploadId("upload-id");
+        uploadSession.setTotalSize(25);
+        uploadSession.setChunkSize(10);
+    }
+
+    @Test
+    public void createSessionTest_Success() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.generateFileKey("mp4")).thenReturn("key.mp4");
+        when(s3Service.createMultipartUpload("key.mp4", "video/mp4")).thenReturn("upload-id");
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession saved = invocation.getArgument(0);
+            saved.setId("session123");
+            return saved;
+        });
+        UploadSessionDTO uploadSessionDTO = uploadSessionService.createSession(
+                new CreateUploadSessionDTO("clip.mp4", "video/mp4", 25));
+        assertEquals("session123", uploadSessionDTO.getSessionId());
+        assertEquals(10, uploadSessionDTO.getChunkSize());
+        assertEquals(UploadSessionStatus.IN_PROGRESS, uploadSessionDTO.getStatus());
+        assertTrue(uploadSessionDTO.getReceivedOffsets().isEmpty());
+        ArgumentCaptor<UploadSession> sessionCaptor = ArgumentCaptor.forClass(UploadSession.class);
+        verify(uploadSessionRepository).save(sessionCaptor.capture());
+        assertEquals("user123", sessionCaptor.getValue().getUserId());
+        assertEquals(Duration.ofHours(24), Duration.between(sessionCaptor.getValue().getCreatedAt(),
+                sessionCaptor.getValue().getExpireAt()));
+    }
+
+    @Test
+    public void createSessionTest_TooLarge() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.createSession(new CreateUploadSessionDTO("clip.mp4", "video/mp4", 101)));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    public void uploadChunkTest_Success() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.uploadPart(eq("key.mp4"), eq("upload-id"), eq(3), any(RequestBody.class)))
+                .thenReturn(CompletedPart.builder().partNumber(3).eTag("etag3").build());
+        UploadSessionDTO uploadSessionDTO = uploadSessionService.uploadChunk("session123", 20, 5,
+                new ByteArrayInputStream(new byte[5]));
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), updateCaptor.capture(), eq(UploadSession.class));
+        assertEquals("etag3", updateCaptor.getValue().getUpdateObject().get("$set", org.bson.Document.class).get("parts.3"));
+        assertEquals(List.of(20L), uploadSessionDTO.getReceivedOffsets());
+    }
+
+    @Test
+    public void uploadChunkTest_ExpiredSession() {
+        uploadSession.setExpireAt(Instant.now().minusSeconds(60));
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk("session123", 0, 10, new ByteArrayInputStream(new byte[10])));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(s3Service, never()).uploadPart(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void uploadChunkTest_MisalignedOffset() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk("session123", 5, 10, new ByteArrayInputStream(new byte[10])));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(s3Service, never()).uploadPart(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void uploadChunkTest_WrongLength() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk("session123", 0, 4, new ByteArrayInputStream(new byte[4])));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(s3Service, never()).uploadPart(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void uploadChunkTest_SessionNotFound() {
+        when(uploadSessionRepository.findById("missing")).thenReturn(Optional.empty());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                uploadSessionService.uploadChunk("missing", 0, 10, new ByteArrayInputStream(new byte[10])));
+        assertEquals("Cannot find upload session by ID: missing", exception.getMessage());
+    }
+
+    @Test
+    public void completeSessionTest_Success() {
+        uploadSession.getParts().put("1", "etag1");
+        uploadSession.getParts().put("2", "etag2");
+        uploadSession.getParts().put("3", "etag3");
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(s3Service.getFileUrl("key.mp4")).thenReturn("s3-url");
+        when(videoService.createVideo("s3-url")).thenReturn(new VideoUploadResponseDTO("video123", "s3-url"));
+
+        VideoUploadResponseDTO uploadResponse = uploadSessionService.completeSession("session123");
+
+        assertEquals("video123", uploadResponse.getVideoId());
+        verify(s3Service).completeMultipartUpload(eq("key.mp4"), eq("upload-id"), anyList());
+        verify(videoService, times(1)).createVideo("s3-url");
+    }
+
+    @Test
+    public void completeSessionTest_VideoCreationFailureAbortsAndCleansUp() {
+        uploadSession.getParts().put("1", "etag1");
+        uploadSession.getParts().put("2", "etag2");
+        uploadSession.getParts().put("3", "etag3");
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(s3Service.getFileUrl("key.mp4")).thenReturn("s3-url");
+        when(videoService.createVideo("s3-url")).thenThrow(new RuntimeException("Mongo unavailable"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.completeSession("session123"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+        // Claimed as FINALIZING, then released as ABORTED rather than left stuck
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updateCaptor.capture(), eq(UploadSession.class));
+        assertEquals(UploadSessionStatus.ABORTED,
+                updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", org.bson.Document.class).get("status"));
+        verify(storageCleanupService).deleteLater(Set.of("s3-url"));
+    }
+
+    @Test
+    public void completeSessionTest_MissingChunks() {
+        uploadSession.getParts().put("1", "etag1");
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.completeSession("session123"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+        verify(videoService, never()).createVideo(any());
+    }
+
+    @Test
+    public void completeSessionTest_ConcurrentFinalize() {
+        uploadSession.getParts().put("1", "etag1");
+        uploadSession.getParts().put("2", "etag2");
+        uploadSession.getParts().put("3", "etag3");
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.completeSession("session123"));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+    }
+
+    @Test
+    public void abortSessionTest_Success() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        uploadSessionService.abortSession("session123");
+        verify(s3Service, times(1)).abortMultipartUpload("key.mp4", "upload-id");
+    }
+
+    @Test
+    public void sessionTest_OtherUsersCannotTouchIt() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("intruder");
+
+        for (Executable call : List.<Executable>of(
+                () -> uploadSessionService.uploadChunk("session123", 0, 10, new ByteArrayInputStream(new byte[10])),
+                () -> uploadSessionService.completeSession("session123"),
+                () -> uploadSessionService.abortSession("session123"))) {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, call);
+            assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        }
+        verifyNoInteractions(s3Service, mongoTemplate, videoService);
+    }
+
+    @Test
+    public void createDirectSessionTest_Success() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.generateFileKey("mp4")).thenReturn("key.mp4");
+        when(s3Service.createMultipartUpload("key.mp4", "video/mp4")).thenReturn("upload-id");
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession saved = invocation.getArgument(0);
+            saved.setId("session123");
+            return saved;
+        });
+        when(s3Service.presignUploadPart(eq("key.mp4"), eq("upload-id"), anyInt()))
+                .thenAnswer(invocation -> "https://signed/" + invocation.getArgument(2));
+        when(s3Service.getPresignExpiry()).thenReturn(Instant.EPOCH);
+
+        DirectUploadDTO directUploadDTO = uploadSessionService.createDirectSession(
+                new CreateUploadSessionDTO("clip.mp4", "video/mp4", 25));
+
+        assertEquals("session123", directUploadDTO.getSessionId());
+        assertEquals(List.of("https://signed/1", "https://signed/2", "https://signed/3"),
+                directUploadDTO.getUploadUrls());
+        ArgumentCaptor<UploadSession> sessionCaptor = ArgumentCaptor.forClass(UploadSession.class);
+        verify(uploadSessionRepository).save(sessionCaptor.capture());
+        assertEquals(UploadMode.DIRECT, sessionCaptor.getValue().getUploadMode());
+    }
+
+    @Test
+    public void createDirectSessionTest_UnsupportedContentType() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.createDirectSession(new CreateUploadSessionDTO("notes.txt", "text/plain", 25)));
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, exception.getStatusCode());
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    public void presignChunkTest_ProxiedSession() {
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.presignChunk("session123", 0));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    public void completeDirectSessionTest_Success() {
+        uploadSession.setUploadMode(UploadMode.DIRECT);
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.listUploadedParts("key.mp4", "upload-id")).thenReturn(List.of(
+                CompletedPart.builder().partNumber(1).eTag("etag1").build(),
+                CompletedPart.builder().partNumber(2).eTag("etag2").build(),
+                CompletedPart.builder().partNumber(3).eTag("etag3").build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(s3Service.headObject("key.mp4")).thenReturn(
+                HeadObjectResponse.builder().contentLength(25L).contentType("video/mp4").build());
+        when(s3Service.getFileUrl("key.mp4")).thenReturn("s3-url");
+        when(videoService.createVideo("s3-url")).thenReturn(new VideoUploadResponseDTO("video123", "s3-url"));
+
+        VideoUploadResponseDTO uploadResponse = uploadSessionService.completeSession("session123");
+
+        assertEquals("video123", uploadResponse.getVideoId());
+        verify(s3Service).completeMultipartUpload(eq("key.mp4"), eq("upload-id"), anyList());
+        verify(storageCleanupService, never()).deleteLater(any());
+    }
+
+    @Test
+    public void completeDirectSessionTest_SizeMismatch() {
+        uploadSession.setUploadMode(UploadMode.DIRECT);
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.listUploadedParts("key.mp4", "upload-id")).thenReturn(List.of(
+                CompletedPart.builder().partNumber(1).eTag("etag1").build(),
+                CompletedPart.builder().partNumber(2).eTag("etag2").build(),
+                CompletedPart.builder().partNumber(3).eTag("etag3").build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(s3Service.headObject("key.mp4")).thenReturn(
+                HeadObjectResponse.builder().contentLength(40L).contentType("video/mp4").build());
+        when(s3Service.getFileUrl("key.mp4")).thenReturn("s3-url");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.completeSession("session123"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(storageCleanupService, times(1)).deleteLater(Set.of("s3-url"));
+        verify(videoService, never()).createVideo(any());
+    }
+
+    @Test
+    public void completeDirectSessionTest_VerifyFailureAbortsAndCleansUp() {
+        uploadSession.setUploadMode(UploadMode.DIRECT);
+        when(uploadSessionRepository.findById("session123")).thenReturn(Optional.of(uploadSession));
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(s3Service.listUploadedParts("key.mp4", "upload-id")).thenReturn(List.of(
+                CompletedPart.builder().partNumber(1).eTag("etag1").build(),
+                CompletedPart.builder().partNumber(2).eTag("etag2").build(),
+                CompletedPart.builder().partNumber(3).eTag("etag3").build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(s3Service.getFileUrl("key.mp4")).thenReturn("s3-url");
+        when(s3Service.headObject("key.mp4")).thenThrow(new RuntimeException("S3 unavailable"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.completeSession("session123"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+        // Released as ABORTED rather than left stuck in FINALIZING
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updateCaptor.capture(), eq(UploadSession.class));
+        assertEquals(UploadSessionStatus.ABORTED,
+                updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", org.bson.Document.class).get("status"));
+        verify(storageCleanupService).deleteLater(Set.of("s3-url"));
+        verify(videoService, never()).createVideo(any());
+    }
+
+    @Test
+    public void abortExpiredSessionsTest_AbortsTheMultipartUploadsOfSessionsItClaims() {
+        UploadSession finalized = new UploadSession();
+        finalized.setId("session456");
+        finalized.setFileKey("other.mp4");
+        finalized.setUploadId("other-upload-id");
+        when(mongoTemplate.find(any(Query.class), eq(UploadSession.class))).thenReturn(List.of(uploadSession, finalized));
+        // The second session was finalized between the find and the claim
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        uploadSessionService.abortExpiredSessions();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(UploadSession.class));
+        assertEquals(UploadSessionStatus.IN_PROGRESS, queryCaptor.getValue().getQueryObject().get("status"));
+        assertTrue(queryCaptor.getValue().getQueryObject().get("expireAt", org.bson.Document.class).containsKey("$lt"));
+        verify(s3Service).abortMultipartUpload("key.mp4", "upload-id");
+        verify(s3Service, never()).abortMultipartUpload("other.mp4", "other-upload-id");
+    }
+}
@@ -1,8 +1,10 @@
 package com.aditya.youtube_clone.service;
 
 import com.aditya.youtube_clone.dto.UserInfoDTO;
+import com.aditya.youtube_clone.dto.UserProfileDTO;
 import com.aditya.youtube_clone.model.User;
 import com.aditya.youtube_clone.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.mockwebserver.MockResponse;
@@ -30,6 +32,9 @@ public class UserRegistrationServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private Cache<String, UserProfileDTO> userProfileCache;
+
     @InjectMocks
     private UserRegistrationService userRegistrationService;
 
@@ -38,6 +43,7 @@ public class UserRegistrationServiceTest {
 
     private UserInfoDTO createUserInfoDTO() {
         UserInfoDTO dto = new UserInfoDTO();
+        dto.setSub("auth0|john");
         dto.setGivenName("John");
         dto.setFamilyName("Doe");
         dto.setName("John Doe");
@@ -82,6 +88,7 @@ public class UserRegistrationServiceTest {
         assertEquals("Doe", savedUser.getLastName());
         assertEquals("John Doe", savedUser.getFullName());
         assertEquals("john.doe@example.com", savedUser.getEmailAddress());
+        verify(userProfileCache).invalidate("auth0|john");
     }
 
     @Test
@@ -1,32 +1,57 @@
 package com.aditya.youtube_clone.service;
 
+import com.aditya.youtube_clone.dto.UserProfileDTO;
+import com.aditya.youtube_clone.model.Reaction;
 import com.aditya.youtube_clone.model.User;
+import com.aditya.youtube_clone.model.VideoReaction;
+import com.aditya.youtube_clone.repository.ReactionRepository;
 import com.aditya.youtube_clone.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ReactionRepository reactionRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Spy
+    private CurrentUserContext currentUserContext = new CurrentUserContext();
+    @Spy
+    private Cache<String, UserProfileDTO> userProfileCache = Caffeine.newBuilder().build();
     @InjectMocks
     private UserService userService;
 
@@ -45,10 +70,6 @@ public class UserServiceTest {
         existingUser.setFirstName("firstName");
         existingUser.setLastName("lastName");
         existingUser.setEmailAddress("first@example.com");
-        existingUser.setSubscribedToUsers(ConcurrentHashMap.newKeySet());
-        existingUser.setDisLikedVideos(ConcurrentHashMap.newKeySet());
-        existingUser.setLikedVideos(ConcurrentHashMap.newKeySet());
-        existingUser.setVideoHistory(List.of("someVideoId"));
         this.mockJwt = Mockito.mock(Jwt.class);
         this.mockAuthentication = Mockito.mock(Authentication.class);
         this.mockSecurityContext = Mockito.mock(SecurityContext.class);
@@ -92,302 +113,229 @@ public class UserServiceTest {
             verify(userRepository, times(1)).findBySub("sub123");
         }
     }
-    @Test
-    public void testAddToLikedVideos_Success() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
-        try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
-            mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-
-            userService.addToLikedVideos("video123");
-
-            verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-
-            assertEquals(1, existingUser.getLikedVideos().size());
-            assertEquals("video123", existingUser.getLikedVideos().iterator().next());
-        }
+    private void mockCurrentUser() {
+        mockCurrentUserSub();
+        when(userRepository.findBySub("sub123")).thenReturn(java.util.Optional.of(existingUser));
     }
-    @Test
-    public void testAddToLikedVideos_UserNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
-        try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
-            mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
 
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.empty());
-
-            try {
-                userService.addToLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("User not found with given auth token", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
-        }
-    }
-    @Test
-    public void testAddToLikedVideos_DBErrorOnSave() {
+    private void mockCurrentUserSub() {
         when(mockJwt.getClaim("sub")).thenReturn("sub123");
         when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
         when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
-        try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
-            mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-            doThrow(new RuntimeException("Database error")).when(userRepository).save(existingUser);
-
-            try {
-                userService.addToLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("Database error", ex.getMessage());
-            }
+    }
 
-            verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-            assertEquals(1, existingUser.getLikedVideos().size()); // just the in-memory object
-        }
+    private Document reactionQuery(VideoReaction type) {
+        return new Document("userId", "user123").append("videoId", "video123").append("type", type);
     }
+
     @Test
-    public void testCheckUserLikedVideo_VideoFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_FirstLike() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            existingUser.getLikedVideos().add("video123");
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-
-            boolean isLiked = userService.checkUserLikedVideo("video123");
-            assertTrue(isLiked);
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            // Upserted, so there was no previous reaction document
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Reaction.class))).thenReturn(null);
+
+            assertEquals(VideoReaction.NONE, userService.toggleReaction("video123", VideoReaction.LIKE));
+
+            ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+            ArgumentCaptor<FindAndModifyOptions> optionsCaptor = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+            verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(), optionsCaptor.capture(),
+                    eq(Reaction.class));
+            assertEquals(new Document("userId", "user123").append("videoId", "video123")
+                            .append("type", new Document("$ne", VideoReaction.LIKE)),
+                    queryCaptor.getValue().getQueryObject());
+            assertEquals(VideoReaction.LIKE,
+                    ((Document) updateCaptor.getValue().getUpdateObject().get("$set")).get("type"));
+            assertTrue(optionsCaptor.getValue().isUpsert());
+            verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Reaction.class));
         }
     }
+
     @Test
-    public void testCheckUserLikedVideo_VideoNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_SwitchFromDislike() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
+            Reaction previous = new Reaction("reaction123", "user123", "video123", VideoReaction.DISLIKE, null, null);
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Reaction.class))).thenReturn(previous);
 
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-
-            boolean isLiked = userService.checkUserLikedVideo("video123");
-            assertFalse(isLiked);
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            assertEquals(VideoReaction.DISLIKE, userService.toggleReaction("video123", VideoReaction.LIKE));
         }
     }
+
     @Test
-    public void testCheckUserLikedVideo_UserNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_AlreadyLikedTogglesOff() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.empty());
-
-            try {
-                userService.checkUserLikedVideo("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("User not found with given auth token", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            // The upsert runs into the unique (userId, videoId) index because the like is already there
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Reaction.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Reaction.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            assertEquals(VideoReaction.LIKE, userService.toggleReaction("video123", VideoReaction.LIKE));
+
+            ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+            verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(Reaction.class));
+            assertEquals(reactionQuery(VideoReaction.LIKE), queryCaptor.getValue().getQueryObject());
+            // Kept as NONE rather than deleted, so the first-like marker is not lost
+            assertEquals(new Document("type", VideoReaction.NONE), updateCaptor.getValue().getUpdateObject().get("$set"));
+            verify(mongoTemplate, never()).remove(any(Query.class), eq(Reaction.class));
         }
     }
+
     @Test
-    public void testCheckUserDisLikedVideo_VideoFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testMarkFirstLike_OnlyOncePerVideo() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            existingUser.getDisLikedVideos().add("video123");
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-
-            boolean isDisLiked = userService.checkUserDisLikedVideo("video123");
-            assertTrue(isDisLiked);
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            // The second like, after a toggle-off, finds the marker already set
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Reaction.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                    .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+            assertTrue(userService.markFirstLike("video123"));
+            assertFalse(userService.markFirstLike("video123"));
+
+            ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate, times(2)).updateFirst(queryCaptor.capture(), any(Update.class), eq(Reaction.class));
+            assertEquals(reactionQuery(VideoReaction.LIKE).append("firstLikedAt", new Document("$exists", false)),
+                    queryCaptor.getValue().getQueryObject());
         }
     }
+
     @Test
-    public void testCheckUserDisLikedVideo_VideoNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_RetriesAfterConcurrentToggle() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-
-            boolean isDisLiked = userService.checkUserDisLikedVideo("video123");
-            assertFalse(isDisLiked);
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            // The like was there for the upsert but another request removed it before our delete
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Reaction.class)))
+                    .thenThrow(new DuplicateKeyException("E11000 duplicate key"))
+                    .thenReturn(null);
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Reaction.class)))
+                    .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+            assertEquals(VideoReaction.NONE, userService.toggleReaction("video123", VideoReaction.LIKE));
+            verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                    any(FindAndModifyOptions.class), eq(Reaction.class));
         }
     }
+
     @Test
-    public void testCheckUserDisLikedVideo_UserNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_UserNotFound() {
+        mockCurrentUserSub();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
             when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.empty());
 
-            try {
-                userService.checkUserDisLikedVideo("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("User not found with given auth token", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                    userService.toggleReaction("video123", VideoReaction.DISLIKE));
+            assertEquals("User not found with given auth token", exception.getMessage());
+            verifyNoInteractions(mongoTemplate);
         }
     }
+
     @Test
-    public void testRemoveFromLikedVideos_Success() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testGetCurrentUser_ResolvedOncePerRequest() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-            Set<String> likedVideos = ConcurrentHashMap.newKeySet();
-            likedVideos.add("video123");
-            existingUser.setLikedVideos(likedVideos);
-            assertEquals(1, existingUser.getLikedVideos().size());
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-            doReturn(existingUser).when(userRepository).save(existingUser);
 
-            userService.removeFromLikedVideos("video123");
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Reaction.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            // The like flow: look up the user, toggle the reaction, mark the first like
+            assertEquals("user123", userService.getCurrentUserId());
+            assertEquals(VideoReaction.NONE, userService.toggleReaction("video123", VideoReaction.LIKE));
+            assertTrue(userService.markFirstLike("video123"));
 
             verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-            assertEquals(0, existingUser.getLikedVideos().size());
+            verify(userRepository, never()).save(any());
         }
     }
+
     @Test
-    public void testRemoveFromLikedVideos_UserNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testToggleReaction_UsesCachedUserId() {
+        mockCurrentUserSub();
+        userProfileCache.put("sub123", new UserProfileDTO("user123", "sub123", "firstName", "lastName",
+                null, "first@example.com"));
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Reaction.class))).thenReturn(null);
 
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.empty());
-
-            try {
-                userService.removeFromLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("User not found with given auth token", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            assertEquals(VideoReaction.NONE, userService.toggleReaction("video123", VideoReaction.LIKE));
+            verifyNoInteractions(userRepository);
         }
     }
+
     @Test
-    public void testRemoveFromLikedVideos_DBErrorOnSave() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testGetLikedVideoIds_NewestFirstPage() {
+        mockCurrentUser();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
+            List<Reaction> reactions = List.of(
+                    new Reaction("r2", "user123", "newerVideo", VideoReaction.LIKE, null, null),
+                    new Reaction("r1", "user123", "olderVideo", VideoReaction.LIKE, null, null));
+            when(reactionRepository.findByUserIdAndTypeOrderByCreatedAtDesc("user123", VideoReaction.LIKE,
+                    PageRequest.of(1, 2))).thenReturn(new SliceImpl<>(reactions, PageRequest.of(1, 2), true));
 
-            Set<String> likedVideos = ConcurrentHashMap.newKeySet();
-            likedVideos.add("video123");
-            existingUser.setLikedVideos(likedVideos);
-            assertEquals(1, existingUser.getLikedVideos().size());
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-            doThrow(new RuntimeException("Database error")).when(userRepository).save(existingUser);
-
-            try {
-                userService.removeFromLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("Database error", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-            assertEquals(0, existingUser.getLikedVideos().size()); // just the in-memory object
+            assertEquals(List.of("newerVideo", "olderVideo"), userService.getLikedVideoIds(1, 2));
         }
     }
+
     @Test
-    public void testRemoveFromDisLikedVideos_Success() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testGetCurrentUserProfile_CachedAcrossRequests() {
+        mockCurrentUserSub();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-            Set<String> disLikedVideos = ConcurrentHashMap.newKeySet();
-            disLikedVideos.add("video123");
-            existingUser.setDisLikedVideos(disLikedVideos);
-            assertEquals(1, existingUser.getDisLikedVideos().size());
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-            doReturn(existingUser).when(userRepository).save(existingUser);
+            when(userRepository.findBySub("sub123")).thenReturn(java.util.Optional.of(existingUser));
 
-            userService.removeFromDisLikedVideos("video123");
+            // Each call stands for a separate request, none of them loads the full user document
+            UserProfileDTO profile = userService.getCurrentUserProfile();
+            assertEquals("user123", userService.getCurrentUserId());
+            assertEquals("user123", userService.getCurrentUserId());
 
+            assertEquals("user123", profile.getId());
+            assertEquals("first@example.com", profile.getEmailAddress());
             verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-            assertEquals(0, existingUser.getDisLikedVideos().size());
         }
     }
+
     @Test
-    public void testRemoveFromDisLikedVideos_UserNotFound() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testGetCurrentUserProfile_UserNotFoundIsNotCached() {
+        mockCurrentUserSub();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.empty());
-
-            try {
-                userService.removeFromDisLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("User not found with given auth token", ex.getMessage());
-            }
-
-            verify(userRepository, times(1)).findBySub("sub123");
+            when(userRepository.findBySub("sub123"))
+                    .thenReturn(java.util.Optional.empty())
+                    .thenReturn(java.util.Optional.of(existingUser));
+
+            RuntimeException exception = assertThrows(RuntimeException.class, userService::getCurrentUserId);
+            assertEquals("User not found with given auth token", exception.getMessage());
+            // Once registered the user resolves on the next call
+            assertEquals("user123", userService.getCurrentUserId());
         }
     }
+
     @Test
-    public void testRemoveFromDisLikedVideos_DBErrorOnSave() {
-        when(mockJwt.getClaim("sub")).thenReturn("sub123");
-        when(mockAuthentication.getPrincipal()).thenReturn(mockJwt);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+    public void testGetCurrentUser_PopulatesProfileCache() {
+        mockCurrentUserSub();
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = Mockito.mockStatic(SecurityContextHolder.class)) {
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
+            when(userRepository.findBySub("sub123")).thenReturn(java.util.Optional.of(existingUser));
 
-            Set<String> disLikedVideos = ConcurrentHashMap.newKeySet();
-            disLikedVideos.add("video123");
-            existingUser.setDisLikedVideos(disLikedVideos);
-            assertEquals(1, existingUser.getDisLikedVideos().size());
-
-            when(userRepository.findBySub(anyString())).thenReturn(java.util.Optional.of(existingUser));
-            doThrow(new RuntimeException("Database error")).when(userRepository).save(existingUser);
-
-            try {
-                userService.removeFromDisLikedVideos("video123");
-            } catch (RuntimeException ex) {
-                assertEquals("Database error", ex.getMessage());
-            }
+            userService.getCurrentUser();
 
-            verify(userRepository, times(1)).findBySub("sub123");
-            verify(userRepository, times(1)).save(existingUser);
-            assertEquals(0, existingUser.getDisLikedVideos().size()); // just the in-memory object
+            assertEquals("user123", userProfileCache.getIfPresent("sub123").getId());
         }
     }
 }
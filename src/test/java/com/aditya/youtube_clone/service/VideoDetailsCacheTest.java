@@ -0,0 +1,151 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.VideoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VideoDetailsCacheTest {
+
+    private SharedVideoCache sharedVideoCache;
+    private VideoDetailsCache videoDetailsCache;
+    private final AtomicInteger mongoReads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        sharedVideoCache = new InProcessSharedVideoCache(Caffeine.newBuilder().build(), Caffeine.newBuilder().build(),
+                new ObjectMapper());
+        videoDetailsCache = new VideoDetailsCache(Caffeine.newBuilder().buildAsync(), Optional.of(sharedVideoCache));
+    }
+
+    private VideoDTO loadFromMongo(String videoId) {
+        mongoReads.incrementAndGet();
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId(videoId);
+        videoDTO.setTitle("title");
+        videoDTO.setTags(new HashSet<>(Set.of("tag")));
+        return videoDTO;
+    }
+
+    @Test
+    void testGet_ThunderingHerdCoalescesIntoOneRead() throws Exception {
+        int requests = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch loaderRunning = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<VideoDTO>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return videoDetailsCache.get("viral", videoId -> {
+                        loaderRunning.countDown();
+                        // Hold the load open so every other request piles up behind it
+                        sleepQuietly();
+                        return loadFromMongo(videoId);
+                    });
+                }));
+            }
+            start.countDown();
+            assertTrue(loaderRunning.await(10, TimeUnit.SECONDS));
+            for (Future<VideoDTO> result : results) {
+                assertEquals("viral", result.get(10, TimeUnit.SECONDS).getId());
+            }
+        }
+        assertEquals(1, mongoReads.get());
+    }
+
+    @Test
+    void testGet_SharedTierServesOtherInstances() {
+        videoDetailsCache.get("videoId", this::loadFromMongo);
+        // A second instance has a cold local tier but the same shared tier
+        VideoDetailsCache otherInstance = new VideoDetailsCache(Caffeine.newBuilder().buildAsync(),
+                Optional.of(sharedVideoCache));
+
+        VideoDTO videoDTO = otherInstance.get("videoId", this::loadFromMongo);
+
+        assertEquals("title", videoDTO.getTitle());
+        assertEquals(1, mongoReads.get());
+    }
+
+    @Test
+    void testEvict_ClearsBothTiers() {
+        videoDetailsCache.get("videoId", this::loadFromMongo);
+
+        videoDetailsCache.evict("videoId");
+
+        assertTrue(sharedVideoCache.get("videoId").isEmpty());
+        videoDetailsCache.get("videoId", this::loadFromMongo);
+        assertEquals(2, mongoReads.get());
+    }
+
+    @Test
+    void testGet_LoadRacingAnEvictIsNotSharedStale() {
+        // A writer updates Mongo and evicts after this load has already read the old document
+        videoDetailsCache.get("videoId", videoId -> {
+            VideoDTO stale = loadFromMongo(videoId);
+            videoDetailsCache.evict(videoId);
+            return stale;
+        });
+
+        assertTrue(sharedVideoCache.get("videoId").isEmpty());
+        VideoDetailsCache otherInstance = new VideoDetailsCache(Caffeine.newBuilder().buildAsync(),
+                Optional.of(sharedVideoCache));
+        otherInstance.get("videoId", this::loadFromMongo);
+        assertEquals(2, mongoReads.get());
+        assertTrue(sharedVideoCache.get("videoId").isPresent());
+    }
+
+    @Test
+    void testGet_CallersCannotMutateCachedEntry() {
+        VideoDTO first = videoDetailsCache.get("videoId", this::loadFromMongo);
+        first.setTitle("changed by caller");
+        first.getTags().add("changed");
+
+        VideoDTO second = videoDetailsCache.get("videoId", this::loadFromMongo);
+
+        assertEquals("title", second.getTitle());
+        assertEquals(Set.of("tag"), second.getTags());
+    }
+
+    @Test
+    void testGet_MissingVideoIsNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> videoDetailsCache.get("missing", videoId -> {
+            mongoReads.incrementAndGet();
+            throw new IllegalArgumentException("Cannot find video by ID: " + videoId);
+        }));
+
+        videoDetailsCache.get("missing", this::loadFromMongo);
+        assertEquals(2, mongoReads.get());
+    }
+
+    @Test
+    void testGet_WorksWithoutSharedTier() {
+        VideoDetailsCache localOnly = new VideoDetailsCache(Caffeine.newBuilder().buildAsync(), Optional.empty());
+        localOnly.get("videoId", this::loadFromMongo);
+        localOnly.get("videoId", this::loadFromMongo);
+        assertEquals(1, mongoReads.get());
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,25 +1,58 @@
 package com.aditya.youtube_clone.service;
 
 import com.aditya.youtube_clone.dto.VideoDTO;
+import com.aditya.youtube_clone.dto.VideoPageDTO;
 import com.aditya.youtube_clone.dto.VideoUploadResponseDTO;
+import com.aditya.youtube_clone.model.ProcessingStatus;
 import com.aditya.youtube_clone.model.Video;
+import com.aditya.youtube_clone.model.VideoReaction;
 import com.aditya.youtube_clone.model.VideoStatus;
+import com.aditya.youtube_clone.repository.VideoDetails;
+import com.aditya.youtube_clone.repository.VideoReactionView;
 import com.aditya.youtube_clone.repository.VideoRepository;
+import com.aditya.youtube_clone.repository.VideoSummary;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,41 +64,113 @@ public class VideoServiceTest {
     @Mock
     private S3Service s3Service;
 
+    @Mock
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Mock
+    private CommentService commentService;
+
+    @Spy
+    private VideoDetailsCache videoDetailsCache = new VideoDetailsCache(Caffeine.newBuilder().buildAsync(), Optional.empty());
+
     @InjectMocks
     private VideoService videoService;
 
     @Mock
     private UserService userService;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @Mock
+    private ViewCounterBuffer viewCounterBuffer;
+
+    @Mock
+    private UniqueViewerService uniqueViewerService;
+
+    @Mock
+    private HomeFeedService homeFeedService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private TranscodingService transcodingService;
+
+    @Mock
+    private StorageCleanupService storageCleanupService;
+
+    @Mock
+    private ExecutableFindOperation.ExecutableFind<Video> videoFind;
+
+    @Mock
+    private ExecutableFindOperation.FindWithQuery<VideoSummary> summaryFind;
+
+    @Mock
+    private ExecutableFindOperation.TerminatingFind<VideoSummary> summaryResults;
+
     @Test
     public void uploadVideoTest_Success() throws IOException {
         MultipartFile mockMultipartFile = mock(MultipartFile.class);
-        when(s3Service.uploadFile(any())).thenReturn("s3-url");
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.completedFuture("s3-url"));
         Video savedVideo = new Video();
         savedVideo.setId("1");
         savedVideo.setVideoUrl("s3-url");
         when(videoRepository.save(any(Video.class))).thenReturn(savedVideo);
-        VideoUploadResponseDTO uploadedVideo = videoService.uploadVideo(mockMultipartFile);
+        when(userService.getCurrentUserId()).thenReturn("userId");
+        VideoUploadResponseDTO uploadedVideo = videoService.uploadVideo(mockMultipartFile).join();
         verify(s3Service, times(1)).uploadFile(any());
-        verify(videoRepository, times(1)).save(any());
+        ArgumentCaptor<Video> videoCaptor = ArgumentCaptor.forClass(Video.class);
+        verify(videoRepository, times(1)).save(videoCaptor.capture());
+        assertEquals("userId", videoCaptor.getValue().getUserId());
+        assertEquals(ProcessingStatus.PENDING, videoCaptor.getValue().getProcessingStatus());
         assertEquals("s3-url", uploadedVideo.getVideoUrl());
+        verify(homeFeedService, times(1)).enqueueFanOut("1", "userId");
+        verify(transcodingService, times(1)).enqueue("1", "s3-url");
     }
 
     @Test
     public void uploadVideoTest_S3UploadFailure() throws IOException {
         // Arrange
         MultipartFile mockMultipartFile = mock(MultipartFile.class);
-        when(s3Service.uploadFile(any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,"S3 upload failed"));
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.failedFuture(
+                new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,"S3 upload failed")));
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, () -> {
-            videoService.uploadVideo(mockMultipartFile);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            videoService.uploadVideo(mockMultipartFile).join();
         });
+        assertInstanceOf(ResponseStatusException.class, exception.getCause());
 
         verify(s3Service, times(1)).uploadFile(any());
         verify(videoRepository, times(0)).save(any());
     }
 
+    @Test
+    public void uploadVideoStreamTest_Success() {
+        InputStream inputStream = new ByteArrayInputStream("Dummy video content".getBytes());
+        when(s3Service.uploadStream(inputStream, "video/mp4", "mp4")).thenReturn("s3-url");
+        Video savedVideo = new Video();
+        savedVideo.setId("1");
+        savedVideo.setVideoUrl("s3-url");
+        when(videoRepository.save(any(Video.class))).thenReturn(savedVideo);
+        VideoUploadResponseDTO uploadedVideo = videoService.uploadVideoStream(inputStream, "video/mp4", "clip.mp4");
+        verify(s3Service, times(1)).uploadStream(inputStream, "video/mp4", "mp4");
+        verify(videoRepository, times(1)).save(any());
+        assertEquals("1", uploadedVideo.getVideoId());
+        assertEquals("s3-url", uploadedVideo.getVideoUrl());
+    }
+
+    private Update modifiedVideo() {
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), updateCaptor.capture(), any(FindAndModifyOptions.class),
+                eq(Video.class));
+        return updateCaptor.getValue();
+    }
+
     @Test
     public void editVideoTest_Success() {
         Video video = new Video();
@@ -75,10 +180,12 @@ public class VideoServiceTest {
         video.setVideoStatus(VideoStatus.PUBLIC);
         video.setVideoUrl("http://example.com/video");
         video.setThumbnailUrl("http://example.com/thumbnail");
-        video.setLikes(new AtomicInteger(0));
-        video.setDisLikes(new AtomicInteger(0));
+        video.setThumbnailVariants(Map.of("120", "http://example.com/thumbnail-120"));
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        when(videoRepository.save(any(Video.class))).thenReturn(video);
+        Video updatedVideo = new Video();
+        updatedVideo.setVersion(1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Video.class))).thenReturn(updatedVideo);
         VideoDTO videoDTO = new VideoDTO();
         videoDTO.setId("videoId");
         videoDTO.setTitle("new title");
@@ -88,12 +195,59 @@ public class VideoServiceTest {
         videoDTO.setThumbnailUrl("http://example.com/new_thumbnail");
         VideoDTO editedVideo = videoService.editVideo(videoDTO);
         verify(videoRepository, times(1)).findById("videoId");
-        verify(videoRepository, times(1)).save(any(Video.class));
-        assertEquals(editedVideo.getTitle(), videoDTO.getTitle());
-        assertEquals(editedVideo.getDescription(), videoDTO.getDescription());
-        assertEquals(editedVideo.getVideoStatus(), videoDTO.getVideoStatus());
-        assertEquals(editedVideo.getThumbnailUrl(), videoDTO.getThumbnailUrl());
-        assertEquals(editedVideo.getVideoStatus(), videoDTO.getVideoStatus());
+        verify(videoRepository, never()).save(any(Video.class));
+        verify(videoDetailsCache, times(1)).evict("videoId");
+        Update update = modifiedVideo();
+        Document set = (Document) update.getUpdateObject().get("$set");
+        assertEquals("new title", set.get("title"));
+        assertEquals("new description", set.get("description"));
+        assertEquals(VideoStatus.PRIVATE, set.get("videoStatus"));
+        assertEquals("http://example.com/new_thumbnail", set.get("thumbnailUrl"));
+        assertEquals(Set.of("new", "title"), set.get("searchTerms"));
+        assertEquals(new Document("thumbnailVariants", 1), update.getUpdateObject().get("$unset"));
+        assertEquals(new Document("version", 1), update.getUpdateObject().get("$inc"));
+        // Counters are flushed with $inc of their own, an edit never writes them
+        assertFalse(set.containsKey("likes"));
+        assertFalse(set.containsKey("viewCount"));
+        assertEquals(1, editedVideo.getVersion());
+    }
+
+    @Test
+    public void editVideoTest_UnchangedThumbnailKeepsVariants() {
+        Video video = new Video();
+        video.setId("videoId");
+        video.setThumbnailUrl("http://example.com/thumbnail");
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Video.class))).thenReturn(video);
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId("videoId");
+        videoDTO.setThumbnailUrl("http://example.com/thumbnail");
+        videoService.editVideo(videoDTO);
+        Update update = modifiedVideo();
+        assertFalse(((Document) update.getUpdateObject().get("$set")).containsKey("thumbnailUrl"));
+        assertNull(update.getUpdateObject().get("$unset"));
+    }
+
+    @Test
+    public void editVideoTest_VersionBumpedByAJobMeanwhile() {
+        Video loadedVideo = new Video();
+        loadedVideo.setId("videoId");
+        loadedVideo.setVersion(3);
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(loadedVideo));
+        // A transcode finished between the load and the edit and took version 4
+        Video updatedVideo = new Video();
+        updatedVideo.setVersion(5);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Video.class))).thenReturn(updatedVideo);
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId("videoId");
+        VideoDTO editedVideo = videoService.editVideo(videoDTO);
+        Update update = modifiedVideo();
+        // Never the stale version + 1, that number already went to the transcode
+        assertFalse(((Document) update.getUpdateObject().get("$set")).containsKey("version"));
+        assertEquals(new Document("version", 1), update.getUpdateObject().get("$inc"));
+        assertEquals(5, editedVideo.getVersion());
     }
 
     @Test
@@ -105,17 +259,31 @@ public class VideoServiceTest {
             videoService.editVideo(videoDTO);
         });
         verify(videoRepository, times(1)).findById("nonExistentVideoId");
-        verify(videoRepository, times(0)).save(any(Video.class));
+        verifyNoInteractions(mongoTemplate);
         assertEquals("Cannot find video by ID: nonExistentVideoId", exception.getMessage());
     }
 
+    @Test
+    public void editVideoTest_DeletedMeanwhile() {
+        Video video = new Video();
+        video.setId("videoId");
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId("videoId");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            videoService.editVideo(videoDTO);
+        });
+        assertEquals("Cannot find video by ID: videoId", exception.getMessage());
+    }
+
     @Test
     public void editVideoTest_DB_Failure() {
         Video video = new Video();
         video.setId("videoId");
         video.setTitle("title");
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        when(videoRepository.save(any(Video.class))).thenThrow(new RuntimeException("DB error"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Video.class))).thenThrow(new RuntimeException("DB error"));
         VideoDTO videoDTO = new VideoDTO();
         videoDTO.setId("videoId");
         videoDTO.setTitle("new title");
@@ -123,7 +291,6 @@ public class VideoServiceTest {
             videoService.editVideo(videoDTO);
         });
         verify(videoRepository, times(1)).findById("videoId");
-        verify(videoRepository, times(1)).save(any(Video.class));
         assertEquals("DB error", exception.getMessage());
     }
 
@@ -133,15 +300,57 @@ public class VideoServiceTest {
         Video video = new Video();
         video.setId("videoId");
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        when(s3Service.uploadFile(any())).thenReturn("s3-thumbnail-url");
-        when(videoRepository.save(any(Video.class))).thenReturn(video);
-        String thumbnailUrl = videoService.uploadThumbnail(mockMultipartFile, "videoId");
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.completedFuture("s3-thumbnail-url"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(Video.class))).thenReturn(video);
+        String thumbnailUrl = videoService.uploadThumbnail(mockMultipartFile, "videoId").join();
         verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).uploadFile(any());
-        verify(videoRepository, times(1)).save(any());
+        verify(thumbnailService, times(1)).validate(mockMultipartFile);
+        verify(s3Service, times(1)).uploadFile(mockMultipartFile);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), updateCaptor.capture(), eq(Video.class));
+        Document update = updateCaptor.getValue().getUpdateObject();
+        assertEquals(new Document("thumbnailUrl", "s3-thumbnail-url"), update.get("$set"));
+        assertEquals(new Document("version", 1), update.get("$inc"));
+        verify(videoRepository, never()).save(any());
+        verify(videoDetailsCache, times(1)).evict("videoId");
+        verify(storageCleanupService, times(1)).deleteLater(Set.of());
+        verify(thumbnailService, times(1)).enqueueVariants("videoId", "s3-thumbnail-url");
         assertEquals("s3-thumbnail-url", thumbnailUrl);
     }
 
+    @Test
+    public void uploadThumbnailTest_DeletesReplacedThumbnails() {
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        Video loadedVideo = new Video();
+        loadedVideo.setId("videoId");
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(loadedVideo));
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.completedFuture("new-url"));
+        // The variants job finished while the new image was uploading
+        Video previousVideo = new Video();
+        previousVideo.setThumbnailUrl("old-720");
+        previousVideo.setThumbnailVariants(Map.of("120", "old-120", "720", "old-720"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(Video.class))).thenReturn(previousVideo);
+        String thumbnailUrl = videoService.uploadThumbnail(mockMultipartFile, "videoId").join();
+        assertEquals("new-url", thumbnailUrl);
+        verify(storageCleanupService, times(1)).deleteLater(Set.of("old-120", "old-720"));
+        verify(s3Service, times(0)).deleteFile(any());
+    }
+
+    @Test
+    public void uploadThumbnailTest_VideoDeletedDuringUpload() {
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        Video video = new Video();
+        video.setId("videoId");
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.completedFuture("new-url"));
+        CompletionException completionException = assertThrows(CompletionException.class, () ->
+                videoService.uploadThumbnail(mockMultipartFile, "videoId").join());
+        assertEquals(HttpStatus.NOT_FOUND,
+                assertInstanceOf(ResponseStatusException.class, completionException.getCause()).getStatusCode());
+        verify(storageCleanupService, times(1)).deleteLater(Set.of("new-url"));
+        verify(thumbnailService, never()).enqueueVariants(any(), any());
+    }
+
     @Test
     public void uploadThumbnailTest_VideoNotFound() throws IOException {
         MultipartFile mockMultipartFile = mock(MultipartFile.class);
@@ -151,23 +360,38 @@ public class VideoServiceTest {
         });
         verify(videoRepository, times(1)).findById("nonExistentVideoId");
         verify(s3Service, times(0)).uploadFile(any());
-        verify(videoRepository, times(0)).save(any());
+        verifyNoInteractions(mongoTemplate);
         assertEquals("Cannot find video by ID: nonExistentVideoId", exception.getMessage());
     }
 
+    @Test
+    public void uploadThumbnailTest_UnreadableImage() {
+        MultipartFile mockMultipartFile = mock(MultipartFile.class);
+        Video video = new Video();
+        video.setId("videoId");
+        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported thumbnail image format"))
+                .when(thumbnailService).validate(mockMultipartFile);
+        assertThrows(ResponseStatusException.class, () -> videoService.uploadThumbnail(mockMultipartFile, "videoId"));
+        verify(s3Service, times(0)).uploadFile(any());
+        verify(thumbnailService, times(0)).enqueueVariants(any(), any());
+    }
+
     @Test
     public void uploadThumbnailTest_S3UploadFailure() throws IOException {
         MultipartFile mockMultipartFile = mock(MultipartFile.class);
         Video video = new Video();
         video.setId("videoId");
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        when(s3Service.uploadFile(any())).thenThrow(new RuntimeException("Something wrong with S3"));
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            videoService.uploadThumbnail(mockMultipartFile, "videoId");
+        when(s3Service.uploadFile(any())).thenReturn(CompletableFuture.failedFuture(
+                new RuntimeException("Something wrong with S3")));
+        CompletionException completionException = assertThrows(CompletionException.class, () -> {
+            videoService.uploadThumbnail(mockMultipartFile, "videoId").join();
         });
+        Throwable exception = completionException.getCause();
         verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).uploadFile(any());
-        verify(videoRepository, times(0)).save(any());
+        verifyNoInteractions(mongoTemplate);
+        verify(thumbnailService, times(0)).enqueueVariants(any(), any());
         assertEquals("Something wrong with S3", exception.getMessage());
     }
 
@@ -178,65 +402,30 @@ public class VideoServiceTest {
         video.setVideoUrl("s3-video-url");
         video.setThumbnailUrl("s3-thumbnail-url");
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        doNothing().when(s3Service).deleteFile(any());
         doNothing().when(videoRepository).delete(any(Video.class));
         videoService.deleteVideoById("videoId");
         verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).deleteFile("s3-video-url");
-        verify(s3Service, times(1)).deleteFile("s3-thumbnail-url");
         verify(videoRepository, times(1)).delete(video);
+        verify(commentService, times(1)).deleteCommentsForVideo("videoId");
+        verify(transcodingService, times(1)).deleteForVideo("videoId");
+        verify(videoDetailsCache, times(1)).evict("videoId");
+        // S3 is cleaned up in the background, the request never waits on it
+        verify(storageCleanupService, times(1)).deleteLater(Set.of("s3-video-url", "s3-thumbnail-url"));
+        verify(s3Service, times(0)).deleteFile(any());
     }
 
     @Test
     public void deleteVideoByIdTest_VideoNotFound() {
-        Video video = new Video();
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.empty());
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             videoService.deleteVideoById("nonExistentVideoId");
         });
         verify(videoRepository, times(1)).findById("nonExistentVideoId");
-        verify(s3Service, times(0)).deleteFile(any());
+        verify(storageCleanupService, times(0)).deleteLater(any());
         verify(videoRepository, times(0)).delete(any(Video.class));
         assertEquals("Cannot find video by ID: nonExistentVideoId", exception.getMessage());
     }
 
-    @Test
-    public void deleteVideoByIdTest_S3VideoDeletionFailure() {
-        Video video = new Video();
-        video.setId("videoId");
-        video.setVideoUrl("s3-video-url");
-        video.setThumbnailUrl("s3-thumbnail-url");
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        doThrow(new RuntimeException("S3 deletion failed")).when(s3Service).deleteFile("s3-video-url");
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            videoService.deleteVideoById("videoId");
-        });
-        verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).deleteFile("s3-video-url");
-        verify(s3Service, times(0)).deleteFile("s3-thumbnail-url");
-        verify(videoRepository, times(0)).delete(any(Video.class));
-        assertEquals("S3 deletion failed", exception.getMessage());
-    }
-
-    @Test
-    public void deleteVideoByIdTest_S3ThumbnailDeletionFailure() {
-        Video video = new Video();
-        video.setId("videoId");
-        video.setVideoUrl("s3-video-url");
-        video.setThumbnailUrl("s3-thumbnail-url");
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        doNothing().when(s3Service).deleteFile("s3-video-url");
-        doThrow(new RuntimeException("S3 thumbnail deletion failed")).when(s3Service).deleteFile("s3-thumbnail-url");
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            videoService.deleteVideoById("videoId");
-        });
-        verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).deleteFile("s3-video-url");
-        verify(s3Service, times(1)).deleteFile("s3-thumbnail-url");
-        verify(videoRepository, times(0)).delete(any(Video.class));
-        assertEquals("S3 thumbnail deletion failed", exception.getMessage());
-    }
-
     @Test
     public void deleteVideoByIdTest_DBDeletionFailure() {
         Video video = new Video();
@@ -244,16 +433,13 @@ public class VideoServiceTest {
         video.setVideoUrl("s3-video-url");
         video.setThumbnailUrl("s3-thumbnail-url");
         when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(video));
-        doNothing().when(s3Service).deleteFile("s3-video-url");
-        doNothing().when(s3Service).deleteFile("s3-thumbnail-url");
         doThrow(new RuntimeException("DB deletion failed")).when(videoRepository).delete(any(Video.class));
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             videoService.deleteVideoById("videoId");
         });
-        verify(videoRepository, times(1)).findById("videoId");
-        verify(s3Service, times(1)).deleteFile("s3-video-url");
-        verify(s3Service, times(1)).deleteFile("s3-thumbnail-url");
         verify(videoRepository, times(1)).delete(video);
+        // The files stay while the record still points at them
+        verify(storageCleanupService, times(0)).deleteLater(any());
         assertEquals("DB deletion failed", exception.getMessage());
     }
 
@@ -288,81 +474,380 @@ public class VideoServiceTest {
         assertEquals("DB error", exception.getMessage());
     }
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private Optional<VideoReactionView> reactedVideo(int likes, int disLikes) {
+        Video video = new Video();
+        video.setId("videoId");
+        video.setTitle("title");
+        video.setDescription("description");
+        video.setVideoUrl("videoUrl");
+        video.setThumbnailUrl("thumbnailUrl");
+        video.setLikes(new AtomicInteger(likes));
+        video.setDisLikes(new AtomicInteger(disLikes));
+        return Optional.of(projectionFactory.createProjection(VideoReactionView.class, video));
+    }
+
+    @Test
+    public void getVideoDetailsTest_UsesDetailProjection() {
+        Video video = new Video();
+        video.setId("videoId");
+        video.setTitle("title");
+        video.setVideoStatus(VideoStatus.UNLISTED);
+        when(videoRepository.findDetailsById("videoId"))
+                .thenReturn(Optional.of(projectionFactory.createProjection(VideoDetails.class, video)));
+
+        VideoDTO videoDTO = videoService.getVideoDetails("videoId");
+
+        assertEquals("title", videoDTO.getTitle());
+        assertEquals(VideoStatus.UNLISTED, videoDTO.getVideoStatus());
+        verify(videoRepository, never()).findById(any());
+    }
+
+    @Test
+    public void getVideoDetailsTest_ServedFromCacheUntilEdited() {
+        Video video = new Video();
+        video.setId("videoId");
+        video.setTitle("title");
+        Video editedVideo = new Video();
+        editedVideo.setId("videoId");
+        editedVideo.setTitle("new title");
+        when(videoRepository.findDetailsById("videoId"))
+                .thenReturn(Optional.of(projectionFactory.createProjection(VideoDetails.class, video)))
+                .thenReturn(Optional.of(projectionFactory.createProjection(VideoDetails.class, editedVideo)));
+        when(videoRepository.findById("videoId")).thenReturn(Optional.of(video));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Video.class))).thenReturn(editedVideo);
+
+        videoService.getVideoDetails("videoId");
+        videoService.getVideoDetails("videoId");
+        verify(videoRepository, times(1)).findDetailsById("videoId");
+
+        VideoDTO edit = new VideoDTO();
+        edit.setId("videoId");
+        edit.setTitle("new title");
+        videoService.editVideo(edit);
+        verify(videoDetailsCache).evict("videoId");
+
+        assertEquals("new title", videoService.getVideoDetails("videoId").getTitle());
+        verify(videoRepository, times(2)).findDetailsById("videoId");
+    }
+
+    @Test
+    public void getVideoDetailsTest_VideoNotFound() {
+        when(videoRepository.findDetailsById("missingVideo")).thenReturn(Optional.empty());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                videoService.getVideoDetails("missingVideo"));
+        assertEquals("Cannot find video by ID: missingVideo", exception.getMessage());
+    }
+
     @Test
     public void likeVideoTest_VideoNotFound() {
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.empty());
+        when(videoRepository.findReactionViewById("nonExistentVideoId")).thenReturn(Optional.empty());
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             videoService.likeVideo("nonExistentVideoId");
         });
-        verify(videoRepository, times(1)).findById("nonExistentVideoId");
         assertEquals("Cannot find video by ID: nonExistentVideoId", exception.getMessage());
-        verify(userService, times(0)).checkUserLikedVideo("nonExistentVideoId");
-        verify(userService, times(0)).checkUserDisLikedVideo("nonExistentVideoId");
+        verify(userService, times(0)).toggleReaction(any(), any());
+        verifyNoInteractions(likeCounterBuffer);
     }
 
     @Test
     public void likeVideoTest_Success_User_Already_Liked_Video() {
-        Video existingVideo = new Video();
-        // Create data for existing video
-        existingVideo.setId("videoId");
-        existingVideo.setTitle("title");
-        existingVideo.setDescription("description");
-        existingVideo.setVideoUrl("videoUrl");
-        existingVideo.setThumbnailUrl("thumbnailUrl");
-        existingVideo.setLikes(new AtomicInteger(1));
-        existingVideo.setDisLikes(new AtomicInteger(0));
-        when(userService.checkUserLikedVideo("videoId")).thenReturn(true);
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(existingVideo));
+        when(videoRepository.findReactionViewById("videoId")).thenReturn(reactedVideo(1, 0));
+        when(userService.toggleReaction("videoId", VideoReaction.LIKE)).thenReturn(VideoReaction.LIKE);
+        when(likeCounterBuffer.getPendingLikes("videoId")).thenReturn(-1L);
         VideoDTO finalVideo = videoService.likeVideo("videoId");
         assertEquals(0, finalVideo.getLikes());
-        verify(userService, times(1)).checkUserLikedVideo("videoId");
-        verify(userService, times(1)).removeFromLikedVideos("videoId");
+        verify(likeCounterBuffer).record("videoId", -1, 0);
+        verify(trendingService, never()).recordLike(any());
+        verify(videoRepository, never()).save(any());
     }
 
     @Test
     public void likeVideoTest_Success_User_Already_Disliked_Video() {
-        Video existingVideo = new Video();
-        // Create data for existing video
-        existingVideo.setId("videoId");
-        existingVideo.setTitle("title");
-        existingVideo.setDescription("description");
-        existingVideo.setVideoUrl("videoUrl");
-        existingVideo.setThumbnailUrl("thumbnailUrl");
-        existingVideo.setLikes(new AtomicInteger(0));
-        existingVideo.setDisLikes(new AtomicInteger(1));
-        when(userService.checkUserLikedVideo("videoId")).thenReturn(false);
-        when(userService.checkUserDisLikedVideo("videoId")).thenReturn(true);
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(existingVideo));
+        when(videoRepository.findReactionViewById("videoId")).thenReturn(reactedVideo(0, 1));
+        when(userService.toggleReaction("videoId", VideoReaction.LIKE)).thenReturn(VideoReaction.DISLIKE);
+        when(likeCounterBuffer.getPendingLikes("videoId")).thenReturn(1L);
+        when(likeCounterBuffer.getPendingDisLikes("videoId")).thenReturn(-1L);
         VideoDTO finalVideo = videoService.likeVideo("videoId");
         assertEquals(1, finalVideo.getLikes());
         assertEquals(0, finalVideo.getDislikes());
-        verify(userService, times(1)).checkUserLikedVideo("videoId");
-        verify(userService, times(1)).checkUserDisLikedVideo("videoId");
-        verify(userService, times(1)).removeFromDisLikedVideos("videoId");
-        verify(userService, times(1)).addToLikedVideos("videoId");
+        verify(likeCounterBuffer).record("videoId", 1, -1);
+        verify(videoRepository, never()).save(any());
     }
 
     @Test
     public void likeVideoTest_Success_User_Like_First_Time() {
-        Video existingVideo = new Video();
-        // Create data for existing video
-        existingVideo.setId("videoId");
-        existingVideo.setTitle("title");
-        existingVideo.setDescription("description");
-        existingVideo.setVideoUrl("videoUrl");
-        existingVideo.setThumbnailUrl("thumbnailUrl");
-        existingVideo.setLikes(new AtomicInteger(0));
-        existingVideo.setDisLikes(new AtomicInteger(0));
-        when(userService.checkUserLikedVideo("videoId")).thenReturn(false);
-        when(userService.checkUserDisLikedVideo("videoId")).thenReturn(false);
-        when(videoRepository.findById(any())).thenReturn(java.util.Optional.of(existingVideo));
+        when(videoRepository.findReactionViewById("videoId")).thenReturn(reactedVideo(0, 0));
+        when(userService.toggleReaction("videoId", VideoReaction.LIKE)).thenReturn(VideoReaction.NONE);
+        when(userService.markFirstLike("videoId")).thenReturn(true);
+        when(likeCounterBuffer.getPendingLikes("videoId")).thenReturn(1L);
         VideoDTO finalVideo = videoService.likeVideo("videoId");
         assertEquals(1, finalVideo.getLikes());
         assertEquals(0, finalVideo.getDislikes());
-        verify(userService, times(1)).checkUserLikedVideo("videoId");
-        verify(userService, times(1)).checkUserDisLikedVideo("videoId");
-        verify(userService, times(1)).addToLikedVideos("videoId");
-        verify(userService, times(0)).removeFromDisLikedVideos("videoId");
-        verify(userService, times(0)).removeFromLikedVideos("videoId");
+        verify(likeCounterBuffer).record("videoId", 1, 0);
+        verify(trendingService).recordLike("videoId");
+        verify(videoRepository, never()).findById(any());
+        verify(videoRepository, never()).save(any());
+    }
+
+    @Test
+    public void likeVideoTest_RelikeAfterToggleOffIsNotScoredAgain() {
+        when(videoRepository.findReactionViewById("videoId")).thenReturn(reactedVideo(0, 0));
+        when(userService.toggleReaction("videoId", VideoReaction.LIKE)).thenReturn(VideoReaction.NONE);
+        when(userService.markFirstLike("videoId")).thenReturn(false);
+        videoService.likeVideo("videoId");
+        verify(likeCounterBuffer).record("videoId", 1, 0);
+        verify(trendingService, never()).recordLike(any());
+    }
+
+    @Test
+    public void dislikeVideoTest_Success_User_Already_Liked_Video() {
+        when(videoRepository.findReactionViewById("videoId")).thenReturn(reactedVideo(1, 0));
+        when(userService.toggleReaction("videoId", VideoReaction.DISLIKE)).thenReturn(VideoReaction.LIKE);
+        when(likeCounterBuffer.getPendingLikes("videoId")).thenReturn(-1L);
+        when(likeCounterBuffer.getPendingDisLikes("videoId")).thenReturn(1L);
+        VideoDTO finalVideo = videoService.dislikeVideo("videoId");
+        assertEquals(0, finalVideo.getLikes());
+        assertEquals(1, finalVideo.getDislikes());
+        verify(likeCounterBuffer).record("videoId", -1, 1);
+    }
+
+    @Test
+    public void getLikedVideosTest_KeepsLikeOrder() {
+        when(userService.getLikedVideoIds(0, 20)).thenReturn(List.of("newer", "deleted", "older"));
+        Video older = new Video();
+        older.setId("older");
+        Video newer = new Video();
+        newer.setId("newer");
+        // Mongo returns the batch in its own order and without the deleted video
+        when(videoRepository.findSummariesByIdIn(List.of("newer", "deleted", "older"))).thenReturn(List.of(
+                projectionFactory.createProjection(VideoSummary.class, older),
+                projectionFactory.createProjection(VideoSummary.class, newer)));
+
+        List<VideoDTO> likedVideos = videoService.getLikedVideos(0, 20);
+
+        assertEquals(List.of("newer", "older"), likedVideos.stream().map(VideoDTO::getId).toList());
+    }
+
+    @Test
+    public void getLikedVideosTest_InvalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> videoService.getLikedVideos(0, 500));
+        verifyNoInteractions(userService);
+    }
+
+    private ArgumentCaptor<Query> stubListing(int videos) {
+        List<VideoSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < videos; i++) {
+            Video video = new Video();
+            video.setId("video" + i);
+            video.setTitle("title" + i);
+            summaries.add(projectionFactory.createProjection(VideoSummary.class, video));
+        }
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.query(Video.class)).thenReturn(videoFind);
+        when(videoFind.as(VideoSummary.class)).thenReturn(summaryFind);
+        when(summaryFind.matching(queryCaptor.capture())).thenReturn(summaryResults);
+        when(summaryResults.all()).thenReturn(summaries);
+        return queryCaptor;
+    }
+
+    @Test
+    public void listVideosTest_FirstPageOfPublicFeed() {
+        ArgumentCaptor<Query> queryCaptor = stubListing(3);
+
+        VideoPageDTO page = videoService.listVideos(null, null, null, 2);
+
+        assertEquals(List.of("video0", "video1"), page.getVideos().stream().map(VideoDTO::getId).toList());
+        assertEquals("video1", page.getNextCursor());
+        Query query = queryCaptor.getValue();
+        assertEquals(new Document("videoStatus", VideoStatus.PUBLIC), query.getQueryObject());
+        assertEquals(new Document("id", -1), query.getSortObject());
+        assertEquals(3, query.getLimit());
+    }
+
+    @Test
+    public void listVideosTest_CursorAndFiltersNarrowTheSeek() {
+        ArgumentCaptor<Query> queryCaptor = stubListing(1);
+        String cursor = new ObjectId().toHexString();
+
+        VideoPageDTO page = videoService.listVideos("userId", "music", cursor, 2);
+
+        assertEquals(1, page.getVideos().size());
+        assertNull(page.getNextCursor());
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals("userId", queryObject.get("userId"));
+        assertEquals("music", queryObject.get("tags"));
+        assertEquals(new Document("$lt", new ObjectId(cursor)), queryObject.get("id"));
+    }
+
+    @Test
+    public void listVideosTest_InvalidArguments() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                videoService.listVideos(null, null, "not-an-id", 20));
+        assertEquals("Invalid video cursor: not-an-id", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> videoService.listVideos(null, null, null, 101));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private ArgumentCaptor<Query> stubTitles(String... titles) {
+        List<VideoSummary> summaries = new ArrayList<>();
+        for (String title : titles) {
+            Video video = new Video();
+            video.setTitle(title);
+            summaries.add(projectionFactory.createProjection(VideoSummary.class, video));
+        }
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.query(Video.class)).thenReturn(videoFind);
+        when(videoFind.as(VideoSummary.class)).thenReturn(summaryFind);
+        when(summaryFind.matching(queryCaptor.capture())).thenReturn(summaryResults);
+        when(summaryResults.all()).thenReturn(summaries);
+        return queryCaptor;
+    }
+
+    @Test
+    public void searchVideosTest_RankedByTextScore() {
+        ArgumentCaptor<Query> queryCaptor = stubListing(2);
+
+        List<VideoDTO> results = videoService.searchVideos("funny cats", null, 1, 10);
+
+        assertEquals(List.of("video0", "video1"), results.stream().map(VideoDTO::getId).toList());
+        Query query = queryCaptor.getValue();
+        assertEquals("funny cats", query.getQueryObject().get("$text", Document.class).get("$search"));
+        assertEquals(VideoStatus.PUBLIC, query.getQueryObject().get("videoStatus"));
+        assertEquals(new Document("$meta", "textScore"), query.getSortObject().get("score"));
+        assertEquals(1, query.getFieldsObject().get("title"));
+        assertEquals(10, query.getSkip());
+        assertEquals(10, query.getLimit());
+        verify(userService, never()).getCurrentUserId();
+    }
+
+    @Test
+    public void searchVideosTest_NonPublicOnlyAmongOwnVideos() {
+        ArgumentCaptor<Query> queryCaptor = stubListing(0);
+        when(userService.getCurrentUserId()).thenReturn("userId");
+
+        videoService.searchVideos("draft", VideoStatus.PRIVATE, 0, 10);
+
+        assertEquals(VideoStatus.PRIVATE, queryCaptor.getValue().getQueryObject().get("videoStatus"));
+        assertEquals("userId", queryCaptor.getValue().getQueryObject().get("userId"));
+    }
+
+    @Test
+    public void searchVideosTest_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> videoService.searchVideos(" ", null, 0, 10));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                videoService.searchVideos("cats", null, 20, 50));
+        assertEquals("Search only returns the top 1000 results", exception.getMessage());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void autocompleteTitlesTest_LastWordIsPrefix() {
+        ArgumentCaptor<Query> queryCaptor = stubTitles("Funny cats", "Funny cats", "Funny cars");
+
+        List<String> suggestions = videoService.autocompleteTitles("Funny  Ca", 5);
+
+        assertEquals(List.of("Funny cats", "Funny cars"), suggestions);
+        Query query = queryCaptor.getValue();
+        assertEquals(VideoStatus.PUBLIC, query.getQueryObject().get("videoStatus"));
+        List<?> termCriteria = (List<?>) query.getQueryObject().get("$and");
+        assertEquals(new Document("searchTerms", new Document("$all", List.of("funny"))), termCriteria.get(0));
+        assertEquals("^ca", ((Document) termCriteria.get(1)).get("searchTerms").toString());
+        assertEquals(5, query.getLimit());
+    }
+
+    @Test
+    public void autocompleteTitlesTest_NothingTyped() {
+        assertEquals(List.of(), videoService.autocompleteTitles(" - ", 5));
+        assertThrows(IllegalArgumentException.class, () -> videoService.autocompleteTitles("ca", 50));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private VideoSummary summary(String id, VideoStatus videoStatus) {
+        Video video = new Video();
+        video.setId(id);
+        video.setVideoStatus(videoStatus);
+        return projectionFactory.createProjection(VideoSummary.class, video);
+    }
+
+    @Test
+    public void getTrendingVideosTest_RankedPublicVideosOnly() {
+        List<String> ranking = List.of("hot", "private", "deleted", "warm", "cool");
+        when(trendingService.getTopVideoIds()).thenReturn(ranking);
+        when(videoRepository.findSummariesByIdIn(ranking)).thenReturn(List.of(
+                summary("cool", VideoStatus.PUBLIC), summary("warm", VideoStatus.PUBLIC),
+                summary("private", VideoStatus.PRIVATE), summary("hot", VideoStatus.PUBLIC)));
+
+        List<VideoDTO> trending = videoService.getTrendingVideos(2);
+
+        assertEquals(List.of("hot", "warm"), trending.stream().map(VideoDTO::getId).toList());
+    }
+
+    @Test
+    public void getTrendingVideosTest_NothingRankedYet() {
+        when(trendingService.getTopVideoIds()).thenReturn(List.of());
+        assertEquals(List.of(), videoService.getTrendingVideos(20));
+        verifyNoInteractions(videoRepository);
+        assertThrows(IllegalArgumentException.class, () -> videoService.getTrendingVideos(0));
+    }
+
+    @Test
+    public void getHomeFeedTest_PublicVideosAndCursorPastHiddenOnes() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(homeFeedService.getFeedVideoIds("user123", null, 3)).thenReturn(List.of("c", "b", "a"));
+        when(videoRepository.findSummariesByIdIn(List.of("c", "b"))).thenReturn(List.of(
+                summary("c", VideoStatus.PUBLIC), summary("b", VideoStatus.PRIVATE)));
+
+        VideoPageDTO feed = videoService.getHomeFeed(null, 2);
+
+        assertEquals(List.of("c"), feed.getVideos().stream().map(VideoDTO::getId).toList());
+        assertEquals("b", feed.getNextCursor());
+    }
+
+    @Test
+    public void getHomeFeedTest_LastPageAndInvalidCursor() {
+        String cursor = new ObjectId().toHexString();
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(homeFeedService.getFeedVideoIds("user123", cursor, 21)).thenReturn(List.of());
+
+        VideoPageDTO feed = videoService.getHomeFeed(cursor, 20);
+
+        assertEquals(List.of(), feed.getVideos());
+        assertNull(feed.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> videoService.getHomeFeed("not-a-cursor", 20));
+        assertThrows(IllegalArgumentException.class, () -> videoService.getHomeFeed(null, 0));
+    }
+
+    @Test
+    public void recordViewTest_CountedViewFeedsTrending() {
+        String videoId = new ObjectId().toHexString();
+        when(viewCounterBuffer.record("viewer", videoId)).thenReturn(true, false);
+
+        videoService.recordView(videoId, "viewer");
+        videoService.recordView(videoId, "viewer");
+
+        verify(trendingService, times(1)).recordView(videoId);
+        verify(uniqueViewerService, times(2)).record(videoId, "viewer");
+        verifyNoInteractions(videoRepository, mongoTemplate);
+    }
+
+    @Test
+    public void getUniqueViewersTest_DefaultsToToday() {
+        String videoId = new ObjectId().toHexString();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        videoService.getUniqueViewers(videoId, null, null);
+        videoService.getUniqueViewers(videoId, today.minusDays(6), null);
+
+        verify(uniqueViewerService).getUniqueViewers(videoId, today, today);
+        verify(uniqueViewerService).getUniqueViewers(videoId, today.minusDays(6), today);
+    }
+
+    @Test
+    public void recordViewTest_MalformedVideoId() {
+        assertThrows(IllegalArgumentException.class, () -> videoService.recordView("not-an-id", "viewer"));
+        verifyNoInteractions(viewCounterBuffer, trendingService);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.model.Video;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ViewCounterBufferTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ViewCounterBuffer viewCounterBuffer;
+
+    @BeforeEach
+    void setUp() {
+        viewCounterBuffer = bufferWithCapacity(65_536);
+    }
+
+    private ViewCounterBuffer bufferWithCapacity(int capacity) {
+        ViewCounterBuffer buffer = new ViewCounterBuffer(mongoTemplate);
+        ReflectionTestUtils.setField(buffer, "bufferCapacity", capacity);
+        ReflectionTestUtils.setField(buffer, "dedupWindow", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(buffer, "expectedViews", 100_000L);
+        ReflectionTestUtils.setField(buffer, "falsePositiveRate", 0.01);
+        buffer.init();
+        return buffer;
+    }
+
+    private List<Document> flushedIncrements() {
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), updateCaptor.capture());
+        return updateCaptor.getAllValues().stream()
+                .map(update -> (Document) update.getUpdateObject().get("$inc"))
+                .toList();
+    }
+
+    @Test
+    void testFlush_ConcurrentViewsAreCountedExactlyOnce() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        int viewers = 5000;
+
+        // Every viewer sends the same view twice from different threads
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            for (int i = 0; i < viewers * 2; i++) {
+                String viewerId = "viewer" + (i % viewers);
+                results.add(executor.submit(() -> viewCounterBuffer.record(viewerId, "videoId")));
+            }
+        }
+        long counted = 0;
+        for (Future<Boolean> result : results) {
+            counted += result.get() ? 1 : 0;
+        }
+        viewCounterBuffer.flush();
+
+        // At most a Bloom filter false positive short of one view per viewer, and never a double count
+        assertTrue(counted <= viewers && counted >= viewers * 0.98, "Counted " + counted);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        assertEquals(List.of(new Document("viewCount", (int) counted)), flushedIncrements());
+    }
+
+    @Test
+    void testRecord_RepeatViewCountedAgainAfterTwoWindows() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        long start = System.currentTimeMillis();
+        assertTrue(viewCounterBuffer.record("viewer", "videoId"));
+        assertFalse(viewCounterBuffer.record("viewer", "videoId"));
+
+        // One rotation keeps the view in the previous generation
+        viewCounterBuffer.flush(start + Duration.ofMinutes(31).toMillis());
+        assertFalse(viewCounterBuffer.record("viewer", "videoId"));
+
+        viewCounterBuffer.flush(start + Duration.ofMinutes(62).toMillis());
+        assertTrue(viewCounterBuffer.record("viewer", "videoId"));
+        assertTrue(viewCounterBuffer.record("otherViewer", "videoId"));
+    }
+
+    @Test
+    void testRecord_FullBufferDropsViews() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        ViewCounterBuffer smallBuffer = bufferWithCapacity(2);
+
+        assertTrue(smallBuffer.record("viewer1", "videoId"));
+        assertTrue(smallBuffer.record("viewer2", "videoId"));
+        assertFalse(smallBuffer.record("viewer3", "videoId"));
+        smallBuffer.flush();
+
+        assertEquals(List.of(new Document("viewCount", 2)), flushedIncrements());
+    }
+
+    @Test
+    void testFlush_NothingPendingSkipsMongo() {
+        viewCounterBuffer.flush();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testFlush_FailedBulkWriteIsRetried() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new RuntimeException("Mongo unavailable"))
+                .thenReturn(null);
+        viewCounterBuffer.record("viewer1", "videoId");
+        viewCounterBuffer.record("viewer2", "videoId");
+
+        viewCounterBuffer.flush();
+        viewCounterBuffer.record("viewer3", "videoId");
+        viewCounterBuffer.flush();
+        viewCounterBuffer.flush();
+
+        verify(bulkOperations, times(2)).execute();
+        List<Document> increments = flushedIncrements();
+        assertEquals(new Document("viewCount", 3), increments.get(increments.size() - 1));
+    }
+
+    @Test
+    void testFlush_PartialFailureRetriesOnlyTheFailedIncrements() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class)).thenReturn(bulkOperations);
+        // The first increment of the bulk write failed, the second one was applied
+        when(bulkOperations.execute())
+                .thenThrow(new BulkOperationException("1 of 2 writes failed", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), List.of(new BulkWriteError(91, "shutting down",
+                        new BsonDocument(), 0)), null, new ServerAddress(), Set.of())))
+                .thenReturn(null);
+        viewCounterBuffer.record("viewer1", "video1");
+        viewCounterBuffer.record("viewer2", "video2");
+
+        viewCounterBuffer.flush();
+        viewCounterBuffer.flush();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(3)).updateOne(queryCaptor.capture(), any(Update.class));
+        List<Query> queries = queryCaptor.getAllValues();
+        assertEquals(queries.get(0).getQueryObject(), queries.get(2).getQueryObject());
+        assertEquals(new Document("viewCount", 1), flushedIncrements().get(2));
+    }
+
+    @Test
+    void testRecord_OverfilledGenerationRotatesBeforeItSaturates() {
+        ReflectionTestUtils.setField(viewCounterBuffer, "expectedViews", 1_000L);
+        viewCounterBuffer.init();
+        int viewers = 20_000;
+
+        // Twenty generations' worth of first views well inside one dedup window
+        int counted = 0;
+        for (int i = 0; i < viewers; i++) {
+            counted += viewCounterBuffer.record("viewer" + i, "videoId") ? 1 : 0;
+        }
+
+        // A single 1,000-view filter would be saturated long before the end and drop nearly every first view
+        assertTrue(counted >= viewers * 0.97, "Counted " + counted);
+        assertFalse(viewCounterBuffer.record("viewer" + (viewers - 1), "videoId"));
+    }
+
+    @Test
+    void testBloomFilter_FalsePositiveRateStaysNearTarget() {
+        BloomFilter bloomFilter = new BloomFilter(100_000, 0.01);
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            falsePositives += bloomFilter.put("viewer" + i + "\nvideoId") ? 0 : 1;
+        }
+        // Inserts see a rising rate as the filter fills, lookups after it is full see the target rate
+        assertTrue(falsePositives < 500, falsePositives + " inserts looked like repeats");
+        falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(bloomFilter.mightContain("viewer" + i + "\nvideoId"));
+            falsePositives += bloomFilter.mightContain("stranger" + i + "\nvideoId") ? 1 : 0;
+        }
+        assertTrue(falsePositives < 1_500, falsePositives + " false positives");
+    }
+}
@@ -0,0 +1,175 @@
+package com.aditya.youtube_clone.service;
+
+import com.aditya.youtube_clone.dto.WatchEventDTO;
+import com.aditya.youtube_clone.model.WatchEvent;
+import com.aditya.youtube_clone.model.WatchHistoryBucket;
+import com.aditya.youtube_clone.model.WatchProgress;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WatchHistoryServiceTest {
+
+    private static final Instant TODAY = Instant.now().truncatedTo(ChronoUnit.DAYS);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private WatchHistoryService watchHistoryService;
+
+    private final String videoId = new ObjectId().toHexString();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(watchHistoryService, "bucketCap", 500);
+    }
+
+    private static WatchHistoryBucket bucket(Instant bucketStart, String... videoIds) {
+        List<WatchEvent> events = new ArrayList<>();
+        for (int i = 0; i < videoIds.length; i++) {
+            events.add(new WatchEvent(videoIds[i], i * 10L, bucketStart.plusSeconds(i)));
+        }
+        return new WatchHistoryBucket(null, "user123", bucketStart, events);
+    }
+
+    @Test
+    public void recordWatchEventTest_AppendsToTodaysBucketAndSavesPosition() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+
+        watchHistoryService.recordWatchEvent(videoId, 590, 600L);
+
+        ArgumentCaptor<Query> bucketQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> bucketUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(bucketQuery.capture(), bucketUpdate.capture(), eq(WatchHistoryBucket.class));
+        assertEquals(TODAY, bucketQuery.getValue().getQueryObject().get("bucketStart"));
+        assertEquals(new Document("$ne", videoId), bucketQuery.getValue().getQueryObject().get("events.videoId"));
+        Update.Modifiers push = (Update.Modifiers) ((Document) bucketUpdate.getValue().getUpdateObject().get("$push"))
+                .get("events");
+        Map<String, Object> modifiers = push.getModifiers().stream()
+                .collect(Collectors.toMap(Update.Modifier::getKey, Update.Modifier::getValue));
+        assertEquals(-500, modifiers.get("$slice"));
+        WatchEvent event = (WatchEvent) ((Object[]) modifiers.get("$each"))[0];
+        assertEquals(590, event.getPositionSeconds());
+
+        ArgumentCaptor<Update> progressUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), progressUpdate.capture(), eq(WatchProgress.class));
+        Document set = (Document) progressUpdate.getValue().getUpdateObject().get("$set");
+        assertEquals(590L, set.get("positionSeconds"));
+        // Past 95% of the duration the video counts as finished
+        assertEquals(true, set.get("completed"));
+    }
+
+    @Test
+    public void recordWatchEventTest_HeartbeatOnlyMovesThePosition() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        // Today's bucket already lists the video, so the upsert falls through to an insert on the unique index
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(WatchHistoryBucket.class)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        watchHistoryService.recordWatchEvent(videoId, 30, null);
+
+        ArgumentCaptor<Query> retryQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(retryQuery.capture(), any(Update.class), eq(WatchHistoryBucket.class));
+        assertEquals(new Document("$ne", videoId), retryQuery.getValue().getQueryObject().get("events.videoId"));
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(WatchHistoryBucket.class));
+        ArgumentCaptor<Update> progressUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), progressUpdate.capture(), eq(WatchProgress.class));
+        assertEquals(30L, ((Document) progressUpdate.getValue().getUpdateObject().get("$set")).get("positionSeconds"));
+    }
+
+    @Test
+    public void recordWatchEventTest_InvalidEvent() {
+        assertThrows(IllegalArgumentException.class, () -> watchHistoryService.recordWatchEvent("bad", 30, null));
+        assertThrows(IllegalArgumentException.class, () -> watchHistoryService.recordWatchEvent(videoId, -1, null));
+        assertThrows(IllegalArgumentException.class, () -> watchHistoryService.recordWatchEvent(videoId, 30, 0L));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void getRecentHistoryTest_NewestDistinctVideosAcrossBuckets() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        List<WatchHistoryBucket> firstRead = new ArrayList<>();
+        firstRead.add(bucket(TODAY, "a", "b", "a"));
+        for (int day = 1; day < 7; day++) {
+            firstRead.add(bucket(TODAY.minus(day, ChronoUnit.DAYS)));
+        }
+        when(mongoTemplate.find(any(Query.class), eq(WatchHistoryBucket.class)))
+                .thenReturn(firstRead)
+                .thenReturn(List.of(bucket(TODAY.minus(30, ChronoUnit.DAYS), "c", "d")));
+
+        List<WatchEventDTO> history = watchHistoryService.getRecentHistory(3);
+
+        assertEquals(List.of("a", "b", "d"), history.stream().map(WatchEventDTO::getVideoId).toList());
+        assertEquals(20, history.get(0).getPositionSeconds());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(WatchHistoryBucket.class));
+        Query secondRead = queryCaptor.getAllValues().get(1);
+        assertEquals(new Document("$lt", TODAY.minus(6, ChronoUnit.DAYS)),
+                secondRead.getQueryObject().get("bucketStart"));
+    }
+
+    @Test
+    public void getRecentHistoryTest_RepeatedVideoDoesNotHideTheOthersOfTheDay() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        // Older buckets may still hold one event per heartbeat
+        when(mongoTemplate.find(any(Query.class), eq(WatchHistoryBucket.class)))
+                .thenReturn(List.of(bucket(TODAY, "b", "c", "a", "a", "a", "a")));
+        when(mongoTemplate.find(any(Query.class), eq(WatchProgress.class))).thenReturn(List.of(
+                new WatchProgress("progress1", "user123", "a", 300, 600L, false, TODAY),
+                new WatchProgress("progress2", "user123", "b", 45, 90L, false, TODAY)));
+
+        List<WatchEventDTO> history = watchHistoryService.getRecentHistory(3);
+
+        assertEquals(List.of("a", "c", "b"), history.stream().map(WatchEventDTO::getVideoId).toList());
+        assertEquals(300, history.get(0).getPositionSeconds());
+        assertEquals(600L, history.get(0).getDurationSeconds());
+        assertEquals(10, history.get(1).getPositionSeconds());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(WatchHistoryBucket.class));
+        assertTrue(queryCaptor.getValue().getFieldsObject().isEmpty());
+    }
+
+    @Test
+    public void getContinueWatchingTest_OnlyUnfinishedVideos() {
+        when(userService.getCurrentUserId()).thenReturn("user123");
+        when(mongoTemplate.find(any(Query.class), eq(WatchProgress.class))).thenReturn(List.of(
+                new WatchProgress("progress1", "user123", videoId, 120, 600L, false, TODAY)));
+
+        List<WatchEventDTO> continueWatching = watchHistoryService.getContinueWatching(10);
+
+        assertEquals(120, continueWatching.get(0).getPositionSeconds());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(WatchProgress.class));
+        assertEquals(false, queryCaptor.getValue().getQueryObject().get("completed"));
+        assertEquals(new Document("updatedAt", -1), queryCaptor.getValue().getSortObject());
+        assertThrows(IllegalArgumentException.class, () -> watchHistoryService.getContinueWatching(0));
+    }
+}